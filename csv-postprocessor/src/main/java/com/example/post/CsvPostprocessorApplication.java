@@ -1,11 +1,15 @@
 package com.example.post;
 
+import com.example.post.config.VirtualThreadSupport;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 @SpringBootApplication
 public class CsvPostprocessorApplication {
   public static void main(String[] args) {
-    SpringApplication.run(CsvPostprocessorApplication.class, args);
+    SpringApplication app = new SpringApplication(CsvPostprocessorApplication.class);
+    // Camel のスレッドを仮想スレッドにするかは、Camel が読み込まれる前に決める
+    app.addListeners(new VirtualThreadSupport());
+    app.run(args);
   }
 }
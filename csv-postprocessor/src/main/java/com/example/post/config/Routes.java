@@ -1,13 +1,46 @@
 package com.example.post.config;
 
+import com.example.post.processor.CsvToTxtProcessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.camel.Exchange;
 import org.apache.camel.builder.RouteBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
+
 @Component
 public class Routes extends RouteBuilder {
 
+  private static final String PROP_WRITE_SAMPLE = "csvpost.writeSample";
+
+  // メトリクス（/actuator/prometheus）
+  // - csvpost.stage{stage=convert|write} : 読み込み+変換（一時ファイルへの書き出しまで）/ 出力名への rename の所要時間（ヒストグラム付き）
+  // - csvpost.files{result=ok|error}, csvpost.bytes, csvpost.rows
+  private final MeterRegistry registry;
+  private final Timer convertTimer;
+  private final Timer writeTimer;
+  private final Counter filesOk;
+  private final Counter filesError;
+  private final Counter bytesIn;
+  private final Counter rows;
+
+  public Routes(MeterRegistry registry) {
+    this.registry = registry;
+    this.convertTimer = stageTimer("convert");
+    this.writeTimer = stageTimer("write");
+    this.filesOk = Counter.builder("csvpost.files").tag("result", "ok").register(registry);
+    this.filesError = Counter.builder("csvpost.files").tag("result", "error").register(registry);
+    this.bytesIn = Counter.builder("csvpost.bytes").baseUnit("bytes").register(registry);
+    this.rows = Counter.builder("csvpost.rows").register(registry);
+  }
+
+  private Timer stageTimer(String stage) {
+    return Timer.builder("csvpost.stage").tag("stage", stage).publishPercentileHistogram().register(registry);
+  }
+
   @Value("${app.inDir:/data/output}")
   String inDir;
 
@@ -17,12 +50,27 @@ public class Routes extends RouteBuilder {
   @Value("${app.replaceCommaWithTab:false}")
   boolean replaceCommaWithTab;
 
+  // 出力の区切り文字（1 文字、または tab）。空なら replaceCommaWithTab に従う（true: タブ / false: カンマのまま）
+  @Value("${app.delimiter:}")
+  String delimiter;
+
+  char outputDelimiter() {
+    if (delimiter == null || delimiter.isEmpty()) return replaceCommaWithTab ? '\t' : ',';
+    if (delimiter.equalsIgnoreCase("tab")) return '\t';
+    if (delimiter.length() != 1) {
+      throw new IllegalStateException("app.delimiter must be a single character or 'tab': " + delimiter);
+    }
+    return delimiter.charAt(0);
+  }
+
   @Override
   public void configure() {
+    CsvToTxtProcessor csvToTxt = new CsvToTxtProcessor(Path.of(outDir), outputDelimiter());
 
     // 失敗したファイルはエラー置き場へ
     onException(Exception.class)
       .handled(true)
+      .process(e -> filesError.increment())
       .log("TXT変換失敗: ${exception.message} for ${header.CamelFileName}")
       .toD("file:" + outDir + "/.error?fileName=${date:now:yyyyMMddHHmmss}-${file:name}");
 
@@ -41,17 +89,21 @@ public class Routes extends RouteBuilder {
         + "&move=.done/${file:name}")
       .routeId("csv-to-txt")
       .log("CSV検出: ${file:absolute.path}")
-      // 必要ならここで変換（カンマ→タブ）
-      .process(e -> {
-        String body = e.getMessage().getBody(String.class);
-        if (replaceCommaWithTab) {
-          body = body.replace(",", "\t");
-        }
-        e.getMessage().setBody(body);
-      })
+      // 引用を解釈しながら区切り文字を変え、出力先の一時ファイルへ流す（ファイル全体をメモリに載せない）
+      .process(e -> convertTimer.recordCallable(() -> {
+        csvToTxt.process(e);
+        return null;
+      }))
+      .process(e -> rows.increment(e.getProperty(CsvToTxtProcessor.PROP_RECORDS, 0L, Long.class)))
       // 出力ファイル名を .txt に
       .setHeader(Exchange.FILE_NAME, simple("${file:name.noext}.txt"))
+      .process(e -> e.setProperty(PROP_WRITE_SAMPLE, Timer.start(registry)))
       .toD("file:" + outDir)
+      .process(e -> {
+        e.getProperty(PROP_WRITE_SAMPLE, Timer.Sample.class).stop(writeTimer);
+        bytesIn.increment(e.getMessage().getHeader(Exchange.FILE_LENGTH, 0L, Long.class));
+        filesOk.increment();
+      })
       .log("TXT出力: " + outDir + "/${header.CamelFileName}");
   }
 }
@@ -0,0 +1,45 @@
+package com.example.post.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+
+/**
+ * 仮想スレッドの切り替え。spring.threads.virtual.enabled=true（Java 21 以上）で、
+ * Spring Boot が Tomcat のリクエスト処理・タスク実行を仮想スレッドにするのに合わせて、
+ * Camel のスレッド（コンシューマ・スレッドプールプロファイル）も仮想スレッドにする。
+ * Camel はシステムプロパティ camel.threads.virtual.enabled をクラス読み込み時に一度だけ見るので、
+ * コンテキストを作る前（Environment 準備完了時）に設定する。main で SpringApplication に登録すること。
+ */
+public class VirtualThreadSupport implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadSupport.class);
+
+  public static final String PROPERTY = "spring.threads.virtual.enabled";
+  static final String CAMEL_PROPERTY = "camel.threads.virtual.enabled";
+
+  /** 実行中の JVM で仮想スレッドが使えるか */
+  public static boolean isAvailable() {
+    return Runtime.version().feature() >= 21;
+  }
+
+  /** 設定で有効、かつ JVM が対応しているか */
+  public static boolean isEnabled(Environment environment) {
+    return environment.getProperty(PROPERTY, Boolean.class, false) && isAvailable();
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+    if (!event.getEnvironment().getProperty(PROPERTY, Boolean.class, false)) return;
+    if (!isAvailable()) {
+      LOG.warn("{}=true but Java {} has no virtual threads; using platform threads.", PROPERTY, Runtime.version().feature());
+      return;
+    }
+    if (System.getProperty(CAMEL_PROPERTY) == null) {
+      System.setProperty(CAMEL_PROPERTY, "true");
+    }
+    LOG.info("Virtual threads enabled (Tomcat, Spring task executors, Camel thread pools).");
+  }
+}
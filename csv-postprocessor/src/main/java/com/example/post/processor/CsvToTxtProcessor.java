@@ -0,0 +1,243 @@
+package com.example.post.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * CSV を区切り文字を変えたテキスト（既定はタブ = TSV）に変換する。
+ * - 入力はファイルチャネルから 64KB ずつ読み、バイト単位の状態機械で RFC 4180 の引用（"a,b"・"" のエスケープ・引用内の改行）を解釈する
+ *   （区切り・引用符・改行はすべて ASCII なので UTF-8 のままバイトで扱える）
+ * - 出力はフィールドごとに書き、出力の区切り文字・引用符・改行を含むフィールドだけを引用する（不要な引用は外す）。
+ *   改行は入力のまま（LF / CRLF）
+ * - 出力は出力ディレクトリの一時ファイル（.csvpost-*.tmp）に書き、本文をそのファイル・ヘッダ
+ *   {@link Exchange#FILE_LOCAL_WORK_PATH} をそのパスにする（file エンドポイントはコピーせず rename する）
+ * ヒープは読み書きのバッファと最長のフィールド 1 つ分だけで、入力の大きさによらない。
+ * 引用が閉じないまま終わった入力は {@link IllegalArgumentException}。
+ */
+public class CsvToTxtProcessor implements Processor {
+
+  /** 変換したレコード数（ヘッダ行を含む） */
+  public static final String PROP_RECORDS = "csvpost.records";
+
+  private static final int BUFFER = 64 * 1024;
+
+  private final Path outDir;
+  private final byte delimiter;
+
+  public CsvToTxtProcessor(Path outDir, char delimiter) {
+    if (delimiter > 0x7F || delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+      throw new IllegalArgumentException("Output delimiter must be an ASCII character other than a quote or line break: " + (int) delimiter);
+    }
+    this.outDir = outDir;
+    this.delimiter = (byte) delimiter;
+  }
+
+  @Override
+  public void process(Exchange exchange) throws Exception {
+    File in = exchange.getMessage().getBody(File.class);
+    if (in == null) throw new IllegalStateException("Body must be a file");
+    Files.createDirectories(outDir);
+    Path tmp = Files.createTempFile(outDir, ".csvpost-", ".tmp");
+    long records;
+    try {
+      records = convert(in.toPath(), tmp, delimiter);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    exchange.setProperty(PROP_RECORDS, records);
+    exchange.getMessage().setBody(tmp.toFile());
+    exchange.getMessage().setHeader(Exchange.FILE_LOCAL_WORK_PATH, tmp.toString());
+  }
+
+  /** in（CSV）を区切り文字 delimiter で out に書き、レコード数を返す */
+  public static long convert(Path in, Path out, byte delimiter) throws IOException {
+    try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+         FileChannel dst = FileChannel.open(out, StandardOpenOption.WRITE,
+             StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      Converter c = new Converter(dst, delimiter);
+      ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+      while (src.read(buf) > 0) {
+        buf.flip();
+        c.feed(buf.array(), buf.limit());
+        buf.clear();
+      }
+      c.finish();
+      return c.records;
+    }
+  }
+
+  /** バイト列を受け取って、レコード・フィールドの区切りごとに出力へ書く */
+  private static final class Converter {
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    /** 引用内で " を読んだ直後（"" なら " 1 文字、区切りか改行ならフィールドの終わり） */
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final FileChannel dst;
+    private final byte delimiter;
+    private final ByteBuffer out = ByteBuffer.allocate(BUFFER);
+
+    private int state = FIELD_START;
+    private byte[] field = new byte[256];
+    private int fieldLength;
+    /** 直前が引用外の CR（続く LF は CRLF の一部として読み捨てる） */
+    private boolean afterCr;
+    /** いまのレコードに書いたフィールドがあるか */
+    private boolean inRecord;
+    long records;
+
+    Converter(FileChannel dst, byte delimiter) {
+      this.dst = dst;
+      this.delimiter = delimiter;
+    }
+
+    void feed(byte[] b, int n) throws IOException {
+      int i = 0;
+      while (i < n) {
+        byte c = b[i];
+        if (afterCr) {
+          afterCr = false;
+          if (c == '\n') {
+            put((byte) '\n');
+            i++;
+            continue;
+          }
+        }
+        switch (state) {
+          case QUOTED -> {
+            // 次の " までをまとめて取る
+            int j = i;
+            while (j < n && b[j] != '"') j++;
+            append(b, i, j - i);
+            if (j < n) state = QUOTE_IN_QUOTED;
+            i = j + 1;
+          }
+          case UNQUOTED -> {
+            // 次の区切り・改行までをまとめて取る（途中の " は文字として扱う）
+            int j = i;
+            while (j < n && b[j] != ',' && b[j] != '\n' && b[j] != '\r') j++;
+            append(b, i, j - i);
+            if (j < n) separator(b[j]);
+            i = j + 1;
+          }
+          case QUOTE_IN_QUOTED -> {
+            if (c == '"') {
+              append(b, i, 1);
+              state = QUOTED;
+            } else if (!separator(c)) {
+              // "ab"c のような閉じた後の文字はそのまま続ける（寛容に読む）
+              append(b, i, 1);
+              state = UNQUOTED;
+            }
+            i++;
+          }
+          default -> {
+            if (c == '"') state = QUOTED;
+            else if (!separator(c)) {
+              append(b, i, 1);
+              state = UNQUOTED;
+            }
+            i++;
+          }
+        }
+      }
+    }
+
+    /** 引用外の区切り・改行ならフィールド（とレコード）を終えて true */
+    private boolean separator(byte c) throws IOException {
+      if (c == ',') {
+        endField();
+        put(delimiter);
+        return true;
+      }
+      if (c == '\n' || c == '\r') {
+        endField();
+        put((byte) c);
+        endRecord();
+        afterCr = c == '\r';
+        return true;
+      }
+      return false;
+    }
+
+    void finish() throws IOException {
+      if (state == QUOTED) {
+        throw new IllegalArgumentException("Unterminated quoted field in record " + (records + 1));
+      }
+      // 最終行に改行が無い場合
+      if (inRecord || state != FIELD_START || fieldLength > 0) {
+        endField();
+        endRecord();
+      }
+      flush();
+    }
+
+    private void append(byte[] b, int off, int len) {
+      if (fieldLength + len > field.length) {
+        field = Arrays.copyOf(field, Math.max(field.length * 2, fieldLength + len));
+      }
+      System.arraycopy(b, off, field, fieldLength, len);
+      fieldLength += len;
+    }
+
+    private void endField() throws IOException {
+      boolean quote = false;
+      for (int i = 0; i < fieldLength && !quote; i++) {
+        byte c = field[i];
+        quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+      }
+      if (quote) {
+        put((byte) '"');
+        for (int i = 0; i < fieldLength; i++) {
+          byte c = field[i];
+          if (c == '"') put(c);
+          put(c);
+        }
+        put((byte) '"');
+      } else {
+        put(field, fieldLength);
+      }
+      fieldLength = 0;
+      state = FIELD_START;
+      inRecord = true;
+    }
+
+    private void endRecord() {
+      records++;
+      inRecord = false;
+    }
+
+    private void put(byte c) throws IOException {
+      if (!out.hasRemaining()) flush();
+      out.put(c);
+    }
+
+    private void put(byte[] b, int n) throws IOException {
+      int off = 0;
+      while (off < n) {
+        if (!out.hasRemaining()) flush();
+        int len = Math.min(n - off, out.remaining());
+        out.put(b, off, len);
+        off += len;
+      }
+    }
+
+    private void flush() throws IOException {
+      out.flip();
+      while (out.hasRemaining()) dst.write(out);
+      out.clear();
+    }
+  }
+}
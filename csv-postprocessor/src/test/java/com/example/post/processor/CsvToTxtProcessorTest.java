@@ -0,0 +1,105 @@
+package com.example.post.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvToTxtProcessorTest {
+
+  /** 読み込みの単位（CsvToTxtProcessor の 64KB） */
+  private static final int CHUNK = 64 * 1024;
+
+  @TempDir
+  Path dir;
+
+  private String convert(String csv, char delimiter) throws Exception {
+    Path in = dir.resolve("in.csv");
+    Path out = dir.resolve("out.txt");
+    Files.writeString(in, csv, StandardCharsets.UTF_8);
+    CsvToTxtProcessor.convert(in, out, (byte) delimiter);
+    return Files.readString(out, StandardCharsets.UTF_8);
+  }
+
+  /** suffix が offset バイト目（0 始まり）から始まるよう、前に 1 行分の埋め草を置く */
+  private static String at(int offset, String suffix) {
+    return "x".repeat(offset - 1) + "\n" + suffix;
+  }
+
+  @Test
+  void quotedFields_areParsedThenRequotedOnlyWhenNeeded() throws Exception {
+    assertEquals("brand\tprice\nA, Inc.\t1\n", convert("brand,price\n\"A, Inc.\",1\n", '\t'));
+    // "" のエスケープ・引用内の改行・出力の区切り文字を含むフィールドは引用し直す
+    assertEquals("\"say \"\"hi\"\"\"\t\"two\nlines\"\t\"a\tb\"\n",
+        convert("\"say \"\"hi\"\"\",\"two\nlines\",\"a\tb\"\n", '\t'));
+    // 日本語（UTF-8）はそのまま
+    assertEquals("第370回 利付国債（10年）\t99.1\n", convert("\"第370回 利付国債（10年）\",99.1\n", '\t'));
+  }
+
+  @Test
+  void commaDelimiter_requotesFieldsContainingCommas() throws Exception {
+    assertEquals("\"a,b\",plain,\"x\"\"y\",\n", convert("\"a,b\",\"plain\",\"x\"\"y\",\n", ','));
+  }
+
+  @Test
+  void lineEndings_crlfAndMissingFinalNewline() throws Exception {
+    assertEquals("a\tb\r\nc\td", convert("a,b\r\nc,d", '\t'));
+    assertEquals("a\t\n", convert("a,\n", '\t'));
+    assertEquals("a\t", convert("a,", '\t'));
+    assertEquals("\"\"\"\"", convert("\"\"\"\"", '\t'));
+  }
+
+  @Test
+  void chunkBoundaries() throws Exception {
+    // CR がチャンクの最後、LF が次のチャンクの先頭
+    String crlf = at(CHUNK - 4, "a,b\r\nc,d\r\n");
+    assertEquals('\r', crlf.charAt(CHUNK - 1));
+    assertEquals(at(CHUNK - 4, "a\tb\r\nc\td\r\n"), convert(crlf, '\t'));
+
+    // "" のエスケープがチャンクをまたぐ
+    String escape = at(CHUNK - 3, "\"p\"\"q\",r\n");
+    assertEquals('"', escape.charAt(CHUNK - 1));
+    assertEquals('"', escape.charAt(CHUNK));
+    assertEquals(at(CHUNK - 3, "\"p\"\"q\"\tr\n"), convert(escape, '\t'));
+
+    // 閉じ引用符がチャンクの最後、区切りが次の先頭
+    String closing = at(CHUNK - 4, "\"s,\",t\n");
+    assertEquals('"', closing.charAt(CHUNK - 1));
+    assertEquals(at(CHUNK - 4, "s,\tt\n"), convert(closing, '\t'));
+
+    // 開き引用符が次のチャンクの先頭
+    String opening = at(CHUNK - 2, "u,\"v,w\"\n");
+    assertEquals('"', opening.charAt(CHUNK));
+    assertEquals(at(CHUNK - 2, "u\tv,w\n"), convert(opening, '\t'));
+  }
+
+  @Test
+  void unterminatedQuote_isRejected() {
+    assertThrows(IllegalArgumentException.class, () -> convert("a,\"open\nb,c\n", '\t'));
+  }
+
+  @Test
+  void process_writesTempFileInOutDirForRename() throws Exception {
+    Path in = dir.resolve("jsprice.csv");
+    Files.writeString(in, "brand,price\n\"A, Inc.\",1\n");
+    Path outDir = dir.resolve("txt");
+    Exchange ex = new DefaultExchange(new DefaultCamelContext());
+    ex.getMessage().setBody(in.toFile());
+
+    new CsvToTxtProcessor(outDir, '\t').process(ex);
+
+    File tmp = ex.getMessage().getBody(File.class);
+    assertEquals(outDir, tmp.toPath().getParent());
+    assertEquals(tmp.toString(), ex.getMessage().getHeader(Exchange.FILE_LOCAL_WORK_PATH));
+    assertEquals(2L, ex.getProperty(CsvToTxtProcessor.PROP_RECORDS));
+    assertEquals("brand\tprice\nA, Inc.\t1\n", Files.readString(tmp.toPath()));
+  }
+}
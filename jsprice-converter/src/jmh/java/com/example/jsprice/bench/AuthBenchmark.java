@@ -0,0 +1,108 @@
+package com.example.jsprice.bench;
+
+import com.example.security.CachingJwtAuthenticationProvider;
+import com.example.security.KeycloakRealmRoleConverter;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * リソースサーバの 1 リクエスト分の JWT 認証（Bearer → Authentication）を測る。
+ * - jwtDefault : Spring 既定の JwtAuthenticationProvider（毎回パース・RS256 検証・権限変換）
+ * - jwtCached  : CachingJwtAuthenticationProvider（同じトークンの 2 回目以降はダイジェスト計算と検索だけ）
+ * tokens は同時に使われるトークンの種類。サービストークンの使い回しなら 1。
+ * JWK Set の取得は含めない（公開鍵を直接渡す）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AuthBenchmark {
+
+  @Param({"1", "64"})
+  public int tokens;
+
+  private String[] bearerTokens;
+  private AuthenticationProvider uncached;
+  private AuthenticationProvider cached;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+    gen.initialize(2048);
+    KeyPair keys = gen.generateKeyPair();
+
+    bearerTokens = new String[tokens];
+    for (int i = 0; i < tokens; i++) {
+      JWTClaimsSet claims = new JWTClaimsSet.Builder()
+          .subject("service-cli-" + i)
+          .issuer("http://localhost:8080/realms/needs-realm")
+          .issueTime(new Date())
+          .expirationTime(Date.from(Instant.now().plus(Duration.ofHours(1))))
+          .claim("realm_access", Map.of("roles", List.of("svc", "offline_access", "uma_authorization")))
+          .build();
+      SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claims);
+      jwt.sign(new RSASSASigner(keys.getPrivate()));
+      bearerTokens[i] = jwt.serialize();
+    }
+
+    JwtDecoder decoder = NimbusJwtDecoder.withPublicKey((RSAPublicKey) keys.getPublic()).build();
+    JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+    converter.setJwtGrantedAuthoritiesConverter(new KeycloakRealmRoleConverter());
+
+    JwtAuthenticationProvider plain = new JwtAuthenticationProvider(decoder);
+    plain.setJwtAuthenticationConverter(converter);
+    uncached = plain;
+    cached = new CachingJwtAuthenticationProvider(decoder, converter, 1024);
+  }
+
+  private BearerTokenAuthenticationToken nextBearer() {
+    String token = bearerTokens[next];
+    next = (next + 1) % bearerTokens.length;
+    return new BearerTokenAuthenticationToken(token);
+  }
+
+  @Benchmark
+  public Authentication jwtDefault() {
+    return uncached.authenticate(nextBearer());
+  }
+
+  @Benchmark
+  public Authentication jwtCached() {
+    return cached.authenticate(nextBearer());
+  }
+}
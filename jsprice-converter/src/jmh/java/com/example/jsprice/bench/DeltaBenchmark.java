@@ -0,0 +1,80 @@
+package com.example.jsprice.bench;
+
+import com.example.jsprice.processor.BondCsvWriter;
+import com.example.jsprice.processor.BondRow;
+import com.example.jsprice.processor.DeltaProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 前回の出力との差分（DeltaProcessor.diff）。前回・今回の CSV の読み込みから差分 CSV の書き出しまでを 1 op とする。
+ * 今回は前回から 1% 削除・1% 追加・10% 価格変更。行数に対して線形に伸びることを見る。
+ * 例: mvn -Pjmh -DskipTests verify -Djmh.args="DeltaBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DeltaBenchmark {
+
+  @Param({"5000", "50000", "500000"})
+  public int rows;
+
+  private Path dir;
+  private Path previous;
+  private Path current;
+  private Path target;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("jsprice-delta");
+    previous = dir.resolve("prev.csv");
+    current = dir.resolve("curr.csv");
+    target = dir.resolve("delta.csv");
+    SplittableRandom rnd = new SplittableRandom(42);
+    try (BondCsvWriter prev = new BondCsvWriter(Files.newBufferedWriter(previous, StandardCharsets.UTF_8));
+         BondCsvWriter curr = new BondCsvWriter(Files.newBufferedWriter(current, StandardCharsets.UTF_8))) {
+      prev.writeHeader();
+      curr.writeHeader();
+      for (int i = 0; i < rows; i++) {
+        BondRow r = new BondRow("第" + i + "回　利付国債（１０年）", 19000 + i % 7000, 500_000, 99_000_000 + i);
+        prev.write(r);
+        int p = rnd.nextInt(100);
+        if (p == 0) continue;                                                       // 削除
+        if (p == 1) curr.write(new BondRow(r.brand() + "（新）", r.maturity(), r.coupon(), r.price()));   // 追加
+        curr.write(p < 12 ? new BondRow(r.brand(), r.maturity(), r.coupon(), r.price() + 100) : r);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    for (Path p : new Path[]{previous, current, target}) Files.deleteIfExists(p);
+    Files.deleteIfExists(dir);
+  }
+
+  @Benchmark
+  public DeltaProcessor.Counts diff() throws IOException {
+    return DeltaProcessor.diff(previous, current, target);
+  }
+}
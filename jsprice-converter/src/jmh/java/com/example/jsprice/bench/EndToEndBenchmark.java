@@ -0,0 +1,73 @@
+package com.example.jsprice.bench;
+
+import com.example.jsprice.processor.PdfToCsvProcessor;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PdfToCsvProcessor 全体（PDF ファイル → CSV 文字列）を mode × engine ごとに測る。
+ * 本番と同じく body はダウンロード済みの一時ファイル（java.io.File）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EndToEndBenchmark {
+
+  @Param({"1000", "5000"})
+  public int rows;
+
+  @Param({"WHOLE", "STREAMING", "PARALLEL"})
+  public PdfToCsvProcessor.Mode mode;
+
+  @Param({"TEXT", "POSITION"})
+  public PdfToCsvProcessor.Engine engine;
+
+  private CamelContext context;
+  private Path pdfFile;
+  private PdfToCsvProcessor processor;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    context = new DefaultCamelContext();
+    pdfFile = Files.createTempFile("jsprice-bench-", ".pdf");
+    Files.write(pdfFile, JsPricePdfGenerator.generate(rows));
+    processor = new PdfToCsvProcessor().mode(mode).engine(engine);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(pdfFile);
+    context.close();
+  }
+
+  @Benchmark
+  public Object process() throws Exception {
+    Exchange exchange = new DefaultExchange(context);
+    exchange.getIn().setBody(pdfFile.toFile());
+    processor.process(exchange);
+    return exchange.getIn().getBody();
+  }
+}
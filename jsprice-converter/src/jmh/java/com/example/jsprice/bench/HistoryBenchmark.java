@@ -0,0 +1,109 @@
+package com.example.jsprice.bench;
+
+import com.example.jsprice.PriceHistoryStore;
+import com.example.jsprice.processor.BondRow;
+import com.example.jsprice.processor.RowScanner;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 価格履歴（PriceHistoryStore）の起動時の索引の作り直しと、銘柄 × 期間の範囲走査。
+ * Setup で weeks 週分（既定 5 年）の週次スナップショット（1 回 rows 行）を追記しておく。
+ * - open  : セグメントを mmap し、ヘッダ・CRC・銘柄 ID を走査して索引を作り直す（ページキャッシュに載った状態）
+ * - range : ランダムな銘柄の全期間（weeks 件）を引く
+ * 例: mvn -Pjmh -DskipTests verify -Djmh.args="HistoryBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HistoryBenchmark {
+
+  @Param({"5000"})
+  public int rows;
+
+  @Param({"260"})
+  public int weeks;
+
+  private Path dir;
+  private PriceHistoryStore store;
+  private String[] brands;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    String text;
+    try (PDDocument doc = PDDocument.load(JsPricePdfGenerator.generate(rows))) {
+      PDFTextStripper stripper = new PDFTextStripper();
+      stripper.setSortByPosition(true);
+      text = stripper.getText(doc);
+    }
+    List<BondRow> base = new ArrayList<>(rows);
+    new RowScanner().scan(text, (start, end, row) -> {
+      base.add(row);
+      return true;
+    });
+    brands = base.stream().map(BondRow::brand).distinct().toArray(String[]::new);
+
+    dir = Files.createTempDirectory("jsprice-history");
+    LocalDate d = LocalDate.of(2020, 1, 6);
+    try (PriceHistoryStore s = PriceHistoryStore.open(dir, 64L << 20)) {
+      for (int w = 0; w < weeks; w++) {
+        List<BondRow> snap = new ArrayList<>(base.size());
+        for (BondRow r : base) snap.add(new BondRow(r.brand(), r.maturity(), r.coupon(), r.price() + w * 100L));
+        s.append(d.plusWeeks(w), snap);
+      }
+    }
+    long bytes;
+    try (Stream<Path> files = Files.list(dir)) {
+      bytes = files.mapToLong(p -> p.toFile().length()).sum();
+    }
+    System.out.printf("  [rows=%d, weeks=%d] %d bytes on disk%n", rows, weeks, bytes);
+    store = PriceHistoryStore.open(dir, 64L << 20);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    store.close();
+    try (Stream<Path> files = Files.list(dir)) {
+      for (Path p : files.toList()) Files.deleteIfExists(p);
+    }
+    Files.deleteIfExists(dir);
+  }
+
+  @Benchmark
+  public long open() throws IOException {
+    try (PriceHistoryStore s = PriceHistoryStore.open(dir, 64L << 20)) {
+      return s.liveRows();
+    }
+  }
+
+  @Benchmark
+  public List<PriceHistoryStore.Point> range() {
+    return store.range(brands[ThreadLocalRandom.current().nextInt(brands.length)], Integer.MIN_VALUE, Integer.MAX_VALUE);
+  }
+}
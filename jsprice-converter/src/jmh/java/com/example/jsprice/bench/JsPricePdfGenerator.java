@@ -0,0 +1,181 @@
+package com.example.jsprice.bench;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * ベンチマーク用の JS Price 風 PDF を合成する。
+ * - A4 横・左右 2 段組（同じ高さの左右の行が 1 行に連結され、1 行複数銘柄になる）
+ * - 各ページ上部に見出し（償還日 表面利率 債券標準価格 / 銘柄名 （年・月・日） （％） （円））
+ * - 銘柄名は全角数字・全角スペース入り（第１２回　利付国債（１０年） / 分離利息国債（…償還） など）
+ * - 分離利息国債は表面利率が空欄
+ * 行数は任意（数千行でもページを増やすだけ）。乱数の種は固定なので、同じ行数なら同じ PDF になる。
+ *
+ * 日本語フォント:
+ * - システムプロパティ jsprice.bench.font に TTF/OTF を指定すればそれを埋め込む
+ * - 未指定なら jsprice.bench.fontSource の PDF（既定: pdf-host のサンプル）に埋め込まれたフォントを借りる
+ *   （サブセットだが、ここで使う文字はすべて含まれている。ただしカンマは無いので価格は 1,000 未満にしている）
+ */
+public final class JsPricePdfGenerator {
+
+  /** 生成に使う文字（借りるフォントがこれをすべて描けるか確認する） */
+  private static final String PROBE = "第回　利付国債（）年物価連動分離利息クライメート・トランジション月日償還"
+      + "表面利率債券標準価格銘柄名・％円０１２３４５６７８９0123456789/. ";
+
+  private static final String DEFAULT_FONT_SOURCE = "../pdf-host/src/main/resources/sample/jsprice_01_202506.pdf";
+
+  private static final float FONT_SIZE = 7f;
+  private static final float LEADING = 10f;
+  private static final float TOP = 560f;
+  private static final float BOTTOM = 40f;
+
+  /** 段の左端と、段内の各列の位置 */
+  private static final float[] COLUMN_X = {20f, 430f};
+  private static final float DATE_DX = 200f;
+  private static final float COUPON_DX = 270f;
+  private static final float PRICE_DX = 320f;
+
+  private static final String[] TERMS = {"２", "５", "１０", "２０", "３０", "４０"};
+
+  private JsPricePdfGenerator() {}
+
+  /** 1 ページあたりの行数（左右 2 段の合計） */
+  public static int rowsPerPage() {
+    return 2 * (int) ((TOP - 3 * LEADING - BOTTOM) / LEADING);
+  }
+
+  /** rows 行分の銘柄を並べた PDF */
+  public static byte[] generate(int rows) throws IOException {
+    String fontFile = System.getProperty("jsprice.bench.font");
+    if (fontFile != null && !fontFile.isBlank()) {
+      try (PDDocument doc = new PDDocument()) {
+        return render(doc, PDType0Font.load(doc, new File(fontFile)), rows);
+      }
+    }
+    File source = new File(System.getProperty("jsprice.bench.fontSource", DEFAULT_FONT_SOURCE));
+    // 借りたフォントは元の文書の COS オブジェクトなので、保存し終わるまで元の文書を開いておく
+    try (PDDocument fontDoc = PDDocument.load(source); PDDocument doc = new PDDocument()) {
+      return render(doc, borrowFont(fontDoc), rows);
+    }
+  }
+
+  private static PDFont borrowFont(PDDocument fontDoc) throws IOException {
+    for (PDPage page : fontDoc.getPages()) {
+      PDResources res = page.getResources();
+      for (COSName name : res.getFontNames()) {
+        PDFont font = res.getFont(name);
+        if (canEncode(font)) return font;
+      }
+    }
+    throw new IllegalStateException("No embedded font can render the generated text. Set -Djsprice.bench.font=<CJK TTF>.");
+  }
+
+  private static boolean canEncode(PDFont font) {
+    try {
+      font.encode(PROBE);
+      return true;
+    } catch (IOException | IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static byte[] render(PDDocument doc, PDFont jp, int rows) throws IOException {
+    Random random = new Random(20250630L);
+    int perColumn = rowsPerPage() / 2;
+    int written = 0;
+    int pageNo = 0;
+    int totalPages = (rows + rowsPerPage() - 1) / rowsPerPage();
+
+    while (written < rows) {
+      pageNo++;
+      PDPage page = new PDPage(new PDRectangle(PDRectangle.A4.getHeight(), PDRectangle.A4.getWidth()));
+      doc.addPage(page);
+      try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+        text(cs, PDType1Font.HELVETICA_BOLD, 12, 20, TOP + 20, "JS Price");
+
+        for (float x0 : COLUMN_X) {
+          float y = TOP;
+          text(cs, jp, FONT_SIZE, x0 + DATE_DX, y, "償還日");
+          text(cs, jp, FONT_SIZE, x0 + COUPON_DX, y, "表面利率");
+          text(cs, jp, FONT_SIZE, x0 + PRICE_DX, y, "債券標準価格");
+          y -= LEADING;
+          text(cs, jp, FONT_SIZE, x0, y, "銘柄名");
+          text(cs, jp, FONT_SIZE, x0 + DATE_DX, y, "（年・月・日）");
+          text(cs, jp, FONT_SIZE, x0 + COUPON_DX, y, "（％）");
+          text(cs, jp, FONT_SIZE, x0 + PRICE_DX, y, "（円）");
+          y -= 2 * LEADING;
+
+          for (int r = 0; r < perColumn && written < rows; r++, written++) {
+            row(cs, jp, x0, y, written, random);
+            y -= LEADING;
+          }
+        }
+
+        text(cs, PDType1Font.HELVETICA, 7, 700, BOTTOM - 20, "[ " + pageNo + " / " + totalPages + " ]");
+      }
+    }
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    doc.save(bos);
+    return bos.toByteArray();
+  }
+
+  private static void row(PDPageContentStream cs, PDFont jp, float x0, float y, int n, Random random) throws IOException {
+    int year = 2026 + random.nextInt(40);
+    int month = 1 + random.nextInt(12);
+    int day = 1 + random.nextInt(28);
+    String price = String.format("%d.%04d", 60 + random.nextInt(50), random.nextInt(10000));
+
+    String brand;
+    String coupon = null;
+    switch (n % 10) {
+      case 7 -> brand = "分離利息国債（" + fullWidth(year) + "年　" + fullWidth(month) + "月" + fullWidth(day) + "日償還）";
+      case 8 -> {
+        brand = "第" + fullWidth(1 + n % 30) + "回　物価連動国債（１０年）";
+        coupon = "0.1";
+      }
+      case 9 -> {
+        brand = "第" + fullWidth(1 + n % 5) + "回　クライメート・トランジション利付国債（" + (n % 2 == 0 ? "５" : "１０") + "年）";
+        coupon = String.format("%d.%d", random.nextInt(2), random.nextInt(10));
+      }
+      default -> {
+        brand = "第" + fullWidth(1 + n / 7) + "回　利付国債（" + TERMS[n % TERMS.length] + "年）";
+        coupon = String.format("%d.%d", random.nextInt(3), random.nextInt(10));
+      }
+    }
+
+    text(cs, jp, FONT_SIZE, x0, y, brand);
+    text(cs, jp, FONT_SIZE, x0 + DATE_DX, y, year + "/" + month + "/" + day);
+    if (coupon != null) text(cs, jp, FONT_SIZE, x0 + COUPON_DX, y, coupon);
+    text(cs, jp, FONT_SIZE, x0 + PRICE_DX, y, price);
+  }
+
+  private static void text(PDPageContentStream cs, PDFont font, float size, float x, float y, String s) throws IOException {
+    cs.beginText();
+    cs.setFont(font, size);
+    cs.newLineAtOffset(x, y);
+    cs.showText(s);
+    cs.endText();
+  }
+
+  private static String fullWidth(int v) {
+    String s = Integer.toString(v);
+    StringBuilder sb = new StringBuilder(s.length());
+    for (int i = 0; i < s.length(); i++) {
+      sb.append((char) ('０' + (s.charAt(i) - '0')));
+    }
+    return sb.toString();
+  }
+}
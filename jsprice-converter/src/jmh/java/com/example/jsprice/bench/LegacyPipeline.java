@@ -0,0 +1,108 @@
+package com.example.jsprice.bench;
+
+import com.opencsv.CSVWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 置き換え前の PdfToCsvProcessor（正規表現チェーン + opencsv）をそのまま写したもの。
+ * 現行の RowScanner / BondCsvWriter と比べるための基準としてだけ使う。
+ */
+final class LegacyPipeline {
+
+  private static final Pattern HEADER_CHUNK = Pattern.compile(
+      "償還日\\s+表面利率\\s+債券標準価格\\s+銘柄名\\s+（年・月・日）\\s+（％）\\s+（円）\\s*"
+  );
+
+  private static final Pattern BRAND_CUE = Pattern.compile(
+      "(?=第[０-９0-9]+回\\s+利付国債（)|" +
+      "(?=分離利息国債（)|" +
+      "(?=第[０-９0-9]+回\\s+物価連動国債（)|" +
+      "(?=第[０-９0-9]+回\\s+クライメート・トランジション利付国債（)"
+  );
+
+  private static final Pattern ROW = Pattern.compile(
+      "^(?<brand>.+?)\\s+" +
+      "(?<date>\\d{4}\\s*/\\s*\\d{1,2}\\s*/\\s*\\d{1,2})" +
+      "(?:\\s+(?<coupon>[\\d.,]+))?\\s+" +
+      "(?<price>[\\d.,]+)\\s*$",
+      Pattern.MULTILINE
+  );
+
+  private LegacyPipeline() {}
+
+  static String cleanup(String text) {
+    String x = text;
+    x = HEADER_CHUNK.matcher(x).replaceAll("");
+    x = x.replace('　', ' ').replace('\t', ' ');
+    x = x.replaceAll(" +", " ");
+    x = BRAND_CUE.matcher(x).replaceAll("\n$0");
+    x = x.replaceAll("\\n{2,}", "\n").trim();
+    return x;
+  }
+
+  /** 正規表現で行を拾うだけ（正規化しない） */
+  static List<String[]> matchRaw(String text) {
+    List<String[]> out = new ArrayList<>();
+    Matcher m = ROW.matcher(text);
+    while (m.find()) {
+      out.add(new String[]{m.group("brand"), m.group("date"), m.group("coupon"), m.group("price")});
+    }
+    return out;
+  }
+
+  /** matchRaw の結果に正規化を掛ける（ヘッダ行付き） */
+  static List<String[]> normalize(List<String[]> raw) {
+    List<String[]> out = new ArrayList<>(raw.size() + 1);
+    out.add(new String[]{"brand", "maturity_date", "coupon_pct", "price_jpy"});
+    for (String[] r : raw) {
+      String brand = normalizeBrand(r[0]);
+      if (brand.contains("償還日") && brand.contains("表面利率")) {
+        brand = brand.replaceFirst(".*?（円）\\s*", "");
+      }
+      out.add(new String[]{brand, normalizeDate(r[1]), normalizeDecimalOrEmpty(r[2]), normalizeDecimalOrEmpty(r[3])});
+    }
+    return out;
+  }
+
+  static List<String[]> extractRows(String text) {
+    return normalize(matchRaw(text));
+  }
+
+  static String toCsvString(List<String[]> rows) throws IOException {
+    StringWriter sw = new StringWriter();
+    try (CSVWriter writer = new CSVWriter(
+        sw,
+        CSVWriter.DEFAULT_SEPARATOR,
+        CSVWriter.DEFAULT_QUOTE_CHARACTER,
+        CSVWriter.DEFAULT_ESCAPE_CHARACTER,
+        "\n")) {
+      writer.writeAll(rows, false);
+    }
+    return sw.toString();
+  }
+
+  private static String normalizeBrand(String s) {
+    if (s == null) return "";
+    return s.trim().replaceAll("\\s+", " ");
+  }
+
+  private static String normalizeDate(String yyyyMd) {
+    String[] p = yyyyMd.replaceAll("\\s+", "").split("/");
+    return String.format("%04d-%02d-%02d",
+        Integer.parseInt(p[0]),
+        Integer.parseInt(p[1]),
+        Integer.parseInt(p[2]));
+  }
+
+  private static String normalizeDecimalOrEmpty(String s) {
+    if (s == null || s.isBlank()) return "";
+    return new BigDecimal(s.replace(",", "")).stripTrailingZeros().toPlainString();
+  }
+}
@@ -0,0 +1,124 @@
+package com.example.jsprice.bench;
+
+import com.example.jsprice.processor.BondColumnarReader;
+import com.example.jsprice.processor.BondCsvWriter;
+import com.example.jsprice.processor.BondRow;
+import com.example.jsprice.processor.ColumnarExportProcessor;
+import com.example.jsprice.processor.RowScanner;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下流が 1 か月分の価格を読み込む時間（CSV の解析と .jspc の mmap の比較）。
+ * - csv      : 一般的な読み込み（行分割 → LocalDate.parse / BigDecimal）
+ * - columnar : BondColumnarReader.open で mmap し、価格列の合計と銘柄数を数える
+ * どちらも「全行の価格を合計し、異なる銘柄を数える」までを 1 op とする。ファイルサイズは Setup で出力する。
+ * 例: mvn -Pjmh -DskipTests verify -Djmh.args="LoadBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LoadBenchmark {
+
+  @Param({"1000", "5000"})
+  public int rows;
+
+  private Path dir;
+  private Path csv;
+  private Path jspc;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    String text;
+    try (PDDocument doc = PDDocument.load(JsPricePdfGenerator.generate(rows))) {
+      PDFTextStripper stripper = new PDFTextStripper();
+      stripper.setSortByPosition(true);
+      text = stripper.getText(doc);
+    }
+    dir = Files.createTempDirectory("jsprice-load");
+    csv = dir.resolve("jsprice_20250630.csv");
+    try (BondCsvWriter w = new BondCsvWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+      w.writeHeader();
+      new RowScanner().scan(text, (start, end, row) -> {
+        w.accept(row);
+        return true;
+      });
+    }
+    jspc = ColumnarExportProcessor.export(csv);
+    System.out.printf("  [rows=%d] csv=%d bytes, jspc=%d bytes%n", rows, Files.size(csv), Files.size(jspc));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(csv);
+    Files.deleteIfExists(jspc);
+    Files.deleteIfExists(dir);
+  }
+
+  @Benchmark
+  public void csv(Blackhole bh) throws IOException {
+    BigDecimal total = BigDecimal.ZERO;
+    Set<String> brands = new HashSet<>();
+    try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+      in.readLine();
+      for (String line = in.readLine(); line != null; line = in.readLine()) {
+        String[] f = line.split(",", -1);
+        brands.add(f[0]);
+        bh.consume(LocalDate.parse(f[1]));
+        if (!f[2].isEmpty()) bh.consume(new BigDecimal(f[2]));
+        total = total.add(new BigDecimal(f[3]));
+      }
+    }
+    bh.consume(total);
+    bh.consume(brands.size());
+  }
+
+  @Benchmark
+  public void columnar(Blackhole bh) throws IOException {
+    BondColumnarReader r = BondColumnarReader.open(jspc);
+    long total = 0;
+    boolean[] seen = new boolean[r.dictionarySize()];
+    int brands = 0;
+    for (int i = 0; i < r.rows(); i++) {
+      int id = r.brandId(i);
+      if (!seen[id]) {
+        seen[id] = true;
+        brands++;
+      }
+      bh.consume(r.maturity(i));
+      long coupon = r.coupon(i);
+      if (coupon != BondRow.NO_VALUE) bh.consume(coupon);
+      total += r.price(i);
+    }
+    bh.consume(total);
+    bh.consume(brands);
+  }
+}
@@ -0,0 +1,140 @@
+package com.example.jsprice.bench;
+
+import com.example.jsprice.PriceIndex;
+import com.example.jsprice.PriceIndexController;
+import com.example.jsprice.PriceIndexService;
+import com.example.jsprice.processor.BondCsvWriter;
+import com.example.jsprice.processor.RowScanner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /converter/prices の応答時間（JSON 化を除く）を、読み手 7 スレッド + 差し替え 1 スレッドで同時に測る。
+ * SampleTime なので p0.99 / p0.999 がそのまま出る。
+ * - brand  : 銘柄名の完全一致（1 件）
+ * - range  : 償還日 1 年分
+ * - series : 種別 + 償還日 3 年分
+ * - swap   : 2 つの CSV を交互に読み込んで差し替え、200ms 休む（変換ジョブの完了に相当。読み手の遅延への影響を見る。
+ *            本番の差し替えは実行ごとに 1 回なので、これでもかなり多め。swap 自体の時間は休みを含む）
+ * 論理 CPU がスレッド数より少ないと、p0.999 以上は OS のタイムスライス待ちが支配的になる。
+ * 例: mvn -Pjmh -DskipTests verify -Djmh.args="PriceIndexBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PriceIndexBenchmark {
+
+  @Param({"5000"})
+  public int rows;
+
+  private Path dir;
+  private Path[] csv;
+  private PriceIndexService service;
+  private PriceIndexController controller;
+  private String[] brands;
+  private int minDay;
+  private int maxDay;
+  private int swaps;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("jsprice-index");
+    csv = new Path[]{write("jsprice_20250530.csv", rows), write("jsprice_20250630.csv", rows)};
+    service = new PriceIndexService(new SimpleMeterRegistry(), dir.toString(), csv[1].getFileName().toString());
+    controller = new PriceIndexController(service);
+    PriceIndex index = service.current();
+    brands = new String[index.size()];
+    for (int i = 0; i < brands.length; i++) brands[i] = index.brand(i);
+    minDay = index.maturity(0);
+    maxDay = index.maturity(index.size() - 1);
+  }
+
+  private Path write(String name, int n) throws IOException {
+    String text;
+    try (PDDocument doc = PDDocument.load(JsPricePdfGenerator.generate(n))) {
+      PDFTextStripper stripper = new PDFTextStripper();
+      stripper.setSortByPosition(true);
+      text = stripper.getText(doc);
+    }
+    Path p = dir.resolve(name);
+    try (BondCsvWriter w = new BondCsvWriter(Files.newBufferedWriter(p, StandardCharsets.UTF_8))) {
+      w.writeHeader();
+      new RowScanner().scan(text, (start, end, row) -> {
+        w.accept(row);
+        return true;
+      });
+    }
+    return p;
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (var files = Files.list(dir)) {
+      for (Path p : files.toList()) Files.deleteIfExists(p);
+    }
+    Files.deleteIfExists(dir);
+  }
+
+  private LocalDate randomDay() {
+    return LocalDate.ofEpochDay(ThreadLocalRandom.current().nextInt(minDay, maxDay + 1));
+  }
+
+  @Benchmark
+  @Group("query")
+  @GroupThreads(3)
+  public PriceIndexController.Prices brand() {
+    return controller.prices(brands[ThreadLocalRandom.current().nextInt(brands.length)], null, null, null, 1000);
+  }
+
+  @Benchmark
+  @Group("query")
+  @GroupThreads(2)
+  public PriceIndexController.Prices range() {
+    LocalDate from = randomDay();
+    return controller.prices(null, null, from, from.plusYears(1), 1000);
+  }
+
+  @Benchmark
+  @Group("query")
+  @GroupThreads(2)
+  public PriceIndexController.Prices series() {
+    LocalDate from = randomDay();
+    return controller.prices(null, "利付国債", from, from.plusYears(3), 1000);
+  }
+
+  @Benchmark
+  @Group("query")
+  @GroupThreads(1)
+  public PriceIndex swap() throws IOException, InterruptedException {
+    PriceIndex index = service.load(csv[swaps++ & 1]);
+    Thread.sleep(200);
+    return index;
+  }
+}
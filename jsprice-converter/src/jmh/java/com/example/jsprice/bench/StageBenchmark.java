@@ -0,0 +1,139 @@
+package com.example.jsprice.bench;
+
+import com.example.jsprice.processor.BondCsvWriter;
+import com.example.jsprice.processor.BondRow;
+import com.example.jsprice.processor.PositionRowBuilder;
+import com.example.jsprice.processor.RowScanner;
+import com.example.jsprice.processor.TextPositionRowExtractor;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF→CSV の各段を単独で測る。入力は段ごとに前段の結果を Setup で作っておく。
+ * - extractText      : PDF 読み込み + PDFTextStripper（位置順）
+ * - extractPositions : PDF 読み込み + TextPositionRowExtractor → PositionRowBuilder（position エンジン）
+ * - scanRows         : RowScanner（旧 cleanup + extractRows + 正規化 に相当）
+ * - writeCsv         : BondCsvWriter（旧 toCsvString に相当）
+ * - legacy*          : 置き換え前の実装（{@link LegacyPipeline}）。比較の基準
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StageBenchmark {
+
+  @Param({"1000", "5000"})
+  public int rows;
+
+  private byte[] pdf;
+  private String text;
+  private List<BondRow> bondRows;
+
+  private String legacyCleaned;
+  private List<String[]> legacyRaw;
+  private List<String[]> legacyRows;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    pdf = JsPricePdfGenerator.generate(rows);
+    text = extractText();
+
+    bondRows = new ArrayList<>(rows);
+    RowScanner scanner = new RowScanner();
+    scanner.scan(text, (start, end, row) -> bondRows.add(row));
+
+    legacyCleaned = LegacyPipeline.cleanup(text);
+    legacyRaw = LegacyPipeline.matchRaw(legacyCleaned);
+    legacyRows = LegacyPipeline.normalize(legacyRaw);
+
+    // 生成した行がすべて拾えていなければ測る意味がない
+    if (bondRows.size() != rows || legacyRows.size() != rows + 1) {
+      throw new IllegalStateException("Generated " + rows + " rows but extracted "
+          + bondRows.size() + " (legacy " + (legacyRows.size() - 1) + ")");
+    }
+  }
+
+  @Benchmark
+  public String extractText() throws IOException {
+    try (PDDocument doc = PDDocument.load(pdf)) {
+      PDFTextStripper stripper = new PDFTextStripper();
+      stripper.setSortByPosition(true);
+      return stripper.getText(doc);
+    }
+  }
+
+  @Benchmark
+  public void extractPositions(Blackhole bh) throws IOException {
+    try (PDDocument doc = PDDocument.load(pdf)) {
+      new TextPositionRowExtractor(new PositionRowBuilder(bh::consume)).writeText(doc, Writer.nullWriter());
+    }
+  }
+
+  @Benchmark
+  public int scanRows(Blackhole bh) {
+    return new RowScanner().scan(text, (start, end, row) -> {
+      bh.consume(row);
+      return true;
+    });
+  }
+
+  @Benchmark
+  public String writeCsv() throws IOException {
+    StringWriter sw = new StringWriter();
+    try (BondCsvWriter csv = new BondCsvWriter(sw)) {
+      csv.writeHeader();
+      for (BondRow row : bondRows) {
+        csv.write(row);
+      }
+    }
+    return sw.toString();
+  }
+
+  @Benchmark
+  public String legacyCleanup() {
+    return LegacyPipeline.cleanup(text);
+  }
+
+  @Benchmark
+  public List<String[]> legacyExtractRows() {
+    return LegacyPipeline.extractRows(legacyCleaned);
+  }
+
+  @Benchmark
+  public List<String[]> legacyNormalize() {
+    return LegacyPipeline.normalize(legacyRaw);
+  }
+
+  @Benchmark
+  public String legacyToCsvString() throws IOException {
+    return LegacyPipeline.toCsvString(legacyRows);
+  }
+
+  /** 置き換え前の end-to-end（PDF → CSV 文字列） */
+  @Benchmark
+  public String legacyEndToEnd() throws IOException {
+    return LegacyPipeline.toCsvString(LegacyPipeline.extractRows(LegacyPipeline.cleanup(extractText())));
+  }
+}
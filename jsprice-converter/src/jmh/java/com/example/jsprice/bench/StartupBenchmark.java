@@ -0,0 +1,144 @@
+package com.example.jsprice.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 起動時間（JVM の起動から）の比較。1 op = サービスを 1 回コールドスタートする。
+ * - mode=jar       : いまの fat jar（java -jar target/jsprice-converter-*.jar）
+ * - mode=extracted : 展開した jar（target/fast-start。AOT なし・CDS なし）
+ * - mode=aot       : 展開した jar + -Dspring.aot.enabled=true
+ * - mode=aot_cds   : さらに -XX:SharedArchiveFile=application.jsa
+ * - until=refresh  : コンテキストの refresh まで（-Dspring.context.exit=onRefresh で終わるまで。Tomcat・Camel のルートは起動しない）
+ * - until=ready    : /actuator/health が応答するまで（ルート起動・Tomcat の listen 込み。応答したらプロセスを止める）
+ * jar 以外は fast-start プロファイルの出力が要る。外には繋がない（トークン・JWK の URL は閉じたポート、出力は target の下）。
+ * 例: mvn -Pfast-start,jmh -DskipTests verify -Djmh.args="StartupBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class StartupBenchmark {
+
+  private static final String JAR = "jsprice-converter-0.0.1-SNAPSHOT.jar";
+
+  @Param({"jar", "extracted", "aot", "aot_cds"})
+  public String mode;
+
+  @Param({"refresh", "ready"})
+  public String until;
+
+  private Path workDir;
+  private Path outDir;
+  private List<String> command;
+
+  @Setup
+  public void setUp() throws IOException {
+    Path target = Path.of("target").toAbsolutePath();
+    Path fastStart = target.resolve("fast-start");
+    workDir = mode.equals("jar") ? target : fastStart;
+    if (!Files.isRegularFile(workDir.resolve(JAR))
+        || (mode.equals("aot_cds") && !Files.isRegularFile(fastStart.resolve("application.jsa")))) {
+      throw new IllegalStateException("Build with -Pfast-start first (missing " + workDir.resolve(JAR) + ")");
+    }
+    outDir = Files.createTempDirectory(target, "startup-bench-");
+
+    command = new ArrayList<>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    if (mode.equals("aot_cds")) command.add("-XX:SharedArchiveFile=application.jsa");
+    if (mode.startsWith("aot")) command.add("-Dspring.aot.enabled=true");
+    if (until.equals("refresh")) command.add("-Dspring.context.exit=onRefresh");
+    command.add("-jar");
+    command.add(JAR);
+    command.add("--logging.level.root=WARN");
+    command.add("--app.debug.everyMinute=false");
+    command.add("--app.output.dir=" + outDir.resolve("output"));
+    command.add("--app.history.dir=" + outDir.resolve("history"));
+    command.add("--app.keycloak.tokenUrl=http://localhost:9/token");
+    command.add("--app.keycloak.clientId=bench");
+    command.add("--app.keycloak.clientSecret=bench");
+    command.add("--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=http://localhost:9/certs");
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (var files = Files.walk(outDir)) {
+      files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public int start() throws Exception {
+    List<String> cmd = new ArrayList<>(command);
+    int port = until.equals("ready") ? freePort() : 0;
+    if (port != 0) cmd.add("--server.port=" + port);
+    Process p = new ProcessBuilder(cmd)
+        .directory(workDir.toFile())
+        .redirectErrorStream(true)
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .start();
+    try {
+      if (port == 0) {
+        if (!p.waitFor(2, TimeUnit.MINUTES)) throw new IllegalStateException("Startup did not finish");
+        if (p.exitValue() != 0) throw new IllegalStateException("Startup failed: exit " + p.exitValue());
+        return p.exitValue();
+      }
+      URI health = URI.create("http://localhost:" + port + "/actuator/health");
+      long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+      while (System.nanoTime() < deadline) {
+        if (!p.isAlive()) throw new IllegalStateException("Startup failed: exit " + p.exitValue());
+        int status = probe(health);
+        if (status > 0) return status;
+        Thread.sleep(5);
+      }
+      throw new IllegalStateException("Startup did not finish");
+    } finally {
+      p.destroy();
+      if (!p.waitFor(30, TimeUnit.SECONDS)) p.destroyForcibly().waitFor();
+    }
+  }
+
+  /** 応答したら HTTP ステータス（DOWN でも起動はしている）、まだ listen していなければ 0 */
+  private static int probe(URI uri) {
+    try {
+      HttpURLConnection c = (HttpURLConnection) uri.toURL().openConnection();
+      c.setConnectTimeout(100);
+      c.setReadTimeout(1000);
+      try {
+        return c.getResponseCode();
+      } finally {
+        c.disconnect();
+      }
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket s = new ServerSocket(0)) {
+      return s.getLocalPort();
+    }
+  }
+}
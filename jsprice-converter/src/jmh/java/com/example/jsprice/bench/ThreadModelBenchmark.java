@@ -0,0 +1,172 @@
+package com.example.jsprice.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 待ちが多い処理（トークン取得・PDF ダウンロード・ファイル書き込み）を同時に大量に流したときの、
+ * 固定サイズのプラットフォームスレッドプールと仮想スレッドの比較（スレッドプールを手で決めなくてよいかの確認）。
+ * 1 op = concurrency 本の「トークン取得（短い待ち）→ PDF ダウンロード（待ち + 本文）→ 一時ファイルへ書き出し」。
+ * - threads=platform : Tomcat 既定と同じ 200 本の固定プール
+ * - threads=virtual  : タスクごとに仮想スレッド（Java 21 以上。17 ではこのケースは失敗として報告される）
+ * 相手（Keycloak・pdf-host 役）はローカルのスタブ HTTP サーバ。
+ * メモリは -prof gc（割り当て量）と、イテレーションごとに出す peakThreads / heapPeak / nonHeapPeak で見る。
+ * 例: mvn -Pjmh -DskipTests verify -Djmh.args="ThreadModelBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class ThreadModelBenchmark {
+
+  private static final int PLATFORM_POOL = 200;
+  private static final int TOKEN_LATENCY_MS = 5;
+  private static final int DOWNLOAD_LATENCY_MS = 50;
+  private static final int PDF_BYTES = 256 * 1024;
+
+  @Param({"platform", "virtual"})
+  public String threads;
+
+  @Param({"100", "1000"})
+  public int concurrency;
+
+  private HttpServer stub;
+  private ExecutorService executor;
+  private URL tokenUrl;
+  private URL pdfUrl;
+  private Path tempDir;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    byte[] pdf = new byte[PDF_BYTES];
+    stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+    stub.setExecutor(Executors.newCachedThreadPool());
+    stub.createContext("/token", ex -> respond(ex, TOKEN_LATENCY_MS,
+        "{\"access_token\":\"t\",\"expires_in\":300}".getBytes()));
+    stub.createContext("/pdf", ex -> respond(ex, DOWNLOAD_LATENCY_MS, pdf));
+    stub.start();
+    String base = "http://127.0.0.1:" + stub.getAddress().getPort();
+    tokenUrl = URI.create(base + "/token").toURL();
+    pdfUrl = URI.create(base + "/pdf").toURL();
+    tempDir = Files.createTempDirectory("jsprice-threads");
+
+    executor = switch (threads) {
+      case "platform" -> Executors.newFixedThreadPool(PLATFORM_POOL);
+      case "virtual" -> newVirtualThreadPerTaskExecutor();
+      default -> throw new IllegalArgumentException(threads);
+    };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    executor.shutdownNow();
+    stub.stop(0);
+    try (var files = Files.list(tempDir)) {
+      for (Path p : files.toList()) Files.deleteIfExists(p);
+    }
+    Files.deleteIfExists(tempDir);
+  }
+
+  @Setup(Level.Iteration)
+  public void resetPeaks() {
+    ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+  }
+
+  /** イテレーションごとのスレッド数・メモリのピーク（JMH の出力に並ぶ） */
+  @TearDown(Level.Iteration)
+  public void reportPeaks() {
+    long heapPeak = 0;
+    long nonHeapPeak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      long used = pool.getPeakUsage().getUsed();
+      if (pool.getType() == MemoryType.HEAP) heapPeak += used;
+      else nonHeapPeak += used;
+    }
+    System.out.printf("  [%s x%d] peakThreads=%d heapPeak=%dMB nonHeapPeak=%dMB%n",
+        threads, concurrency, ManagementFactory.getThreadMXBean().getPeakThreadCount(),
+        heapPeak >> 20, nonHeapPeak >> 20);
+  }
+
+  @Benchmark
+  public long concurrentRuns() throws Exception {
+    List<Future<Long>> runs = new ArrayList<>(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      int n = i;
+      runs.add(executor.submit(() -> run(n)));
+    }
+    long bytes = 0;
+    for (Future<Long> f : runs) bytes += f.get();
+    return bytes;
+  }
+
+  private long run(int n) throws IOException {
+    get(tokenUrl, null);
+    Path file = tempDir.resolve("run-" + n + ".pdf");
+    return get(pdfUrl, file);
+  }
+
+  private static long get(URL url, Path target) throws IOException {
+    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+    try (InputStream in = conn.getInputStream()) {
+      if (target == null) return in.transferTo(OutputStream.nullOutputStream());
+      return Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static void respond(HttpExchange ex, int latencyMs, byte[] body) throws IOException {
+    try {
+      Thread.sleep(latencyMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    ex.sendResponseHeaders(200, body.length);
+    try (OutputStream out = ex.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  /** Java 21 の Executors.newVirtualThreadPerTaskExecutor()（17 でもビルドできるようリフレクションで呼ぶ） */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException("Virtual threads need Java 21+ (running " + Runtime.version() + ")", e);
+    }
+  }
+}
@@ -0,0 +1,394 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondCsvWriter;
+import com.example.jsprice.processor.ColumnarExportProcessor;
+import com.example.jsprice.processor.ExtractStats;
+import com.example.jsprice.processor.PdfToCsvProcessor;
+import com.example.jsprice.processor.RowStage;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.support.DefaultExchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 過去分の JS Price PDF（jsprice_01_YYYYMM.pdf など）をまとめて変換するバックフィル。
+ * - 入力: URL（pdf-host などからサービス用トークン付きで取得）、ローカルのファイル・ディレクトリ（直下の *.pdf）・glob
+ * - 同時に変換するのは parallelism 本まで。さらに PDF の大きさから見込んだヒープ量の合計が memoryBudgetMb を超えないよう待たせる
+ *   （1 本で予算を超える PDF は STREAMING 抽出に切り替え、ページ数によらない分だけ確保する）
+ * - 出力は 1 ファイルにつき 1 CSV（基準日が分かれば jsprice_yyyyMMdd.csv）。combined を指定すると as_of 列付きの結合 CSV も書く
+ *   app.output.columnar=true なら各 CSV の隣に列指向バイナリ（.jspc）も置く
+ * - 1 ファイルの失敗ではバッチを止めず、ファイルごとの所要時間・行数・エラーを {@link Report} にまとめる
+ * 基準日（as_of）はファイル名の YYYYMM（月末日）または YYYYMMDD から取る。
+ */
+@Component
+public class Backfill {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Backfill.class);
+
+  /** URL の PDF を 1 つダウンロードするルート（Routes） */
+  public static final String DOWNLOAD = "direct:backfillDownload";
+  public static final String PROP_URL = "backfillUrl";
+  public static final String PROP_TARGET = "backfillTarget";
+
+  public static final String COMBINED_HEADER = "as_of," + BondCsvWriter.HEADER;
+
+  /** WHOLE 抽出で PDF 1 バイトあたりに見込むヒープ（目安。テキスト・グリフ座標・PDFBox のオブジェクト） */
+  static final int HEAP_PER_PDF_BYTE = 16;
+
+  /** STREAMING 抽出で見込むヒープ（MB。ページ窓 1 つ分） */
+  static final int STREAMING_MB = 32;
+
+  private static final Pattern DATE_IN_NAME = Pattern.compile("(?<!\\d)(\\d{4})(\\d{2})(\\d{2})?(?!\\d)");
+  private static final DateTimeFormatter BASIC = DateTimeFormatter.BASIC_ISO_DATE;
+
+  /** URL の PDF を target に保存する */
+  @FunctionalInterface
+  interface Downloader {
+    void download(String url, Path target) throws Exception;
+  }
+
+  /** 1 ファイル分の結果。失敗時は error が入り、output は null */
+  public record FileResult(String source, LocalDate asOf, String output, long rows, long bytes,
+                           long downloadMs, long waitMs, long convertMs, String error) {
+    public boolean ok() {
+      return error == null;
+    }
+  }
+
+  public record Report(List<FileResult> files, String combined, long elapsedMs) {
+    public long failed() {
+      return files.stream().filter(f -> !f.ok()).count();
+    }
+  }
+
+  record Source(String location, boolean remote, LocalDate asOf, String output) {}
+
+  private final CamelContext camelContext;
+  private final Downloader downloader;
+  private final Path outputDir;
+  private final Path tempDir;
+  private final int parallelism;
+  private final int memoryBudgetMb;
+  private final boolean columnar;
+  private final Semaphore memory;
+  private final PdfToCsvProcessor whole;
+  private final PdfToCsvProcessor streaming;
+
+  @Autowired
+  public Backfill(CamelContext camelContext, ProducerTemplate producerTemplate,
+                  @Value("${app.backfill.outputDir:${app.output.dir:data/output}}") String outputDir,
+                  @Value("${app.download.tempDir:}") String tempDir,
+                  @Value("${app.extract.engine:text}") String engine,
+                  @Value("${app.extract.windowPages:4}") int windowPages,
+                  @Value("${app.extract.dedup:false}") boolean dedup,
+                  @Value("${app.extract.order:extracted}") String order,
+                  @Value("${app.backfill.parallelism:2}") int parallelism,
+                  @Value("${app.backfill.memoryBudgetMb:512}") int memoryBudgetMb,
+                  @Value("${app.output.columnar:false}") boolean columnar) {
+    this(camelContext, (url, target) -> {
+          Exchange result = producerTemplate.send(DOWNLOAD, e -> {
+            e.setProperty(PROP_URL, url);
+            e.setProperty(PROP_TARGET, target.toString());
+          });
+          Exception failure = result.getException() != null
+              ? result.getException()
+              : result.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class);
+          if (failure != null) throw failure;
+        },
+        Path.of(outputDir), tempDir.isBlank() ? null : Path.of(tempDir),
+        PdfToCsvProcessor.Engine.valueOf(engine.toUpperCase()), windowPages,
+        dedup, RowStage.Order.valueOf(order.toUpperCase()), parallelism, memoryBudgetMb, columnar);
+  }
+
+  Backfill(CamelContext camelContext, Downloader downloader, Path outputDir, Path tempDir,
+           PdfToCsvProcessor.Engine engine, int windowPages, boolean dedup, RowStage.Order order,
+           int parallelism, int memoryBudgetMb, boolean columnar) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be >= 1: " + parallelism);
+    }
+    if (memoryBudgetMb < 1) {
+      throw new IllegalArgumentException("memoryBudgetMb must be >= 1: " + memoryBudgetMb);
+    }
+    this.camelContext = camelContext;
+    this.downloader = downloader;
+    this.outputDir = outputDir;
+    this.tempDir = tempDir;
+    this.parallelism = parallelism;
+    this.memoryBudgetMb = memoryBudgetMb;
+    this.columnar = columnar;
+    this.memory = new Semaphore(memoryBudgetMb, true);
+    // ファイル単位で並列に動かすので、ページ範囲の並列（PARALLEL）は使わない
+    this.whole = new PdfToCsvProcessor().mode(PdfToCsvProcessor.Mode.WHOLE).engine(engine)
+        .dedup(dedup).order(order).toFile(true);
+    this.streaming = new PdfToCsvProcessor().mode(PdfToCsvProcessor.Mode.STREAMING).engine(engine)
+        .windowPages(windowPages).dedup(dedup).order(order).toFile(true);
+  }
+
+  /** specs の PDF をすべて変換する。combinedName が空でなければ as_of 列付きの結合 CSV も書く */
+  public Report run(List<String> specs, String combinedName) throws IOException, InterruptedException {
+    long t0 = System.nanoTime();
+    List<Source> sources = resolve(specs);
+    Files.createDirectories(outputDir);
+    LOG.info("Backfill started: {} file(s), parallelism={}, memoryBudget={}MB", sources.size(), parallelism, memoryBudgetMb);
+
+    List<FileResult> results = new ArrayList<>(sources.size());
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, sources.size())), threads());
+    try {
+      List<Future<FileResult>> futures = new ArrayList<>(sources.size());
+      for (Source s : sources) {
+        futures.add(pool.submit(() -> convert(s)));
+      }
+      for (Future<FileResult> f : futures) {
+        results.add(f.get());
+      }
+    } catch (ExecutionException e) {
+      // convert は例外を FileResult にして返すので、ここに来るのは Error のときだけ
+      throw new IllegalStateException("Backfill worker failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+
+    String combined = combinedName == null || combinedName.isBlank() ? null : writeCombined(results, combinedName);
+    Report report = new Report(results, combined, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+    LOG.info("Backfill finished: {} ok, {} failed, {} ms{}", results.size() - report.failed(), report.failed(),
+        report.elapsedMs(), combined == null ? "" : ", combined -> " + combined);
+    return report;
+  }
+
+  private static ThreadFactory threads() {
+    AtomicInteger seq = new AtomicInteger();
+    return r -> {
+      Thread t = new Thread(r, "jsprice-backfill-" + seq.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+  private FileResult convert(Source s) {
+    long t0 = System.nanoTime();
+    long downloadNanos = 0;
+    long waitNanos = 0;
+    long bytes = 0;
+    Path downloaded = null;
+    try {
+      Path pdf;
+      if (s.remote()) {
+        downloaded = tempDir == null
+            ? Files.createTempFile("jsprice-backfill-", ".pdf")
+            : Files.createTempFile(Files.createDirectories(tempDir), "jsprice-backfill-", ".pdf");
+        downloader.download(s.location(), downloaded);
+        downloadNanos = System.nanoTime() - t0;
+        pdf = downloaded;
+      } else {
+        pdf = Path.of(s.location());
+      }
+      bytes = Files.size(pdf);
+
+      int needMb = heapMb(bytes);
+      boolean stream = needMb > memoryBudgetMb;
+      int permits = stream ? Math.min(STREAMING_MB, memoryBudgetMb) : needMb;
+      long w = System.nanoTime();
+      memory.acquire(permits);
+      waitNanos = System.nanoTime() - w;
+      long c = System.nanoTime();
+      long rows;
+      Path output = outputDir.resolve(s.output());
+      try {
+        Exchange ex = new DefaultExchange(camelContext);
+        ex.getIn().setBody(pdf.toFile());
+        ex.getIn().setHeader(PdfToCsvProcessor.HEADER_OUTPUT_DIR, outputDir.toString());
+        (stream ? streaming : whole).process(ex);
+        // 同じディレクトリの一時ファイルに書き終えているので、rename で置く
+        Path tmp = Path.of(ex.getIn().getHeader(Exchange.FILE_LOCAL_WORK_PATH, String.class));
+        Files.move(tmp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        rows = ex.getProperty(PdfToCsvProcessor.PROP_STATS, ExtractStats.class).rows();
+      } finally {
+        memory.release(permits);
+      }
+      if (columnar) ColumnarExportProcessor.export(output);
+      FileResult r = new FileResult(s.location(), s.asOf(), output.toString(), rows, bytes,
+          millis(downloadNanos), millis(waitNanos), millis(System.nanoTime() - c), null);
+      LOG.info("Backfill {} -> {} ({} rows, {} bytes{}, download {} ms, wait {} ms, convert {} ms)",
+          s.location(), output, rows, bytes, stream ? ", streaming" : "", r.downloadMs(), r.waitMs(), r.convertMs());
+      return r;
+    } catch (Exception e) {
+      if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+      LOG.warn("Backfill {} failed: {}", s.location(), e.toString());
+      return new FileResult(s.location(), s.asOf(), null, 0, bytes,
+          millis(downloadNanos), millis(waitNanos), 0, e.getMessage() == null ? e.toString() : e.getMessage());
+    } finally {
+      if (downloaded != null) {
+        try {
+          Files.deleteIfExists(downloaded);
+        } catch (IOException e) {
+          LOG.warn("Failed to delete temp PDF: {}", downloaded, e);
+        }
+      }
+    }
+  }
+
+  /** WHOLE 抽出で見込むヒープ（MB、切り上げ） */
+  static int heapMb(long pdfBytes) {
+    long mb = (pdfBytes * HEAP_PER_PDF_BYTE + (1 << 20) - 1) >> 20;
+    return (int) Math.max(1, Math.min(mb, Integer.MAX_VALUE));
+  }
+
+  /** 成功したファイルの CSV を基準日順に連結し、先頭に as_of 列を付ける（行は 1 行ずつ流すだけ） */
+  private String writeCombined(List<FileResult> results, String name) throws IOException {
+    Path target = outputDir.resolve(name);
+    Path tmp = Files.createTempFile(outputDir, ".jsprice-", ".csv.tmp");
+    List<FileResult> ok = results.stream()
+        .filter(FileResult::ok)
+        .sorted(Comparator.comparing(FileResult::asOf, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(FileResult::source))
+        .toList();
+    try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+      w.write(COMBINED_HEADER);
+      for (FileResult r : ok) {
+        String asOf = r.asOf() == null ? "" : r.asOf().toString();
+        try (BufferedReader in = Files.newBufferedReader(Path.of(r.output()), StandardCharsets.UTF_8)) {
+          in.readLine(); // ヘッダ
+          for (String line = in.readLine(); line != null; line = in.readLine()) {
+            w.write(asOf);
+            w.write(',');
+            w.write(line);
+            w.write('\n');
+          }
+        }
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return target.toString();
+  }
+
+  /** 入力の指定を PDF の一覧にする（重複は除く。存在しないファイルはそのまま残し、変換時に失敗として報告する） */
+  List<Source> resolve(List<String> specs) throws IOException {
+    Set<String> locations = new LinkedHashSet<>();
+    for (String raw : specs) {
+      String spec = raw.trim();
+      if (spec.isEmpty()) continue;
+      if (isRemote(spec)) {
+        locations.add(spec);
+      } else if (spec.chars().anyMatch(ch -> "*?[{".indexOf(ch) >= 0)) {
+        locations.addAll(glob(spec));
+      } else if (Files.isDirectory(Path.of(spec))) {
+        locations.addAll(glob(Path.of(spec).resolve("*.pdf").toString()));
+      } else {
+        locations.add(spec);
+      }
+    }
+
+    List<Source> sources = new ArrayList<>(locations.size());
+    Set<String> outputs = new HashSet<>();
+    for (String location : locations) {
+      String base = baseName(location);
+      LocalDate asOf = asOf(base);
+      String output = asOf != null ? "jsprice_" + asOf.format(BASIC) + ".csv" : base + ".csv";
+      // 同じ基準日のファイルが複数ある場合は、元のファイル名で分ける
+      if (outputs.contains(output)) output = base + ".csv";
+      for (int i = 2; outputs.contains(output); i++) output = base + "-" + i + ".csv";
+      outputs.add(output);
+      sources.add(new Source(location, isRemote(location), asOf, output));
+    }
+    return sources;
+  }
+
+  /** glob に一致する通常ファイル（名前順） */
+  private static List<String> glob(String pattern) throws IOException {
+    int firstWildcard = 0;
+    while (firstWildcard < pattern.length() && "*?[{".indexOf(pattern.charAt(firstWildcard)) < 0) firstWildcard++;
+    // ワイルドカードより前のディレクトリから辿る（相対パスのまま辿るので、パターンとの照合もそのまま行える）
+    int sep = pattern.lastIndexOf('/', firstWildcard);
+    Path base = sep < 0 ? Path.of("") : Path.of(sep == 0 ? "/" : pattern.substring(0, sep));
+    if (!Files.isDirectory(sep < 0 ? Path.of(".") : base)) return List.of();
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    try (Stream<Path> paths = Files.walk(base)) {
+      return paths.filter(Files::isRegularFile)
+          .filter(matcher::matches)
+          .map(Path::toString)
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static boolean isRemote(String location) {
+    return location.startsWith("http://") || location.startsWith("https://");
+  }
+
+  private static String baseName(String location) {
+    String path = isRemote(location) ? URI.create(location).getPath() : location;
+    String name = path.substring(path.lastIndexOf('/') + 1);
+    return name.toLowerCase().endsWith(".pdf") ? name.substring(0, name.length() - 4) : name;
+  }
+
+  /** ファイル名中の YYYYMMDD、または YYYYMM（その月の末日）。複数あれば最後のもの。無ければ null */
+  static LocalDate asOf(String name) {
+    Matcher m = DATE_IN_NAME.matcher(name);
+    LocalDate found = null;
+    while (m.find()) {
+      try {
+        YearMonth ym = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+        found = m.group(3) != null ? ym.atDay(Integer.parseInt(m.group(3))) : ym.atEndOfMonth();
+      } catch (DateTimeException ignore) {
+        // 日付ではない数字の並び
+      }
+    }
+    return found;
+  }
+
+  /** DOWNLOAD ルートの応答（ストリーム）を {@value #PROP_TARGET} のファイルへ書き出す */
+  public static void saveBody(Exchange exchange) throws IOException {
+    Path target = Path.of(exchange.getProperty(PROP_TARGET, String.class));
+    try (InputStream in = exchange.getIn().getBody(InputStream.class)) {
+      if (in == null) {
+        throw new IllegalArgumentException("No PDF content in response.");
+      }
+      Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+}
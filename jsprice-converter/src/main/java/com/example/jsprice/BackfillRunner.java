@@ -0,0 +1,50 @@
+package com.example.jsprice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * バックフィルモード。app.backfill.sources（カンマ区切りの URL・ファイル・ディレクトリ・glob）が指定されていれば、
+ * 起動完了後に {@link Backfill} で変換し、基準日の分かる結果を価格履歴（{@link PriceHistoryService}）に追記する。
+ * exitWhenDone=true なら終わったところで終了する（失敗が 1 件でもあれば終了コード 1）。
+ * 例: java -jar app.jar --app.backfill.sources='data/backfill/*.pdf' --app.backfill.combined=jsprice_history.csv
+ */
+@Component
+public class BackfillRunner implements ApplicationRunner {
+
+  private final Backfill backfill;
+  private final PriceHistoryService priceHistoryService;
+  private final ConfigurableApplicationContext context;
+  private final String[] sources;
+  private final String combined;
+  private final boolean exitWhenDone;
+
+  public BackfillRunner(Backfill backfill, PriceHistoryService priceHistoryService, ConfigurableApplicationContext context,
+                        @Value("${app.backfill.sources:}") String[] sources,
+                        @Value("${app.backfill.combined:}") String combined,
+                        @Value("${app.backfill.exitWhenDone:true}") boolean exitWhenDone) {
+    this.backfill = backfill;
+    this.priceHistoryService = priceHistoryService;
+    this.context = context;
+    this.sources = sources;
+    this.combined = combined;
+    this.exitWhenDone = exitWhenDone;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    if (sources.length == 0) return;
+    Backfill.Report report = backfill.run(List.of(sources), combined);
+    priceHistoryService.record(report);
+    if (exitWhenDone) {
+      int code = report.failed() == 0 ? 0 : 1;
+      System.exit(SpringApplication.exit(context, () -> code));
+    }
+  }
+}
@@ -0,0 +1,274 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.PdfDownloadProcessor;
+import com.example.jsprice.processor.PdfToCsvProcessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 変換結果（CSV）のディスクキャッシュ。キーは「PDF の SHA-256 + 抽出器の版」。
+ * - 同じ PDF が再度届いたら（手動実行・リトライ・スケジュールの重なり）PDFBox を通さずに CSV を返す
+ * - 最終アクセス順（LRU）で、合計サイズ上限・最終アクセスからの経過時間で追い出す
+ * - ヒット/ミス/追い出し件数は Micrometer のメトリクス（jsprice.cache.*）で見える
+ * 最終アクセス時刻はファイルの更新時刻に持たせるので、再起動後も LRU 順が引き継がれる。
+ */
+@Component
+public class ConversionCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ConversionCache.class);
+
+  /** キャッシュキー（lookup で設定） */
+  public static final String PROP_KEY = "jsprice.cacheKey";
+  /** true ならキャッシュから出力済み（変換は不要） */
+  public static final String PROP_HIT = "jsprice.cacheHit";
+
+  private record Entry(long size, long lastAccess) {}
+
+  private final Path dir;
+  private final long maxBytes;
+  private final long maxAgeMillis;
+
+  // アクセス順（先頭が最も古い）
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  @Autowired
+  public ConversionCache(
+      @Value("${app.cache.dir:data/cache}") String dir,
+      @Value("${app.cache.maxMb:256}") long maxMb,
+      @Value("${app.cache.maxAgeHours:168}") long maxAgeHours,
+      MeterRegistry registry) {
+    this(dir.isBlank() ? null : Path.of(dir), maxMb * 1024 * 1024, Duration.ofHours(maxAgeHours), registry);
+  }
+
+  ConversionCache(Path dir, long maxBytes, Duration maxAge, MeterRegistry registry) {
+    this.dir = dir;
+    this.maxBytes = maxBytes;
+    this.maxAgeMillis = maxAge.toMillis();
+
+    this.hits = Counter.builder("jsprice.cache.requests").tag("result", "hit").register(registry);
+    this.misses = Counter.builder("jsprice.cache.requests").tag("result", "miss").register(registry);
+    this.evictions = Counter.builder("jsprice.cache.evictions").register(registry);
+    Gauge.builder("jsprice.cache.size", this, c -> c.sizeBytes()).baseUnit("bytes").register(registry);
+    Gauge.builder("jsprice.cache.entries", this, c -> c.entryCount()).register(registry);
+
+    load();
+  }
+
+  /**
+   * 変換前に呼ぶ。ヒットしたら、キャッシュの CSV を出力先ディレクトリの一時ファイルに複製し、
+   * PdfToCsvProcessor#toFile と同じ形（body = File, CamelFileLocalWorkPath）にして PROP_HIT=true にする。
+   */
+  public void lookup(Exchange exchange, String version) throws Exception {
+    exchange.setProperty(PROP_HIT, false);
+    if (dir == null) return;
+
+    String key = sha256(exchange) + "-" + version;
+    exchange.setProperty(PROP_KEY, key);
+
+    Path cached = get(key);
+    if (cached == null) {
+      misses.increment();
+      return;
+    }
+
+    Path outDir = Files.createDirectories(Path.of(exchange.getIn().getHeader(PdfToCsvProcessor.HEADER_OUTPUT_DIR, String.class)));
+    Path tmp = Files.createTempFile(outDir, ".jsprice-", ".csv.tmp");
+    try {
+      Files.copy(cached, tmp, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      // 追い出しと競合した場合などはミス扱いで変換し直す
+      Files.deleteIfExists(tmp);
+      misses.increment();
+      LOG.warn("Conversion cache entry unreadable: {}", cached, e);
+      return;
+    }
+    hits.increment();
+    exchange.getIn().setBody(tmp.toFile());
+    exchange.getIn().setHeader(Exchange.FILE_LOCAL_WORK_PATH, tmp.toString());
+    exchange.getIn().setHeader(Exchange.CONTENT_TYPE, "text/csv; charset=UTF-8");
+    exchange.setProperty(PROP_HIT, true);
+  }
+
+  /** 変換後に呼ぶ。body の CSV（File または String）をキャッシュへ入れる。失敗しても処理は止めない */
+  public void store(Exchange exchange) {
+    String key = exchange.getProperty(PROP_KEY, String.class);
+    if (dir == null || key == null) return;
+
+    try {
+      Files.createDirectories(dir);
+      Path tmp = Files.createTempFile(dir, ".", ".tmp");
+      Object body = exchange.getIn().getBody();
+      if (body instanceof File f) {
+        Files.copy(f.toPath(), tmp, StandardCopyOption.REPLACE_EXISTING);
+      } else {
+        Files.writeString(tmp, exchange.getIn().getBody(String.class), StandardCharsets.UTF_8);
+      }
+      long size = Files.size(tmp);
+      Path target = dir.resolve(key + ".csv");
+      Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      put(key, size);
+    } catch (IOException e) {
+      LOG.warn("Failed to store conversion cache entry: {}", key, e);
+    }
+  }
+
+  public long sizeBytes() {
+    synchronized (entries) {
+      return totalBytes;
+    }
+  }
+
+  public int entryCount() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private Path get(String key) {
+    List<String> expired = new ArrayList<>();
+    Path path;
+    synchronized (entries) {
+      Entry e = entries.get(key);
+      if (e == null) return null;
+      long now = System.currentTimeMillis();
+      if (now - e.lastAccess() > maxAgeMillis) {
+        remove(key);
+        expired.add(key);
+        path = null;
+      } else {
+        entries.put(key, new Entry(e.size(), now));
+        path = dir.resolve(key + ".csv");
+      }
+    }
+    deleteFiles(expired);
+    if (path != null) touch(path);
+    return path;
+  }
+
+  private void put(String key, long size) {
+    List<String> evicted = new ArrayList<>();
+    synchronized (entries) {
+      Entry old = entries.put(key, new Entry(size, System.currentTimeMillis()));
+      totalBytes += size - (old == null ? 0 : old.size());
+
+      long now = System.currentTimeMillis();
+      Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<String, Entry> e = it.next();
+        boolean tooOld = now - e.getValue().lastAccess() > maxAgeMillis;
+        if (!tooOld && totalBytes <= maxBytes) break;  // 以降はより新しい
+        if (e.getKey().equals(key)) continue;           // 入れたばかりのものは残す
+        it.remove();
+        totalBytes -= e.getValue().size();
+        evicted.add(e.getKey());
+      }
+    }
+    deleteFiles(evicted);
+  }
+
+  private void remove(String key) {
+    Entry e = entries.remove(key);
+    if (e != null) totalBytes -= e.size();
+  }
+
+  private void deleteFiles(List<String> keys) {
+    for (String k : keys) {
+      evictions.increment();
+      try {
+        Files.deleteIfExists(dir.resolve(k + ".csv"));
+      } catch (IOException e) {
+        LOG.warn("Failed to delete conversion cache entry: {}", k, e);
+      }
+    }
+  }
+
+  private static void touch(Path path) {
+    try {
+      Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException ignore) {
+      // LRU 順が再起動で少しずれるだけ
+    }
+  }
+
+  /** 起動時に既存のエントリを最終アクセス（更新時刻）順に読み込む */
+  private void load() {
+    if (dir == null || !Files.isDirectory(dir)) return;
+    try (Stream<Path> files = Files.list(dir)) {
+      files.filter(p -> p.getFileName().toString().endsWith(".csv"))
+          .map(p -> {
+            try {
+              return Map.entry(p, Files.getLastModifiedTime(p).toMillis());
+            } catch (IOException e) {
+              return Map.entry(p, 0L);
+            }
+          })
+          .sorted(Map.Entry.comparingByValue())
+          .forEach(e -> {
+            String name = e.getKey().getFileName().toString();
+            try {
+              long size = Files.size(e.getKey());
+              synchronized (entries) {
+                entries.put(name.substring(0, name.length() - ".csv".length()), new Entry(size, e.getValue()));
+                totalBytes += size;
+              }
+            } catch (IOException ignore) {
+              // 読めないものは無視
+            }
+          });
+    } catch (IOException e) {
+      LOG.warn("Failed to scan conversion cache: {}", dir, e);
+    }
+  }
+
+  private static String sha256(Exchange exchange) throws IOException, NoSuchAlgorithmException {
+    String sha = exchange.getIn().getHeader(PdfDownloadProcessor.HEADER_SHA256, String.class);
+    if (sha != null) return sha;
+
+    MessageDigest md = MessageDigest.getInstance("SHA-256");
+    Object body = exchange.getIn().getBody();
+    if (body instanceof File f) {
+      try (InputStream in = new DigestInputStream(Files.newInputStream(f.toPath()), md)) {
+        in.transferTo(OutputStream.nullOutputStream());
+      }
+    } else {
+      byte[] pdf = exchange.getIn().getBody(byte[].class);
+      if (pdf == null) throw new IllegalArgumentException("No PDF content in exchange body.");
+      md.update(pdf);
+      exchange.getIn().setBody(pdf);  // ストリームだった場合に読み直せるよう戻す
+    }
+    return HexFormat.of().formatHex(md.digest());
+  }
+}
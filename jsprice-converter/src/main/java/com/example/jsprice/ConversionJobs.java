@@ -0,0 +1,204 @@
+package com.example.jsprice;
+
+import com.example.jsprice.config.VirtualThreadSupport;
+import com.example.jsprice.processor.ExtractStats;
+import com.example.jsprice.processor.PdfToCsvProcessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 手動実行（POST /converter/run）の変換ジョブを受け付けて裏で動かす。
+ * - ワーカー数 app.jobs.workers、待ち行列 app.jobs.queueCapacity の固定プール。満杯なら {@link RejectedExecutionException}
+ * - ジョブの状態・所要時間・出力先は {@link #find(String)} で引ける（終わったジョブは app.jobs.history 件まで保持）
+ * - 仮想スレッド有効時（{@link VirtualThreadSupport}）はワーカーも仮想スレッド。同時実行数は workers のまま
+ * リクエストスレッドは受け付けるだけで、ダウンロード・変換は待たない。
+ */
+@Component
+public class ConversionJobs implements DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ConversionJobs.class);
+
+  public enum State { QUEUED, RUNNING, SUCCEEDED, SKIPPED, FAILED }
+
+  /** ジョブの状態（GET /converter/jobs/{id} の応答）。未到達の時刻・所要時間は null */
+  public record JobStatus(String id, State state, boolean force,
+                          Instant submittedAt, Instant startedAt, Instant finishedAt,
+                          Long queuedMs, Long runMs, Map<String, Long> stageMs,
+                          Long rows, String output, String error) {}
+
+  private static final class Job {
+    final String id = UUID.randomUUID().toString();
+    final boolean force;
+    final Instant submittedAt = Instant.now();
+    volatile State state = State.QUEUED;
+    volatile Instant startedAt;
+    volatile Instant finishedAt;
+    volatile Map<String, Long> stageMs;
+    volatile Long rows;
+    volatile String output;
+    volatile String error;
+
+    Job(boolean force) {
+      this.force = force;
+    }
+
+    JobStatus status() {
+      State s = state; // 先に読む（終了状態なら finishedAt は書き込み済み）
+      Instant started = startedAt;
+      Instant finished = finishedAt;
+      return new JobStatus(id, s, force, submittedAt, started, finished,
+          started == null ? null : Duration.between(submittedAt, started).toMillis(),
+          started == null || finished == null ? null : Duration.between(started, finished).toMillis(),
+          stageMs, rows, output, error);
+    }
+  }
+
+  private final Function<Map<String, Object>, Exchange> runner;
+  private final ThreadPoolExecutor executor;
+  private final int history;
+  private final long retryAfterSec;
+
+  private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+  // 終わった順（古いものから消す）
+  private final ConcurrentLinkedQueue<String> finished = new ConcurrentLinkedQueue<>();
+  private final Counter rejected;
+
+  @Autowired
+  public ConversionJobs(ProducerTemplate producerTemplate, MeterRegistry registry,
+                        @Value("${app.jobs.workers:1}") int workers,
+                        @Value("${app.jobs.queueCapacity:4}") int queueCapacity,
+                        @Value("${app.jobs.history:100}") int history,
+                        @Value("${app.jobs.retryAfterSec:30}") long retryAfterSec,
+                        Environment environment) {
+    this(headers -> producerTemplate.send("direct:runJob", e -> e.getIn().setHeaders(headers)),
+        registry, workers, queueCapacity, history, retryAfterSec, VirtualThreadSupport.isEnabled(environment));
+  }
+
+  ConversionJobs(Function<Map<String, Object>, Exchange> runner, MeterRegistry registry,
+                 int workers, int queueCapacity, int history, long retryAfterSec, boolean virtualThreads) {
+    this.runner = runner;
+    this.history = history;
+    this.retryAfterSec = retryAfterSec;
+    this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        virtualThreads ? new VirtualThreadTaskExecutor("jsprice-job-").getVirtualThreadFactory() : platformThreads(),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.rejected = Counter.builder("jsprice.jobs.rejected").register(registry);
+    Gauge.builder("jsprice.jobs.queued", executor, e -> e.getQueue().size()).register(registry);
+    Gauge.builder("jsprice.jobs.running", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+  }
+
+  private static ThreadFactory platformThreads() {
+    AtomicInteger seq = new AtomicInteger();
+    return r -> {
+      Thread t = new Thread(r, "jsprice-job-" + seq.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+  /** ジョブを受け付ける。待ち行列が満杯なら RejectedExecutionException（呼び出し側は 429 を返す） */
+  public JobStatus submit(Map<String, Object> headers, boolean force) {
+    Job job = new Job(force);
+    JobStatus accepted = job.status(); // ワーカーが拾う前の状態（QUEUED）を返す
+    jobs.put(job.id, job);
+    try {
+      executor.execute(() -> run(job, headers));
+    } catch (RejectedExecutionException e) {
+      jobs.remove(job.id);
+      rejected.increment();
+      throw e;
+    }
+    return accepted;
+  }
+
+  public Optional<JobStatus> find(String id) {
+    Job job = jobs.get(id);
+    return job == null ? Optional.empty() : Optional.of(job.status());
+  }
+
+  /** 満杯で断ったときに Retry-After で返す秒数 */
+  public long retryAfterSeconds() {
+    return retryAfterSec;
+  }
+
+  private void run(Job job, Map<String, Object> headers) {
+    job.startedAt = Instant.now();
+    job.state = State.RUNNING;
+    State outcome;
+    try {
+      Exchange result = runner.apply(headers);
+      Exception failure = result.getException() != null
+          ? result.getException()
+          : result.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class);
+      ExtractStats stats = result.getProperty(PdfToCsvProcessor.PROP_STATS, ExtractStats.class);
+      if (stats != null) {
+        Map<String, Long> stageMs = new LinkedHashMap<>();
+        stageMs.put("extract", TimeUnit.NANOSECONDS.toMillis(stats.extractNanos()));
+        stageMs.put("match", TimeUnit.NANOSECONDS.toMillis(stats.matchNanos()));
+        stageMs.put("csv", TimeUnit.NANOSECONDS.toMillis(stats.csvNanos()));
+        job.stageMs = stageMs;
+        job.rows = stats.rows();
+      }
+      if (failure != null) {
+        job.error = failure.getMessage();
+        outcome = State.FAILED;
+      } else if (result.isRouteStop()) {
+        // 取得元が前回から変わっていない（条件付き GET の 304 など）
+        outcome = State.SKIPPED;
+      } else {
+        job.output = result.getMessage().getHeader(Exchange.FILE_NAME_PRODUCED, String.class);
+        outcome = State.SUCCEEDED;
+      }
+    } catch (RuntimeException e) {
+      LOG.warn("Conversion job {} failed", job.id, e);
+      job.error = e.getMessage();
+      outcome = State.FAILED;
+    }
+    // 状態は最後に切り替える（終了状態なら finishedAt も見える）
+    job.finishedAt = Instant.now();
+    job.state = outcome;
+
+    finished.add(job.id);
+    while (finished.size() > history) {
+      String oldest = finished.poll();
+      if (oldest != null) jobs.remove(oldest);
+    }
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    executor.shutdown();
+    if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+      LOG.warn("Conversion jobs still running at shutdown: {}", executor.getActiveCount());
+      executor.shutdownNow();
+    }
+  }
+}
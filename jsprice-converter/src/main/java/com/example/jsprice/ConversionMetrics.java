@@ -0,0 +1,134 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.ExtractStats;
+import com.example.jsprice.processor.JfrEvents;
+import com.example.jsprice.processor.PdfToCsvProcessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 変換ジョブ（jsprice-runJob）の段ごとのメトリクス。/actuator/prometheus で見える。
+ * - jsprice.stage{stage=token|download|extract|match|csv|file_write} : 段ごとの所要時間（ヒストグラム付き）
+ * - jsprice.download.bytes : ダウンロードした PDF のバイト数
+ * - jsprice.pages          : 変換したページ数
+ * - jsprice.rows{result=emitted|rejected|duplicate} : CSV に書いた行 / 値が不正で捨てた行 / 重複として捨てた行
+ * extract/match/csv は PdfToCsvProcessor の {@link ExtractStats} から記録する（キャッシュヒット時は記録しない）。
+ * token/download/file_write は同じ区間で JFR の {@link JfrEvents.RouteStage} イベントも出す。
+ */
+@Component
+public class ConversionMetrics {
+
+  public static final String STAGE_TOKEN = "token";
+  public static final String STAGE_DOWNLOAD = "download";
+  public static final String STAGE_FILE_WRITE = "file_write";
+  private static final String STAGE_EXTRACT = "extract";
+  private static final String STAGE_MATCH = "match";
+  private static final String STAGE_CSV = "csv";
+
+  private static final String PROP_SECTION_PREFIX = "jsprice.section.";
+
+  /** ルート上の計測区間（start から stop まで Exchange のプロパティに持つ） */
+  private record Section(Timer.Sample sample, JfrEvents.RouteStage event) {}
+
+  private final MeterRegistry registry;
+  private final Map<String, Timer> stages;
+  private final Counter downloadBytes;
+  private final Counter pages;
+  private final Counter rowsEmitted;
+  private final Counter rowsRejected;
+  private final Counter rowsDuplicate;
+
+  public ConversionMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    this.stages = Map.of(
+        STAGE_TOKEN, stageTimer(STAGE_TOKEN),
+        STAGE_DOWNLOAD, stageTimer(STAGE_DOWNLOAD),
+        STAGE_EXTRACT, stageTimer(STAGE_EXTRACT),
+        STAGE_MATCH, stageTimer(STAGE_MATCH),
+        STAGE_CSV, stageTimer(STAGE_CSV),
+        STAGE_FILE_WRITE, stageTimer(STAGE_FILE_WRITE));
+    this.downloadBytes = Counter.builder("jsprice.download.bytes").baseUnit("bytes").register(registry);
+    this.pages = Counter.builder("jsprice.pages").register(registry);
+    this.rowsEmitted = Counter.builder("jsprice.rows").tag("result", "emitted").register(registry);
+    this.rowsRejected = Counter.builder("jsprice.rows").tag("result", "rejected").register(registry);
+    this.rowsDuplicate = Counter.builder("jsprice.rows").tag("result", "duplicate").register(registry);
+  }
+
+  private Timer stageTimer(String stage) {
+    return Timer.builder("jsprice.stage")
+        .tag("stage", stage)
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+
+  /** 同期処理を 1 段として計測する */
+  public <T> T time(String stage, Supplier<T> work) {
+    JfrEvents.RouteStage event = new JfrEvents.RouteStage();
+    event.begin();
+    try {
+      return stages.get(stage).record(work);
+    } finally {
+      commit(event, stage, null, 0);
+    }
+  }
+
+  /** ルート上の区間の開始（{@link #stop} と対にする） */
+  public Processor start(String stage) {
+    return exchange -> {
+      JfrEvents.RouteStage event = new JfrEvents.RouteStage();
+      event.begin();
+      exchange.setProperty(PROP_SECTION_PREFIX + stage, new Section(Timer.start(registry), event));
+    };
+  }
+
+  /** ルート上の区間の終了。開始していなければ何もしない */
+  public Processor stop(String stage) {
+    return exchange -> finish(exchange, stage, 0);
+  }
+
+  /** PdfDownloadProcessor の後に呼ぶ。ダウンロード区間を閉じてバイト数を数える */
+  public void recordDownload(Exchange exchange) {
+    Long size = exchange.getIn().getHeader(Exchange.FILE_LENGTH, Long.class);
+    finish(exchange, STAGE_DOWNLOAD, size == null ? 0 : size);
+    if (size != null) downloadBytes.increment(size);
+  }
+
+  private void finish(Exchange exchange, String stage, long bytes) {
+    Section section = exchange.getProperty(PROP_SECTION_PREFIX + stage, Section.class);
+    if (section == null) return;
+    exchange.removeProperty(PROP_SECTION_PREFIX + stage);
+    section.sample().stop(stages.get(stage));
+    commit(section.event(), stage, exchange.getExchangeId(), bytes);
+  }
+
+  private static void commit(JfrEvents.RouteStage event, String stage, String exchangeId, long bytes) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.stage = stage;
+      event.exchangeId = exchangeId;
+      event.bytes = bytes;
+      event.commit();
+    }
+  }
+
+  /** PdfToCsvProcessor の後に呼ぶ */
+  public void recordExtract(Exchange exchange) {
+    ExtractStats stats = exchange.getProperty(PdfToCsvProcessor.PROP_STATS, ExtractStats.class);
+    if (stats == null) return;
+    stages.get(STAGE_EXTRACT).record(stats.extractNanos(), TimeUnit.NANOSECONDS);
+    stages.get(STAGE_MATCH).record(stats.matchNanos(), TimeUnit.NANOSECONDS);
+    stages.get(STAGE_CSV).record(stats.csvNanos(), TimeUnit.NANOSECONDS);
+    pages.increment(stats.pages());
+    rowsEmitted.increment(stats.rows());
+    rowsRejected.increment(stats.rejected());
+    rowsDuplicate.increment(stats.duplicates());
+  }
+}
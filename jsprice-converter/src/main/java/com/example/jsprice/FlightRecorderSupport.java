@@ -0,0 +1,116 @@
+package com.example.jsprice;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 遅い回を後から調べるための常時 JFR 記録。
+ * app.jfr.enabled=true のとき、起動時に上限付き（maxAge / maxSize）の記録を開始しておき、
+ * 変換ジョブ 1 回の所要時間が app.jfr.thresholdMs を超えたら、その時点までの記録を dumpDir に書き出す。
+ * 記録には JDK 標準のイベント（GC・ロック・I/O など。設定は app.jfr.settings）と jsprice.* のイベントが入る。
+ * 書き出しは minDumpIntervalSec に 1 回まで（遅い回が続いてもディスクを埋めない）。
+ * 無効時は何もしない（jsprice.* のイベントも記録されないのでコストはほぼ無い）。
+ */
+@Component
+public class FlightRecorderSupport implements DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FlightRecorderSupport.class);
+
+  private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  private final Recording recording;
+  private final long thresholdMillis;
+  private final Path dumpDir;
+  private final long minDumpIntervalMillis;
+  private long lastDump = Long.MIN_VALUE;
+
+  @Autowired
+  public FlightRecorderSupport(
+      @Value("${app.jfr.enabled:false}") boolean enabled,
+      @Value("${app.jfr.settings:default}") String settings,
+      @Value("${app.jfr.maxAgeMin:30}") long maxAgeMin,
+      @Value("${app.jfr.maxSizeMb:64}") long maxSizeMb,
+      @Value("${app.jfr.thresholdMs:60000}") long thresholdMs,
+      @Value("${app.jfr.dumpDir:data/jfr}") String dumpDir,
+      @Value("${app.jfr.minDumpIntervalSec:600}") long minDumpIntervalSec) throws Exception {
+    this(enabled ? startRecording(settings, Duration.ofMinutes(maxAgeMin), maxSizeMb * 1024 * 1024) : null,
+        thresholdMs, Path.of(dumpDir), Duration.ofSeconds(minDumpIntervalSec));
+  }
+
+  FlightRecorderSupport(Recording recording, long thresholdMillis, Path dumpDir, Duration minDumpInterval) {
+    this.recording = recording;
+    this.thresholdMillis = thresholdMillis;
+    this.dumpDir = dumpDir;
+    this.minDumpIntervalMillis = minDumpInterval.toMillis();
+  }
+
+  static Recording startRecording(String settings, Duration maxAge, long maxBytes) throws Exception {
+    if (!FlightRecorder.isAvailable()) {
+      LOG.warn("JFR is not available on this JVM; continuous recording disabled.");
+      return null;
+    }
+    Recording r = new Recording(Configuration.getConfiguration(settings));
+    r.setName("jsprice-continuous");
+    r.setToDisk(true);
+    r.setMaxAge(maxAge);
+    r.setMaxSize(maxBytes);
+    r.enable("jsprice.PageExtract");
+    r.enable("jsprice.RowMatch");
+    r.enable("jsprice.CsvFlush");
+    r.enable("jsprice.Conversion");
+    r.enable("jsprice.RouteStage");
+    r.start();
+    LOG.info("JFR continuous recording started (settings={}, maxAge={}, maxSize={} bytes)", settings, maxAge, maxBytes);
+    return r;
+  }
+
+  public boolean isRecording() {
+    return recording != null && recording.getState() == RecordingState.RUNNING;
+  }
+
+  /** 変換ジョブの最後に呼ぶ。閾値を超えていれば記録を書き出し、書き出したファイルを返す（しなければ null） */
+  public Path checkRun(Exchange exchange) {
+    long elapsed = exchange.getClock().elapsed();
+    if (!isRecording() || elapsed <= thresholdMillis) return null;
+
+    synchronized (this) {
+      long now = System.currentTimeMillis();
+      if (lastDump != Long.MIN_VALUE && now - lastDump < minDumpIntervalMillis) {
+        LOG.info("Slow run ({} ms) but a JFR dump was written recently; skipped.", elapsed);
+        return null;
+      }
+      lastDump = now;
+    }
+    Path file = dumpDir.resolve("jsprice-" + LocalDateTime.now().format(STAMP) + "-" + exchange.getExchangeId() + ".jfr");
+    try {
+      Files.createDirectories(dumpDir);
+      recording.dump(file);
+      LOG.warn("Slow run ({} ms > {} ms); JFR recording dumped to {}", elapsed, thresholdMillis, file);
+      return file;
+    } catch (IOException e) {
+      LOG.warn("Failed to dump JFR recording to {}", file, e);
+      return null;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    if (recording != null) recording.close();
+  }
+}
@@ -0,0 +1,144 @@
+package com.example.jsprice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * direct:runJob の入口。週次・毎分デバッグ・ポーリング・手動実行が重なっても、同じ取得元の変換は同時に 1 本だけ動かす。
+ * - 何も動いていなければ、呼び出したスレッドでそのまま実行する
+ * - 実行中に来た呼び出しは「次の 1 回」にまとめる（何本来ても追加の実行は 1 回。force は OR）
+ *   実行中の回は新しい版を取り逃しているかもしれないので、途中から来た呼び出しに今の回の結果は返さない
+ * - 同じ回にまとめられた呼び出しには、すべて同じ結果（本文・ヘッダ・例外・jsprice.* プロパティ）を返す
+ * 実処理は direct:runJobOnce。
+ */
+@Component
+public class JobCoordinator implements Processor {
+
+  /** 実処理のルート */
+  public static final String RUN_ONCE = "direct:runJobOnce";
+
+  /** 1 回分の実行。start は実行を受け持つ呼び出しに「順番が来た」ことを知らせる */
+  private static final class Flight {
+    final Map<String, Object> headers;
+    final CompletableFuture<Void> start = new CompletableFuture<>();
+    final CompletableFuture<Exchange> done = new CompletableFuture<>();
+
+    Flight(Map<String, Object> headers) {
+      this.headers = new HashMap<>(headers);
+    }
+
+    void merge(Map<String, Object> more) {
+      if (Boolean.TRUE.equals(more.get(SourceChangeTracker.HEADER_FORCE))) {
+        headers.put(SourceChangeTracker.HEADER_FORCE, true);
+      }
+    }
+  }
+
+  private static final class Slot {
+    Flight running;
+    Flight next;
+  }
+
+  private final Function<Map<String, Object>, Exchange> runner;
+  private final String sourceUrl;
+  private final Map<String, Slot> slots = new HashMap<>();
+  private final Counter started;
+  private final Counter coalesced;
+
+  @Autowired
+  public JobCoordinator(ProducerTemplate producerTemplate, MeterRegistry registry,
+                        @Value("${app.sourceUrl}") String sourceUrl) {
+    this(headers -> producerTemplate.send(RUN_ONCE, e -> e.getIn().setHeaders(headers)), registry, sourceUrl);
+  }
+
+  JobCoordinator(Function<Map<String, Object>, Exchange> runner, MeterRegistry registry, String sourceUrl) {
+    this.runner = runner;
+    this.sourceUrl = sourceUrl;
+    this.started = Counter.builder("jsprice.trigger").tag("result", "started").register(registry);
+    this.coalesced = Counter.builder("jsprice.trigger").tag("result", "coalesced").register(registry);
+  }
+
+  @Override
+  public void process(Exchange exchange) {
+    Exchange result = run(sourceUrl, exchange.getIn().getHeaders());
+    exchange.getMessage().copyFrom(result.getMessage());
+    exchange.getProperties().putAll(result.getProperties());
+    copyProperty(result, exchange, Exchange.EXCEPTION_CAUGHT);
+    // scheduler コンシューマの backoff 判定（空振りかどうか）
+    copyProperty(result, exchange, Exchange.SCHEDULER_POLLED_MESSAGES);
+    if (result.getException() != null) {
+      exchange.setException(result.getException());
+    }
+    // 取得元が変わっていなかった回（304 など）は、呼び出し側でも打ち切り扱い
+    exchange.setRouteStop(result.isRouteStop());
+  }
+
+  /** key（取得元）ごとに 1 本だけ実行し、その結果を返す。実行中なら次の回にまとめて、その結果を待つ */
+  public Exchange run(String key, Map<String, Object> headers) {
+    Flight flight;
+    boolean owner;
+    synchronized (slots) {
+      Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+      if (slot.running == null) {
+        flight = slot.running = new Flight(headers);
+        flight.start.complete(null);
+        owner = true;
+      } else if (slot.next == null) {
+        flight = slot.next = new Flight(headers);
+        owner = true;
+      } else {
+        flight = slot.next;
+        flight.merge(headers);
+        owner = false;
+      }
+    }
+    if (owner) {
+      flight.start.join(); // 前の回が終わるまで待つ
+      started.increment();
+      execute(key, flight);
+    } else {
+      coalesced.increment();
+    }
+    try {
+      return flight.done.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      throw e;
+    }
+  }
+
+  private void execute(String key, Flight flight) {
+    try {
+      // merge は「次の回」にしか入らないので、始まった回の headers はもう変わらない
+      flight.done.complete(runner.apply(flight.headers));
+    } catch (RuntimeException e) {
+      flight.done.completeExceptionally(e);
+    } finally {
+      Flight next;
+      synchronized (slots) {
+        Slot slot = slots.get(key);
+        next = slot.running = slot.next;
+        slot.next = null;
+        if (next == null) slots.remove(key);
+      }
+      if (next != null) next.start.complete(null);
+    }
+  }
+
+  private static void copyProperty(Exchange from, Exchange to, String name) {
+    Object value = from.getProperty(name);
+    if (value != null) to.setProperty(name, value);
+  }
+}
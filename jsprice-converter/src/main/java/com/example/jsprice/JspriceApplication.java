@@ -1,11 +1,19 @@
 package com.example.jsprice;
 
+import com.example.jsprice.config.VirtualThreadSupport;
+import com.example.security.SecurityConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
+// com.example.security はコンポーネントスキャンの外なので明示的に読み込む
 @SpringBootApplication
+@Import(SecurityConfig.class)
 public class JspriceApplication {
   public static void main(String[] args) {
-    SpringApplication.run(JspriceApplication.class, args);
+    SpringApplication app = new SpringApplication(JspriceApplication.class);
+    // Camel のスレッドを仮想スレッドにするかは、Camel が読み込まれる前に決める
+    app.addListeners(new VirtualThreadSupport());
+    app.run(args);
   }
 }
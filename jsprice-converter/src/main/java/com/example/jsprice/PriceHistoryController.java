@@ -0,0 +1,72 @@
+package com.example.jsprice;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 価格履歴（{@link PriceHistoryStore}）を引く。
+ * - GET  /converter/history?brand=...&from=yyyy-MM-dd&to=yyyy-MM-dd … 銘柄の基準日ごとの価格（基準日順）
+ * - GET  /converter/history/snapshots … 貯まっているスナップショットの一覧
+ * - POST /converter/history/compact … 置き換えられた行を捨ててセグメントを詰める
+ * 履歴が無効なら 503。
+ */
+@RestController
+public class PriceHistoryController {
+
+  /** 1 基準日分。利率・価格の表記は {@link PriceIndexController.Price} と同じ */
+  public record Point(LocalDate asOf, LocalDate maturityDate, BigDecimal couponPct, BigDecimal priceJpy) {}
+
+  public record History(String brand, int count, List<Point> points) {}
+
+  public record Stats(int snapshots, long liveRows, long deadRows, int segments) {}
+
+  private final PriceHistoryService priceHistoryService;
+
+  public PriceHistoryController(PriceHistoryService priceHistoryService) {
+    this.priceHistoryService = priceHistoryService;
+  }
+
+  @GetMapping("/converter/history")
+  public History history(@RequestParam(name = "brand") String brand,
+                         @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                         @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    List<PriceHistoryStore.Point> found = store().range(brand,
+        from == null ? Integer.MIN_VALUE : (int) from.toEpochDay(),
+        to == null ? Integer.MAX_VALUE : (int) to.toEpochDay());
+    List<Point> points = new ArrayList<>(found.size());
+    for (PriceHistoryStore.Point p : found) {
+      points.add(new Point(LocalDate.ofEpochDay(p.asOf()), LocalDate.ofEpochDay(p.maturity()),
+          PriceIndexController.decimal(p.coupon()), PriceIndexController.decimal(p.price())));
+    }
+    return new History(brand, points.size(), points);
+  }
+
+  @GetMapping("/converter/history/snapshots")
+  public List<PriceHistoryStore.Snapshot> snapshots() {
+    return store().snapshots();
+  }
+
+  @PostMapping("/converter/history/compact")
+  public Stats compact() throws IOException {
+    PriceHistoryStore store = store();
+    store.compact();
+    return new Stats(store.snapshots().size(), store.liveRows(), store.deadRows(), store.segmentCount());
+  }
+
+  private PriceHistoryStore store() {
+    PriceHistoryStore store = priceHistoryService.store();
+    if (store == null) throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Price history is disabled");
+    return store;
+  }
+}
@@ -0,0 +1,118 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondCsvReader;
+import com.example.jsprice.processor.BondRow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 変換結果を {@link PriceHistoryStore} に貯める。
+ * - 変換が成功するたびに、書き出した CSV を実行日（app.history.zone）のスナップショットとして追記する（同じ日の再実行は置き換え）
+ * - バックフィルの結果は、ファイル名から取った基準日のスナップショットとして基準日順に追記する
+ * - 置き換えられた行が生きている行の compactDeadRatio 倍を超えたら compaction する
+ * 履歴を開けない・書けないときはログを出すだけで、変換ジョブは失敗にしない。
+ */
+@Component
+public class PriceHistoryService implements DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PriceHistoryService.class);
+
+  private final PriceHistoryStore store;
+  private final ZoneId zone;
+  private final double compactDeadRatio;
+
+  @Autowired
+  public PriceHistoryService(MeterRegistry registry,
+                             @Value("${app.history.enabled:true}") boolean enabled,
+                             @Value("${app.history.dir:data/history}") String dir,
+                             @Value("${app.history.segmentMb:64}") int segmentMb,
+                             @Value("${app.history.zone:Asia/Tokyo}") String zone,
+                             @Value("${app.history.compactDeadRatio:0.5}") double compactDeadRatio) {
+    this(registry, enabled ? open(Path.of(dir), segmentMb * 1024L * 1024L) : null, ZoneId.of(zone), compactDeadRatio);
+  }
+
+  PriceHistoryService(MeterRegistry registry, PriceHistoryStore store, ZoneId zone, double compactDeadRatio) {
+    this.store = store;
+    this.zone = zone;
+    this.compactDeadRatio = compactDeadRatio;
+    if (store != null) {
+      Gauge.builder("jsprice.history.snapshots", store, s -> s.snapshots().size()).register(registry);
+      Gauge.builder("jsprice.history.rows", store, PriceHistoryStore::liveRows).tag("state", "live").register(registry);
+      Gauge.builder("jsprice.history.rows", store, PriceHistoryStore::deadRows).tag("state", "dead").register(registry);
+    }
+  }
+
+  private static PriceHistoryStore open(Path dir, long segmentBytes) {
+    try {
+      return PriceHistoryStore.open(dir, segmentBytes);
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Price history disabled: failed to open {}: {}", dir, e.toString());
+      return null;
+    }
+  }
+
+  /** 無効・開けなかったときは null */
+  public PriceHistoryStore store() {
+    return store;
+  }
+
+  /** 変換ルートの最後で呼ぶ（ヘッダ {@link Exchange#FILE_NAME_PRODUCED} の CSV を今日のスナップショットとして追記） */
+  public void record(Exchange exchange) {
+    String produced = exchange.getMessage().getHeader(Exchange.FILE_NAME_PRODUCED, String.class);
+    if (store == null || produced == null) return;
+    try {
+      append(LocalDate.now(zone), Path.of(produced));
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to append {} to price history: {}", produced, e.toString());
+    }
+  }
+
+  /** バックフィルで変換できた（基準日の分かる）ファイルを基準日順に追記する */
+  public void record(Backfill.Report report) {
+    if (store == null) return;
+    List<Backfill.FileResult> files = report.files().stream()
+        .filter(f -> f.ok() && f.asOf() != null)
+        .sorted(Comparator.comparing(Backfill.FileResult::asOf))
+        .toList();
+    for (Backfill.FileResult f : files) {
+      try {
+        append(f.asOf(), Path.of(f.output()));
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Failed to append {} to price history: {}", f.output(), e.toString());
+      }
+    }
+  }
+
+  /** csv を asOf のスナップショットとして追記し、行数を返す */
+  public int append(LocalDate asOf, Path csv) throws IOException {
+    if (store == null) throw new IllegalStateException("Price history is disabled");
+    List<BondRow> rows = new ArrayList<>();
+    BondCsvReader.read(csv, rows::add);
+    store.append(asOf, rows);
+    LOG.info("Price history: {} rows as of {} from {}", rows.size(), asOf, csv);
+    if (store.deadRows() > 0 && store.deadRows() > store.liveRows() * compactDeadRatio) {
+      store.compact();
+    }
+    return rows.size();
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    if (store != null) store.close();
+  }
+}
@@ -0,0 +1,525 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 基準日ごとのスナップショットを追記だけで貯める価格履歴（{@link PriceHistoryService} が変換のたびに追記する）。
+ *
+ * ディレクトリには history-{世代}-{連番}.jsph のセグメントと、今の世代を書いた CURRENT を置く。
+ * セグメントはブロックの並びで、1 ブロックが 1 スナップショット（リトルエンディアン）:
+ * <pre>
+ *  0  int  magic "JSPH"      4  int  基準日（エポック日）
+ *  8  int  行数             12  int  このブロックで初めて出た銘柄の数
+ * 16  int  銘柄定義のバイト数（8 バイト境界まで詰め物込み）  20  int  CRC32C（銘柄定義 + 行）
+ * 24  long 通し番号（追記順）
+ * 銘柄定義: (short UTF-8 長 + UTF-8) × 新しい銘柄数。ID は世代内で出てきた順
+ * 行      : (int 銘柄 ID, int 償還日, long 表面利率, long 価格) × 行数（{@link BondRow} と同じ固定小数点）
+ * </pre>
+ * - 同じ基準日をもう一度追記すると、新しい方が前のスナップショットを丸ごと置き換える（前の分は compaction まで残る）
+ * - セグメントは mmap して読む。起動時はブロックのヘッダと銘柄 ID だけを走査して銘柄ごとの索引（基準日順の行の位置）を作る
+ * - 書きかけで落ちた末尾のブロックは起動時に切り詰める。途中のセグメントが壊れていれば開かない
+ * - {@link #compact()} は生きているスナップショットだけを次の世代に書き直し、CURRENT を差し替えてから古い世代を消す
+ * 読み取りは並行してよい。追記・compaction は読み取りと排他。
+ */
+public final class PriceHistoryStore implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PriceHistoryStore.class);
+
+  static final int MAGIC = 'J' | 'S' << 8 | 'P' << 16 | 'H' << 24;
+  static final int BLOCK_HEADER_BYTES = 32;
+  static final int RECORD_BYTES = 24;
+  static final String CURRENT = "CURRENT";
+
+  private static final Pattern SEGMENT = Pattern.compile("history-(\\d+)-(\\d+)\\.jsph");
+
+  /** 1 銘柄・1 基準日分。日付はエポック日、利率・価格は {@link BondRow#SCALE} 倍（空欄は {@link BondRow#NO_VALUE}） */
+  public record Point(int asOf, int maturity, long coupon, long price) {}
+
+  /** 生きているスナップショット */
+  public record Snapshot(LocalDate asOf, long seq, int rows) {}
+
+  private final Path dir;
+  private final long segmentBytes;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private State state;
+
+  private PriceHistoryStore(Path dir, long segmentBytes, State state) {
+    this.dir = dir;
+    this.segmentBytes = segmentBytes;
+    this.state = state;
+  }
+
+  /** dir の履歴を開く（なければ作る）。segmentBytes を超えたら次のセグメントに書く */
+  public static PriceHistoryStore open(Path dir, long segmentBytes) throws IOException {
+    if (segmentBytes < BLOCK_HEADER_BYTES) {
+      throw new IllegalArgumentException("segmentBytes too small: " + segmentBytes);
+    }
+    long t = System.nanoTime();
+    Files.createDirectories(dir);
+    Path current = dir.resolve(CURRENT);
+    int generation = Files.isRegularFile(current) ? Integer.parseInt(Files.readString(current).trim()) : 0;
+
+    // compaction の途中で落ちたときの残り（CURRENT に無い世代）を消す
+    TreeMap<Integer, Path> files = new TreeMap<>();
+    try (Stream<Path> list = Files.list(dir)) {
+      for (Path p : list.toList()) {
+        Matcher m = SEGMENT.matcher(p.getFileName().toString());
+        if (!m.matches()) continue;
+        if (Integer.parseInt(m.group(1)) == generation) files.put(Integer.parseInt(m.group(2)), p);
+        else Files.deleteIfExists(p);
+      }
+    }
+
+    State state = new State(generation);
+    List<Block> blocks = new ArrayList<>();
+    int last = files.isEmpty() ? -1 : files.lastKey();
+    try {
+      for (Map.Entry<Integer, Path> f : files.entrySet()) {
+        Segment seg = state.addSegment(f.getKey(), f.getValue());
+        seg.scan(state, blocks, f.getKey() == last);
+      }
+    } catch (IOException | RuntimeException e) {
+      state.close();
+      throw e;
+    }
+    // 基準日ごとに通し番号が最大のものが生きている。索引は基準日順に積むので、挿入は常に末尾
+    for (Block b : blocks) {
+      Block prev = state.snapshots.get(b.asOf);
+      if (prev == null || prev.seq < b.seq) {
+        state.snapshots.put(b.asOf, b);
+        if (prev != null) state.deadRows += prev.rows;
+      } else {
+        state.deadRows += b.rows;
+      }
+    }
+    for (Block b : state.snapshots.values()) {
+      state.index(b);
+    }
+    PriceHistoryStore store = new PriceHistoryStore(dir, segmentBytes, state);
+    LOG.info("Price history opened: {} snapshot(s), {} live / {} dead rows, {} brands, {} segment(s) in {} ({} ms)",
+        state.snapshots.size(), state.liveRows, state.deadRows, state.brands.size(), state.segments.size(), dir,
+        (System.nanoTime() - t) / 1_000_000);
+    return store;
+  }
+
+  /** asOf のスナップショットとして rows を追記する（同じ基準日の前のものは置き換わる） */
+  public void append(LocalDate asOf, Collection<BondRow> rows) throws IOException {
+    lock.writeLock().lock();
+    try {
+      State s = state;
+      s.append((int) asOf.toEpochDay(), s.seq + 1, rows, segmentBytes, dir);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * brand の fromDay〜toDay（エポック日、両端含む）の値を基準日順に返す。
+   * 該当する銘柄がなければ空。
+   */
+  public List<Point> range(String brand, int fromDay, int toDay) {
+    lock.readLock().lock();
+    try {
+      State s = state;
+      Integer id = s.brandIds.get(brand);
+      if (id == null || fromDay > toDay) return List.of();
+      Postings p = s.postings.get(id);
+      int lo = p.lowerBound(fromDay);
+      int hi = toDay == Integer.MAX_VALUE ? p.size : p.lowerBound(toDay + 1);
+      List<Point> out = new ArrayList<>(Math.max(0, hi - lo));
+      for (int i = lo; i < hi; i++) {
+        long ref = p.ref[i];
+        ByteBuffer m = s.segments.get((int) (ref >>> 32)).map;
+        int at = (int) ref;
+        out.add(new Point(p.asOf[i], m.getInt(at + 4), m.getLong(at + 8), m.getLong(at + 16)));
+      }
+      return out;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** asOf のスナップショットの全行（なければ空） */
+  public List<BondRow> snapshot(LocalDate asOf) {
+    lock.readLock().lock();
+    try {
+      State s = state;
+      Block b = s.snapshots.get((int) asOf.toEpochDay());
+      return b == null ? List.of() : s.rows(b);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public List<Snapshot> snapshots() {
+    lock.readLock().lock();
+    try {
+      List<Snapshot> out = new ArrayList<>(state.snapshots.size());
+      for (Block b : state.snapshots.values()) {
+        out.add(new Snapshot(LocalDate.ofEpochDay(b.asOf), b.seq, b.rows));
+      }
+      return out;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** 生きている行数 */
+  public long liveRows() {
+    lock.readLock().lock();
+    try {
+      return state.liveRows;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /** 置き換えられて compaction 待ちの行数 */
+  public long deadRows() {
+    lock.readLock().lock();
+    try {
+      return state.deadRows;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int segmentCount() {
+    lock.readLock().lock();
+    try {
+      return state.segments.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * 生きているスナップショットだけを基準日順に次の世代へ書き直す（置き換えられた行を捨て、セグメントを詰める）。
+   * 新しい世代を書き終えてから CURRENT を差し替えるので、途中で落ちても前の世代のまま開ける。
+   */
+  public void compact() throws IOException {
+    lock.writeLock().lock();
+    try {
+      State old = state;
+      long t = System.nanoTime();
+      State next = new State(old.generation + 1);
+      try {
+        for (Block b : old.snapshots.values()) {
+          next.append(b.asOf, b.seq, old.rows(b), segmentBytes, dir);
+        }
+        Path tmp = dir.resolve(CURRENT + ".tmp");
+        Files.writeString(tmp, Integer.toString(next.generation));
+        Files.move(tmp, dir.resolve(CURRENT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException | RuntimeException e) {
+        next.close();
+        for (Segment seg : next.segments) Files.deleteIfExists(seg.path);
+        throw e;
+      }
+      state = next;
+      old.close();
+      for (Segment seg : old.segments) {
+        try {
+          Files.deleteIfExists(seg.path);
+        } catch (IOException e) {
+          // 次に開いたときに消える
+          LOG.warn("Failed to delete old history segment {}: {}", seg.path, e.toString());
+        }
+      }
+      LOG.info("Price history compacted: {} dead rows dropped, {} -> {} segment(s) ({} ms)",
+          old.deadRows, old.segments.size(), next.segments.size(), (System.nanoTime() - t) / 1_000_000);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    lock.writeLock().lock();
+    try {
+      state.close();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  static String segmentName(int generation, int index) {
+    return String.format("history-%d-%06d.jsph", generation, index);
+  }
+
+  /* ---------- 内部状態（1 世代分） ---------- */
+
+  private static final class State {
+    final int generation;
+    final List<Segment> segments = new ArrayList<>();
+    final Map<String, Integer> brandIds = new HashMap<>();
+    final List<String> brands = new ArrayList<>();
+    final List<Postings> postings = new ArrayList<>();
+    final TreeMap<Integer, Block> snapshots = new TreeMap<>();
+    long seq;
+    long liveRows;
+    long deadRows;
+
+    State(int generation) {
+      this.generation = generation;
+    }
+
+    Segment addSegment(int index, Path path) throws IOException {
+      Segment seg = new Segment(segments.size(), index, path);
+      segments.add(seg);
+      return seg;
+    }
+
+    int defineBrand(String brand) {
+      int id = brands.size();
+      brands.add(brand);
+      brandIds.put(brand, id);
+      postings.add(new Postings());
+      return id;
+    }
+
+    /** 生きているブロックの行を銘柄ごとの索引に積む */
+    void index(Block b) {
+      ByteBuffer m = segments.get(b.segment).map;
+      for (int i = 0, at = b.rowsOffset; i < b.rows; i++, at += RECORD_BYTES) {
+        postings.get(m.getInt(at)).add(b.asOf, (long) b.segment << 32 | at);
+      }
+      liveRows += b.rows;
+    }
+
+    void unindex(Block b) {
+      ByteBuffer m = segments.get(b.segment).map;
+      for (int i = 0, at = b.rowsOffset; i < b.rows; i++, at += RECORD_BYTES) {
+        postings.get(m.getInt(at)).remove(b.asOf, (long) b.segment << 32 | at);
+      }
+      liveRows -= b.rows;
+      deadRows += b.rows;
+    }
+
+    List<BondRow> rows(Block b) {
+      ByteBuffer m = segments.get(b.segment).map;
+      List<BondRow> out = new ArrayList<>(b.rows);
+      for (int i = 0, at = b.rowsOffset; i < b.rows; i++, at += RECORD_BYTES) {
+        out.add(new BondRow(brands.get(m.getInt(at)), m.getInt(at + 4), m.getLong(at + 8), m.getLong(at + 16)));
+      }
+      return out;
+    }
+
+    void append(int asOf, long seq, Collection<BondRow> rows, long segmentBytes, Path dir) throws IOException {
+      // 新しい銘柄の ID は書き込みに成功してから確定させる
+      Map<String, Integer> added = new LinkedHashMap<>();
+      int dictBytes = 0;
+      for (BondRow r : rows) {
+        if (!brandIds.containsKey(r.brand()) && !added.containsKey(r.brand())) {
+          byte[] utf8 = r.brand().getBytes(StandardCharsets.UTF_8);
+          if (utf8.length > 0xFFFF) throw new IllegalArgumentException("Brand name too long: " + r.brand());
+          added.put(r.brand(), brands.size() + added.size());
+          dictBytes += 2 + utf8.length;
+        }
+      }
+      dictBytes = (dictBytes + 7) & ~7;
+      long size = (long) BLOCK_HEADER_BYTES + dictBytes + (long) RECORD_BYTES * rows.size();
+      if (size > Integer.MAX_VALUE) throw new IOException("Snapshot too large: " + size + " bytes");
+
+      ByteBuffer buf = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+      buf.position(BLOCK_HEADER_BYTES);
+      for (String b : added.keySet()) {
+        byte[] utf8 = b.getBytes(StandardCharsets.UTF_8);
+        buf.putShort((short) utf8.length).put(utf8);
+      }
+      buf.position(BLOCK_HEADER_BYTES + dictBytes);
+      for (BondRow r : rows) {
+        Integer id = brandIds.get(r.brand());
+        buf.putInt(id != null ? id : added.get(r.brand())).putInt(r.maturity()).putLong(r.coupon()).putLong(r.price());
+      }
+      CRC32C crc = new CRC32C();
+      crc.update(buf.array(), BLOCK_HEADER_BYTES, (int) size - BLOCK_HEADER_BYTES);
+      buf.putInt(0, MAGIC).putInt(4, asOf).putInt(8, rows.size()).putInt(12, added.size())
+          .putInt(16, dictBytes).putInt(20, (int) crc.getValue()).putLong(24, seq);
+
+      Segment seg = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+      if (seg == null || seg.size > 0 && seg.size + size > segmentBytes) {
+        int index = seg == null ? 0 : seg.index + 1;
+        seg = addSegment(index, dir.resolve(segmentName(generation, index)));
+      }
+      int offset = (int) seg.size;
+      seg.write(buf);
+
+      for (String b : added.keySet()) defineBrand(b);
+      Block block = new Block(seg.ordinal, offset + BLOCK_HEADER_BYTES + dictBytes, asOf, seq, rows.size());
+      Block prev = snapshots.put(asOf, block);
+      if (prev != null) unindex(prev);
+      index(block);
+      this.seq = Math.max(this.seq, seq);
+    }
+
+    void close() throws IOException {
+      for (Segment seg : segments) seg.close();
+    }
+  }
+
+  /** 1 スナップショット分の位置 */
+  private record Block(int segment, int rowsOffset, int asOf, long seq, int rows) {}
+
+  /** セグメント 1 つ。読み取りは mmap、追記は FileChannel（追記のたびに貼り直す） */
+  private static final class Segment {
+    final int ordinal;
+    final int index;
+    final Path path;
+    final FileChannel channel;
+    long size;
+    ByteBuffer map;
+
+    Segment(int ordinal, int index, Path path) throws IOException {
+      this.ordinal = ordinal;
+      this.index = index;
+      this.path = path;
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.size = channel.size();
+      if (size > Integer.MAX_VALUE) throw new IOException("History segment too large: " + path);
+      remap();
+    }
+
+    private void remap() throws IOException {
+      MappedByteBuffer m = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      map = m.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    void write(ByteBuffer block) throws IOException {
+      block.rewind();
+      try {
+        long at = size;
+        while (block.hasRemaining()) at += channel.write(block, at);
+        channel.force(false);
+      } catch (IOException e) {
+        // 書きかけを残さない
+        channel.truncate(size);
+        throw e;
+      }
+      size += block.capacity();
+      remap();
+    }
+
+    /** ブロックを検証しながら読み、銘柄定義を state に積む。last なら壊れた末尾を切り詰める */
+    void scan(State state, List<Block> out, boolean last) throws IOException {
+      ByteBuffer m = map;
+      int at = 0;
+      CRC32C crc = new CRC32C();
+      while (at < size) {
+        String problem = null;
+        int rows = 0;
+        int dictBytes = 0;
+        if (size - at < BLOCK_HEADER_BYTES || m.getInt(at) != MAGIC) {
+          problem = "bad header";
+        } else {
+          rows = m.getInt(at + 8);
+          dictBytes = m.getInt(at + 16);
+          long end = (long) at + BLOCK_HEADER_BYTES + dictBytes + (long) RECORD_BYTES * rows;
+          if (rows < 0 || dictBytes < 0 || end > size) {
+            problem = "truncated block";
+          } else {
+            crc.reset();
+            crc.update(m.slice(at + BLOCK_HEADER_BYTES, (int) end - at - BLOCK_HEADER_BYTES));
+            if ((int) crc.getValue() != m.getInt(at + 20)) problem = "checksum mismatch";
+          }
+        }
+        if (problem != null) {
+          if (!last) throw new IOException("Corrupt history segment " + path + " at " + at + ": " + problem);
+          LOG.warn("Truncating history segment {} at {} ({}, {} bytes dropped)", path, at, problem, size - at);
+          channel.truncate(at);
+          size = at;
+          remap();
+          return;
+        }
+        int newBrands = m.getInt(at + 12);
+        int p = at + BLOCK_HEADER_BYTES;
+        for (int i = 0; i < newBrands; i++) {
+          int len = Short.toUnsignedInt(m.getShort(p));
+          byte[] utf8 = new byte[len];
+          m.get(p + 2, utf8);
+          state.defineBrand(new String(utf8, StandardCharsets.UTF_8));
+          p += 2 + len;
+        }
+        long seq = m.getLong(at + 24);
+        out.add(new Block(ordinal, at + BLOCK_HEADER_BYTES + dictBytes, m.getInt(at + 4), seq, rows));
+        state.seq = Math.max(state.seq, seq);
+        at += BLOCK_HEADER_BYTES + dictBytes + RECORD_BYTES * rows;
+      }
+    }
+
+    void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  /** 1 銘柄の索引（基準日順の行の位置。位置は セグメント番号 << 32 | オフセット） */
+  private static final class Postings {
+    int[] asOf = new int[8];
+    long[] ref = new long[8];
+    int size;
+
+    void add(int day, long r) {
+      if (size == asOf.length) {
+        asOf = Arrays.copyOf(asOf, size * 2);
+        ref = Arrays.copyOf(ref, size * 2);
+      }
+      // 基準日順に追記されるのが普通なので末尾に置く。古い基準日が後から来たときだけずらして挿入する
+      int at = size == 0 || asOf[size - 1] <= day ? size : lowerBound(day + 1);
+      System.arraycopy(asOf, at, asOf, at + 1, size - at);
+      System.arraycopy(ref, at, ref, at + 1, size - at);
+      asOf[at] = day;
+      ref[at] = r;
+      size++;
+    }
+
+    void remove(int day, long r) {
+      for (int i = lowerBound(day); i < size && asOf[i] == day; i++) {
+        if (ref[i] == r) {
+          System.arraycopy(asOf, i + 1, asOf, i, size - i - 1);
+          System.arraycopy(ref, i + 1, ref, i, size - i - 1);
+          size--;
+          return;
+        }
+      }
+    }
+
+    /** 基準日が day 以上になる最初の位置 */
+    int lowerBound(int day) {
+      int lo = 0;
+      int hi = size;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (asOf[mid] < day) lo = mid + 1;
+        else hi = mid;
+      }
+      return lo;
+    }
+  }
+}
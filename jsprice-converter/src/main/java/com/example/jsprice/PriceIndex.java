@@ -0,0 +1,194 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondRow;
+import com.example.jsprice.processor.BondSeries;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 最新の変換結果を引くための不変インデックス（{@link PriceIndexService} が実行ごとに作り直して差し替える）。
+ * - 行は償還日順。償還日・利率・価格はプリミティブ配列、銘柄名は辞書（同じ名前は 1 つのインスタンス）と ID で持つ
+ * - 銘柄名 → 行、種別（{@link BondSeries}）→ 行の索引を持ち、償還日の範囲は二分探索で絞る
+ * 作成後は変更しないので、読み手はロックなしで同時に引ける。
+ */
+public final class PriceIndex {
+
+  private static final int[] NONE = new int[0];
+  private static final BondSeries[] SERIES = BondSeries.values();
+
+  public static final PriceIndex EMPTY = build(List.of(), null, null);
+
+  private final String source;
+  private final Instant loadedAt;
+  private final String[] dictionary;
+  private final int[] brandId;
+  private final int[] maturity;
+  private final long[] coupon;
+  private final long[] price;
+  private final byte[] series;
+  private final Map<String, int[]> byBrand;
+  private final int[][] bySeries;
+
+  private PriceIndex(String source, Instant loadedAt, String[] dictionary, int[] brandId, int[] maturity,
+                     long[] coupon, long[] price, byte[] series, Map<String, int[]> byBrand, int[][] bySeries) {
+    this.source = source;
+    this.loadedAt = loadedAt;
+    this.dictionary = dictionary;
+    this.brandId = brandId;
+    this.maturity = maturity;
+    this.coupon = coupon;
+    this.price = price;
+    this.series = series;
+    this.byBrand = byBrand;
+    this.bySeries = bySeries;
+  }
+
+  /** rows から作る（並びは問わない。償還日が同じ行は元の順） */
+  public static PriceIndex build(Collection<BondRow> rows, String source, Instant loadedAt) {
+    BondRow[] in = rows.toArray(new BondRow[0]);
+    int n = in.length;
+    // 償還日（上位 32 ビット）+ 元の位置 で並べる（ボクシングなしの安定ソート）
+    long[] order = new long[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = (long) in[i].maturity() << 32 | i;
+    }
+    Arrays.sort(order);
+
+    Map<String, Integer> ids = new HashMap<>();
+    String[] dict = new String[n];
+    int dictSize = 0;
+    int[] brandId = new int[n];
+    int[] maturity = new int[n];
+    long[] coupon = new long[n];
+    long[] price = new long[n];
+    byte[] series = new byte[n];
+    int[] brandCount = new int[n];
+    int[] seriesCount = new int[SERIES.length];
+    for (int k = 0; k < n; k++) {
+      BondRow r = in[(int) order[k]];
+      Integer id = ids.get(r.brand());
+      if (id == null) {
+        id = dictSize;
+        ids.put(r.brand(), id);
+        dict[dictSize++] = r.brand();
+      }
+      brandId[k] = id;
+      brandCount[id]++;
+      maturity[k] = r.maturity();
+      coupon[k] = r.coupon();
+      price[k] = r.price();
+      BondSeries s = BondSeries.of(r.brand());
+      series[k] = (byte) s.ordinal();
+      seriesCount[s.ordinal()]++;
+    }
+
+    // 索引の行番号は償還日順に並ぶ（範囲の二分探索にそのまま使える）
+    int[][] brandRows = new int[dictSize][];
+    for (int id = 0; id < dictSize; id++) brandRows[id] = new int[brandCount[id]];
+    int[][] seriesRows = new int[seriesCount.length][];
+    for (int s = 0; s < seriesCount.length; s++) seriesRows[s] = new int[seriesCount[s]];
+    int[] brandFill = new int[dictSize];
+    int[] seriesFill = new int[seriesCount.length];
+    for (int k = 0; k < n; k++) {
+      brandRows[brandId[k]][brandFill[brandId[k]]++] = k;
+      seriesRows[series[k]][seriesFill[series[k]]++] = k;
+    }
+    Map<String, int[]> byBrand = new HashMap<>(dictSize * 2);
+    for (int id = 0; id < dictSize; id++) byBrand.put(dict[id], brandRows[id]);
+
+    return new PriceIndex(source, loadedAt, Arrays.copyOf(dict, dictSize), brandId, maturity, coupon, price, series,
+        byBrand, seriesRows);
+  }
+
+  /** 読み込んだ CSV（未読み込みなら null） */
+  public String source() {
+    return source;
+  }
+
+  public Instant loadedAt() {
+    return loadedAt;
+  }
+
+  public int size() {
+    return maturity.length;
+  }
+
+  public int brandCount() {
+    return dictionary.length;
+  }
+
+  /**
+   * 条件に合う行番号を償還日順に返す（最大 limit 件）。
+   * brand・series が null、fromDay / toDay（エポック日、両端含む）が Integer.MIN_VALUE / MAX_VALUE なら絞らない。
+   */
+  public int[] find(String brand, BondSeries series, int fromDay, int toDay, int limit) {
+    if (fromDay > toDay || limit <= 0) return NONE;
+    // 候補は償還日順の行番号の並び（null = 全行。行番号 = 位置）
+    int[] candidates = null;
+    boolean checkSeries = false;
+    if (brand != null) {
+      candidates = byBrand.get(brand);
+      if (candidates == null) return NONE;
+      checkSeries = series != null;
+    } else if (series != null) {
+      candidates = bySeries[series.ordinal()];
+    }
+    int n = candidates == null ? maturity.length : candidates.length;
+    int lo = lowerBound(candidates, n, fromDay);
+    int hi = toDay == Integer.MAX_VALUE ? n : lowerBound(candidates, n, toDay + 1);
+
+    int[] out = new int[Math.max(0, Math.min(hi - lo, limit))];
+    int filled = 0;
+    for (int i = lo; i < hi && filled < out.length; i++) {
+      int row = candidates == null ? i : candidates[i];
+      if (checkSeries && this.series[row] != series.ordinal()) continue;
+      out[filled++] = row;
+    }
+    return filled == out.length ? out : Arrays.copyOf(out, filled);
+  }
+
+  /** rows（null なら 0..n-1）のうち、償還日が day 以上になる最初の位置 */
+  private int lowerBound(int[] rows, int n, int day) {
+    int lo = 0;
+    int hi = n;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      int m = maturity[rows == null ? mid : rows[mid]];
+      if (m < day) lo = mid + 1;
+      else hi = mid;
+    }
+    return lo;
+  }
+
+  public String brand(int row) {
+    return dictionary[brandId[row]];
+  }
+
+  /** 償還日（エポック日） */
+  public int maturity(int row) {
+    return maturity[row];
+  }
+
+  /** 表面利率（{@link BondRow#SCALE} 倍。空欄は {@link BondRow#NO_VALUE}） */
+  public long coupon(int row) {
+    return coupon[row];
+  }
+
+  /** 債券標準価格（{@link BondRow#SCALE} 倍） */
+  public long price(int row) {
+    return price[row];
+  }
+
+  public BondSeries series(int row) {
+    return SERIES[series[row]];
+  }
+
+  public BondRow row(int row) {
+    return new BondRow(brand(row), maturity[row], coupon[row], price[row]);
+  }
+}
@@ -0,0 +1,72 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondRow;
+import com.example.jsprice.processor.BondSeries;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 最新の価格を {@link PriceIndex} から引く（ファイルは読まない）。
+ * GET /converter/prices?brand=...&series=...&from=yyyy-MM-dd&to=yyyy-MM-dd&limit=...
+ * - brand  : 銘柄名の完全一致
+ * - series : 種別（FIXED_COUPON / 利付国債、INFLATION_INDEXED / 物価連動国債、STRIPS / 分離利息国債 など）
+ * - from/to: 償還日の範囲（両端含む）
+ * 条件はすべて任意で、組み合わせられる。結果は償還日順。
+ */
+@RestController
+public class PriceIndexController {
+
+  /** 1 銘柄分。利率・価格は CSV と同じ表記（末尾ゼロなし）、利率が空欄なら null */
+  public record Price(String brand, String series, LocalDate maturityDate, BigDecimal couponPct, BigDecimal priceJpy) {}
+
+  public record Prices(String source, Instant loadedAt, int count, List<Price> prices) {}
+
+  private final PriceIndexService priceIndexService;
+
+  public PriceIndexController(PriceIndexService priceIndexService) {
+    this.priceIndexService = priceIndexService;
+  }
+
+  @GetMapping("/converter/prices")
+  public Prices prices(@RequestParam(name = "brand", required = false) String brand,
+                       @RequestParam(name = "series", required = false) String series,
+                       @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                       @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                       @RequestParam(name = "limit", defaultValue = "1000") int limit) {
+    BondSeries s = null;
+    if (series != null) {
+      s = BondSeries.parse(series);
+      if (s == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown series: " + series);
+    }
+    PriceIndex index = priceIndexService.current();
+    if (index.source() == null) {
+      throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No conversion result loaded yet");
+    }
+    int[] rows = index.find(brand, s,
+        from == null ? Integer.MIN_VALUE : (int) from.toEpochDay(),
+        to == null ? Integer.MAX_VALUE : (int) to.toEpochDay(),
+        limit);
+    List<Price> prices = new ArrayList<>(rows.length);
+    for (int row : rows) {
+      prices.add(new Price(index.brand(row), index.series(row).label(),
+          LocalDate.ofEpochDay(index.maturity(row)), decimal(index.coupon(row)), decimal(index.price(row))));
+    }
+    return new Prices(index.source(), index.loadedAt(), prices.size(), prices);
+  }
+
+  static BigDecimal decimal(long scaled) {
+    if (scaled == BondRow.NO_VALUE) return null;
+    BigDecimal d = BigDecimal.valueOf(scaled, BondRow.DECIMALS).stripTrailingZeros();
+    return d.scale() < 0 ? d.setScale(0) : d;
+  }
+}
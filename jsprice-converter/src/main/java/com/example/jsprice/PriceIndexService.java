@@ -0,0 +1,78 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondCsvReader;
+import com.example.jsprice.processor.BondRow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 最新の変換結果の {@link PriceIndex} を持つ。
+ * - 起動時に前回の出力（app.output.dir / app.output.filename）があれば読み込む
+ * - 変換が成功するたびに、書き出した CSV から新しいインデックスを作って丸ごと差し替える（読み手は古い方を引き終えるまで使える）
+ * - 読み込みに失敗したら前のインデックスを残す（変換ジョブ自体は失敗にしない）
+ */
+@Component
+public class PriceIndexService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PriceIndexService.class);
+
+  private volatile PriceIndex current = PriceIndex.EMPTY;
+
+  @Autowired
+  public PriceIndexService(MeterRegistry registry,
+                           @Value("${app.output.dir:data/output}") String outputDir,
+                           @Value("${app.output.filename:jsprice_20250630.csv}") String outputFileName) {
+    this(registry, Path.of(outputDir, outputFileName));
+  }
+
+  PriceIndexService(MeterRegistry registry, Path initial) {
+    Gauge.builder("jsprice.index.rows", this, s -> s.current.size()).register(registry);
+    if (Files.isRegularFile(initial)) {
+      try {
+        load(initial);
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("Failed to load price index from {}: {}", initial, e.toString());
+      }
+    }
+  }
+
+  public PriceIndex current() {
+    return current;
+  }
+
+  /** csv を読み込んでインデックスを差し替える */
+  public PriceIndex load(Path csv) throws IOException {
+    long t = System.nanoTime();
+    List<BondRow> rows = new ArrayList<>();
+    BondCsvReader.read(csv, rows::add);
+    PriceIndex index = PriceIndex.build(rows, csv.toString(), Instant.now());
+    current = index;
+    LOG.info("Price index loaded: {} rows, {} brands from {} ({} ms)",
+        index.size(), index.brandCount(), csv, (System.nanoTime() - t) / 1_000_000);
+    return index;
+  }
+
+  /** 変換ルートの最後で呼ぶ（ヘッダ {@link Exchange#FILE_NAME_PRODUCED} の CSV を読み込む） */
+  public void refresh(Exchange exchange) {
+    String produced = exchange.getMessage().getHeader(Exchange.FILE_NAME_PRODUCED, String.class);
+    if (produced == null) return;
+    try {
+      load(Path.of(produced));
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to refresh price index from {}; keeping the previous one: {}", produced, e.toString());
+    }
+  }
+}
@@ -1,34 +1,59 @@
 package com.example.jsprice;
 
 import jakarta.servlet.http.HttpServletRequest;
-import org.apache.camel.ProducerTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 public class RunController {
 
-  private final ProducerTemplate producerTemplate;
+  private final ConversionJobs conversionJobs;
 
   // Lombokなしのコンストラクタ注入
-  public RunController(ProducerTemplate producerTemplate) {
-    this.producerTemplate = producerTemplate;
+  public RunController(ConversionJobs conversionJobs) {
+    this.conversionJobs = conversionJobs;
   }
 
+  /**
+   * 変換ジョブを受け付けて 202 とジョブ ID を返す（処理は待たない）。
+   * 状態は Location の GET /converter/jobs/{id} で見る。待ち行列が満杯なら 429 + Retry-After。
+   */
   @PostMapping("/converter/run")
-  public ResponseEntity<Void> run(HttpServletRequest request) {
+  public ResponseEntity<ConversionJobs.JobStatus> run(HttpServletRequest request,
+                                                      @RequestParam(name = "force", defaultValue = "false") boolean force) {
     String auth = request.getHeader("Authorization");
     Map<String, Object> headers = new HashMap<>();
     if (auth != null && !auth.isBlank()) {
       headers.put("Authorization", auth); // ← 受けたトークンをヘッダで渡す
     }
-    // producerTemplate.sendBodyAndHeaders("direct:run", null, headers);
-    // フル処理（PDFダウンロード→CSV化→保存）
-    producerTemplate.sendBodyAndHeaders("direct:runJob", null, headers);
-    return ResponseEntity.ok().build();
+    // force=true なら取得元が変わっていなくても変換し直す
+    headers.put(SourceChangeTracker.HEADER_FORCE, force);
+    // フル処理（PDFダウンロード→CSV化→保存）は ConversionJobs のワーカーで direct:runJob を通す
+    try {
+      ConversionJobs.JobStatus job = conversionJobs.submit(headers, force);
+      return ResponseEntity.accepted()
+          .location(URI.create("/converter/jobs/" + job.id()))
+          .body(job);
+    } catch (RejectedExecutionException e) {
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+          .header(HttpHeaders.RETRY_AFTER, String.valueOf(conversionJobs.retryAfterSeconds()))
+          .build();
+    }
+  }
+
+  @GetMapping("/converter/jobs/{id}")
+  public ResponseEntity<ConversionJobs.JobStatus> job(@PathVariable("id") String id) {
+    return ResponseEntity.of(conversionJobs.find(id));
   }
 }
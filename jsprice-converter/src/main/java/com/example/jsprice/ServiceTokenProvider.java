@@ -1,43 +1,142 @@
 package com.example.jsprice;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import io.netty.channel.ChannelOption;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * サービス用アクセストークン（client_credentials）のキャッシュ。
+ * - 取得中のリクエストは 1 本だけ。同時に来た呼び出しはすべて同じ結果を待つ（single-flight）
+ * - expires_in × refreshFraction を過ぎたら裏で取り直す。期限内なら呼び出し側は待たずに今のトークンを使う
+ * - 取り直しは予約しておくが、前回の取得以降に使われていなければ見送る（アイドル時に Keycloak を叩き続けない）
+ * - 取り直しに失敗しても、期限内なら今のトークンを使い続ける（次の呼び出しで再試行）
+ * - 接続・応答は timeout で打ち切る（発行側が応答しなくても呼び出し側が待ち続けない）
+ * ノンブロッキングな呼び出し側は {@link #getBearerTokenAsync()} を使う。
+ */
 @Component
-public class ServiceTokenProvider {
+public class ServiceTokenProvider implements DisposableBean {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ServiceTokenProvider.class);
+
+  /** 取得したトークン。refreshAt を過ぎたら取り直し、expiresAt（余裕分を引いた期限）を過ぎたら使わない */
+  private record Token(String value, Instant refreshAt, Instant expiresAt) {}
 
   private final WebClient webClient;
   private final String tokenUrl;
   private final String clientId;
   private final String clientSecret;
+  private final double refreshFraction;
+  private final Duration expirySkew;
+  private final Clock clock;
 
-  // 簡易キャッシュ
-  private final AtomicReference<String> cachedToken = new AtomicReference<>();
-  private volatile Instant expiresAt = Instant.EPOCH;
+  private final AtomicReference<Token> current = new AtomicReference<>();
+  private final AtomicReference<CompletableFuture<Token>> inFlight = new AtomicReference<>();
+  private volatile boolean usedSinceRefresh;
+  private volatile boolean closed;
 
+  @Autowired
   public ServiceTokenProvider(
       @Value("${app.keycloak.tokenUrl}") String tokenUrl,
       @Value("${app.keycloak.clientId}") String clientId,
-      @Value("${app.keycloak.clientSecret}") String clientSecret) {
-    this.webClient = WebClient.builder().build();
+      @Value("${app.keycloak.clientSecret}") String clientSecret,
+      @Value("${app.keycloak.refreshFraction:0.75}") double refreshFraction,
+      @Value("${app.keycloak.expirySkewSec:5}") long expirySkewSec,
+      @Value("${app.keycloak.timeoutSec:10}") long timeoutSec) {
+    this(tokenUrl, clientId, clientSecret, refreshFraction, Duration.ofSeconds(expirySkewSec),
+        Duration.ofSeconds(timeoutSec), Clock.systemUTC());
+  }
+
+  ServiceTokenProvider(String tokenUrl, String clientId, String clientSecret,
+                       double refreshFraction, Duration expirySkew, Duration timeout, Clock clock) {
+    HttpClient http = HttpClient.create()
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) Math.min(Integer.MAX_VALUE, timeout.toMillis()))
+        .responseTimeout(timeout);
+    this.webClient = WebClient.builder().clientConnector(new ReactorClientHttpConnector(http)).build();
     this.tokenUrl = tokenUrl;
     this.clientId = clientId;
     this.clientSecret = clientSecret;
+    this.refreshFraction = refreshFraction;
+    this.expirySkew = expirySkew;
+    this.clock = clock;
   }
 
+  /** 期限内のトークンがあればすぐ返す。なければ取得（同時呼び出しは 1 本の取得を共有）を待つ */
   public String getBearerToken() {
-    // 有効期限の少し前で更新（余裕5秒）
-    if (Instant.now().isBefore(expiresAt.minusSeconds(5))) {
-      return cachedToken.get();
+    try {
+      return getBearerTokenAsync().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      throw e;
+    }
+  }
+
+  public CompletableFuture<String> getBearerTokenAsync() {
+    usedSinceRefresh = true;
+    Token t = current.get();
+    Instant now = clock.instant();
+    if (t != null && now.isBefore(t.expiresAt())) {
+      if (!now.isBefore(t.refreshAt())) {
+        refresh(); // 待たない
+      }
+      return CompletableFuture.completedFuture(t.value());
+    }
+    return refresh().thenApply(Token::value);
+  }
+
+  /** 取得中ならそれを、なければ新しく取得を始めて返す */
+  private CompletableFuture<Token> refresh() {
+    while (true) {
+      CompletableFuture<Token> running = inFlight.get();
+      if (running != null) return running;
+      CompletableFuture<Token> mine = new CompletableFuture<>();
+      if (inFlight.compareAndSet(null, mine)) {
+        CompletableFuture<Token> fetching;
+        try {
+          fetching = fetch();
+        } catch (RuntimeException e) {
+          // tokenUrl が URI として不正なときなどは同期で投げる。取得中のまま残すと以降の呼び出しが永久に待つ
+          LOG.warn("Failed to obtain service token from {}: {}", tokenUrl, e.toString());
+          inFlight.compareAndSet(mine, null);
+          mine.completeExceptionally(e);
+          return mine;
+        }
+        fetching.whenComplete((token, error) -> {
+          if (error == null) {
+            current.set(token);
+            usedSinceRefresh = false;
+            scheduleRefresh(token);
+          } else {
+            LOG.warn("Failed to obtain service token from {}: {}", tokenUrl, error.toString());
+          }
+          inFlight.compareAndSet(mine, null);
+          if (error == null) mine.complete(token);
+          else mine.completeExceptionally(error);
+        });
+        return mine;
+      }
     }
-    Map<String, Object> resp = webClient.post()
+  }
+
+  private CompletableFuture<Token> fetch() {
+    return webClient.post()
         .uri(tokenUrl)
         .contentType(MediaType.APPLICATION_FORM_URLENCODED)
         .body(BodyInserters
@@ -46,12 +145,34 @@ public class ServiceTokenProvider {
             .with("client_secret", clientSecret))
         .retrieve()
         .bodyToMono(Map.class)
-        .block();
+        .map(this::toToken)
+        .toFuture();
+  }
+
+  private Token toToken(Map<?, ?> resp) {
+    Object accessToken = resp.get("access_token");
+    if (!(accessToken instanceof String s) || s.isEmpty()) {
+      throw new IllegalStateException("Token response has no access_token");
+    }
+    long expiresIn = resp.get("expires_in") instanceof Number n ? n.longValue() : 60;
+    Instant now = clock.instant();
+    return new Token(s,
+        now.plusMillis((long) (expiresIn * 1000 * refreshFraction)),
+        now.plusSeconds(expiresIn).minus(expirySkew));
+  }
+
+  /** refreshAt に取り直しを予約する。それまでに一度も使われなければ取り直さない */
+  private void scheduleRefresh(Token token) {
+    long delayMs = Math.max(0, Duration.between(clock.instant(), token.refreshAt()).toMillis());
+    CompletableFuture.runAsync(() -> {
+      if (!closed && usedSinceRefresh && current.get() == token) {
+        refresh();
+      }
+    }, CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS));
+  }
 
-    String accessToken = (String) resp.get("access_token");
-    Integer expiresIn = (Integer) resp.getOrDefault("expires_in", 60);
-    cachedToken.set(accessToken);
-    expiresAt = Instant.now().plusSeconds(expiresIn);
-    return accessToken;
+  @Override
+  public void destroy() {
+    closed = true;
   }
 }
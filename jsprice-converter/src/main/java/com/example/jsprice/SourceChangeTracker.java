@@ -0,0 +1,156 @@
+package com.example.jsprice;
+
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 取得元 PDF の変更検知。
+ * 最後に変換まで終えた応答の ETag / Last-Modified / Content-Length を URL ごとに覚えておき、
+ * - 次回の GET に If-None-Match / If-Modified-Since を付ける（条件付き GET）
+ * - 304、または 200 でもメタデータが前回と同じなら「変更なし」としてルートを打ち切る
+ * 記録は変換・保存が成功したときだけ更新するので、途中で失敗した回は次回やり直しになる。
+ * 再起動しても再変換しないよう、記録はプロパティファイルにも保存する。
+ */
+@Component
+public class SourceChangeTracker {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SourceChangeTracker.class);
+
+  /** true なら条件付き GET をせず必ず変換する（手動実行用） */
+  public static final String HEADER_FORCE = "forceRun";
+
+  private static final String PROP_URL = "jsprice.sourceUrl";
+  private static final String PROP_META = "jsprice.sourceMeta";
+
+  /** 応答のメタデータ（無いものは null / -1） */
+  public record SourceMeta(String etag, String lastModified, long length) {
+
+    /** 同じ内容とみなせるか。ETag があれば ETag で、なければ Last-Modified と長さで比べる */
+    boolean sameAs(SourceMeta other) {
+      if (other == null) return false;
+      if (etag != null && other.etag != null) return etag.equals(other.etag);
+      return lastModified != null && lastModified.equals(other.lastModified) && length >= 0 && length == other.length;
+    }
+  }
+
+  private final Map<String, SourceMeta> known = new ConcurrentHashMap<>();
+  private final Path stateFile;
+
+  public SourceChangeTracker(@Value("${app.poll.stateFile:data/output/.source-state.properties}") String stateFile) {
+    this.stateFile = stateFile.isBlank() ? null : Path.of(stateFile);
+    load();
+  }
+
+  /** HTTP 呼び出し前: 前回の記録があれば条件付きヘッダを付ける */
+  public void applyConditionalHeaders(Exchange exchange, String url) {
+    exchange.setProperty(PROP_URL, url);
+    exchange.getIn().removeHeader("If-None-Match");
+    exchange.getIn().removeHeader("If-Modified-Since");
+    if (Boolean.TRUE.equals(exchange.getIn().getHeader(HEADER_FORCE, Boolean.class))) {
+      return;
+    }
+    SourceMeta last = known.get(url);
+    if (last == null) return;
+    if (last.etag() != null) exchange.getIn().setHeader("If-None-Match", last.etag());
+    if (last.lastModified() != null) exchange.getIn().setHeader("If-Modified-Since", last.lastModified());
+  }
+
+  /**
+   * HTTP 呼び出し後: 変更なし（304 / 同一メタデータ）なら true。
+   * 変更なしの場合は応答本文を読まずに閉じ、接続をプールへ返す。
+   */
+  public boolean isUnchanged(Exchange exchange) {
+    String url = exchange.getProperty(PROP_URL, String.class);
+    int code = exchange.getIn().getHeader(Exchange.HTTP_RESPONSE_CODE, 200, Integer.class);
+    SourceMeta meta = new SourceMeta(
+        exchange.getIn().getHeader("ETag", String.class),
+        exchange.getIn().getHeader("Last-Modified", String.class),
+        exchange.getIn().getHeader(Exchange.CONTENT_LENGTH, -1L, Long.class));
+    exchange.setProperty(PROP_META, meta);
+
+    boolean force = Boolean.TRUE.equals(exchange.getIn().getHeader(HEADER_FORCE, Boolean.class));
+    boolean unchanged = code == 304 || (!force && meta.sameAs(known.get(url)));
+    if (unchanged) {
+      if (exchange.getIn().getBody() instanceof Closeable c) {
+        try {
+          c.close();
+        } catch (IOException e) {
+          LOG.debug("Failed to close unchanged response body", e);
+        }
+      }
+      exchange.getIn().setBody(null);
+    }
+    return unchanged;
+  }
+
+  /** 変換・保存まで成功したら呼ぶ。今回のメタデータを記録する */
+  public void commit(Exchange exchange) {
+    String url = exchange.getProperty(PROP_URL, String.class);
+    SourceMeta meta = exchange.getProperty(PROP_META, SourceMeta.class);
+    if (url == null || meta == null || (meta.etag() == null && meta.lastModified() == null)) {
+      return; // 比較できるものが無ければ覚えない（毎回変換）
+    }
+    if (!meta.equals(known.put(url, meta))) {
+      save();
+    }
+  }
+
+  SourceMeta lastKnown(String url) {
+    return known.get(url);
+  }
+
+  private void load() {
+    if (stateFile == null || !Files.isRegularFile(stateFile)) return;
+    Properties p = new Properties();
+    try (Reader r = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+      p.load(r);
+    } catch (IOException e) {
+      LOG.warn("Failed to read source state: {}", stateFile, e);
+      return;
+    }
+    for (String key : p.stringPropertyNames()) {
+      if (!key.endsWith(".length")) continue;
+      String url = key.substring(0, key.length() - ".length".length());
+      known.put(url, new SourceMeta(
+          p.getProperty(url + ".etag"),
+          p.getProperty(url + ".lastModified"),
+          Long.parseLong(p.getProperty(key))));
+    }
+  }
+
+  private synchronized void save() {
+    if (stateFile == null) return;
+    Properties p = new Properties();
+    known.forEach((url, m) -> {
+      if (m.etag() != null) p.setProperty(url + ".etag", m.etag());
+      if (m.lastModified() != null) p.setProperty(url + ".lastModified", m.lastModified());
+      p.setProperty(url + ".length", Long.toString(m.length()));
+    });
+    try {
+      Path dir = stateFile.toAbsolutePath().getParent();
+      Files.createDirectories(dir);
+      Path tmp = Files.createTempFile(dir, ".source-state", ".tmp");
+      try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        p.store(w, "jsprice source metadata");
+      }
+      Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOG.warn("Failed to write source state: {}", stateFile, e);
+    }
+  }
+}
@@ -1,18 +1,26 @@
 package com.example.jsprice.config;
 
 import org.apache.camel.builder.RouteBuilder;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
  * 検証用: 毎分 direct:runJob を叩く。
  * app.debug.everyMinute=true のときだけ登録される。
+ * （@ConditionalOnProperty だと fast-start プロファイルの AOT 処理でビルド時の値に固定されるので、起動時に見る）
  */
 @Component
-@ConditionalOnProperty(name = "app.debug.everyMinute", havingValue = "true")
 public class DebugEveryMinuteRoute extends RouteBuilder {
+
+  private final boolean enabled;
+
+  public DebugEveryMinuteRoute(@Value("${app.debug.everyMinute:false}") boolean enabled) {
+    this.enabled = enabled;
+  }
+
   @Override
   public void configure() {
+    if (!enabled) return;
     // cron: 秒 分 時 日 月 曜日（スペースは + でエスケープ）
     from("quartz://debug/everyMinute"
         + "?cron=0+*/1+*+?+*+*"
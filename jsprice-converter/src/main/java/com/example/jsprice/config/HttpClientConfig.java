@@ -0,0 +1,60 @@
+package com.example.jsprice.config;
+
+import org.apache.camel.component.http.HttpComponent;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Camel の http コンポーネント（pdf-host からの PDF 取得）用の接続プール。
+ * 実行ごとに接続を張り直さないよう、keep-alive の接続をプールして使い回す。
+ */
+@Configuration
+public class HttpClientConfig {
+
+  @Value("${app.http.maxTotal:20}")
+  int maxTotal;
+
+  @Value("${app.http.maxPerRoute:10}")
+  int maxPerRoute;
+
+  // プール内の接続の寿命・アイドル時の破棄（秒）
+  @Value("${app.http.timeToLiveSec:300}")
+  long timeToLiveSec;
+
+  @Value("${app.http.idleEvictSec:60}")
+  long idleEvictSec;
+
+  @Value("${app.http.connectTimeoutSec:5}")
+  long connectTimeoutSec;
+
+  @Bean
+  PoolingHttpClientConnectionManager httpConnectionManager() {
+    return PoolingHttpClientConnectionManagerBuilder.create()
+        .setMaxConnTotal(maxTotal)
+        .setMaxConnPerRoute(maxPerRoute)
+        .setDefaultConnectionConfig(ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.ofSeconds(connectTimeoutSec))
+            .setTimeToLive(TimeValue.ofSeconds(timeToLiveSec))
+            // しばらく使っていない接続は貸し出し前に生存確認する
+            .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+            .build())
+        .build();
+  }
+
+  /** bean 名 "http" で登録すると、ルートの http: エンドポイントはこのコンポーネントを使う */
+  @Bean("http")
+  HttpComponent http(PoolingHttpClientConnectionManager httpConnectionManager) {
+    HttpComponent http = new HttpComponent();
+    http.setClientConnectionManager(httpConnectionManager);
+    http.setHttpClientConfigurer(builder -> builder
+        .evictExpiredConnections()
+        .evictIdleConnections(TimeValue.ofSeconds(idleEvictSec)));
+    return http;
+  }
+}
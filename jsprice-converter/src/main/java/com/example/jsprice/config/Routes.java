@@ -1,7 +1,19 @@
 package com.example.jsprice.config;
 
+import com.example.jsprice.Backfill;
+import com.example.jsprice.ConversionCache;
+import com.example.jsprice.ConversionMetrics;
+import com.example.jsprice.FlightRecorderSupport;
+import com.example.jsprice.JobCoordinator;
+import com.example.jsprice.PriceHistoryService;
+import com.example.jsprice.PriceIndexService;
 import com.example.jsprice.ServiceTokenProvider;
+import com.example.jsprice.SourceChangeTracker;
+import com.example.jsprice.processor.ColumnarExportProcessor;
+import com.example.jsprice.processor.DeltaProcessor;
+import com.example.jsprice.processor.PdfDownloadProcessor;
 import com.example.jsprice.processor.PdfToCsvProcessor;
+import com.example.jsprice.processor.RowStage;
 import org.apache.camel.Exchange;
 import org.apache.camel.builder.RouteBuilder;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,14 +22,33 @@ import org.springframework.context.annotation.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+
 
 @Configuration
 public class Routes extends RouteBuilder {
 
   private final ServiceTokenProvider serviceTokenProvider;
+  private final SourceChangeTracker sourceChangeTracker;
+  private final ConversionCache conversionCache;
+  private final ConversionMetrics conversionMetrics;
+  private final FlightRecorderSupport flightRecorderSupport;
+  private final JobCoordinator jobCoordinator;
+  private final PriceIndexService priceIndexService;
+  private final PriceHistoryService priceHistoryService;
 
-  public Routes(ServiceTokenProvider serviceTokenProvider) {
+  public Routes(ServiceTokenProvider serviceTokenProvider, SourceChangeTracker sourceChangeTracker,
+                ConversionCache conversionCache, ConversionMetrics conversionMetrics,
+                FlightRecorderSupport flightRecorderSupport, JobCoordinator jobCoordinator,
+                PriceIndexService priceIndexService, PriceHistoryService priceHistoryService) {
     this.serviceTokenProvider = serviceTokenProvider;
+    this.sourceChangeTracker = sourceChangeTracker;
+    this.conversionCache = conversionCache;
+    this.conversionMetrics = conversionMetrics;
+    this.flightRecorderSupport = flightRecorderSupport;
+    this.jobCoordinator = jobCoordinator;
+    this.priceIndexService = priceIndexService;
+    this.priceHistoryService = priceHistoryService;
   }
 
   private static final Logger LOG = LoggerFactory.getLogger(Routes.class);
@@ -31,8 +62,56 @@ public class Routes extends RouteBuilder {
   @Value("${app.output.filename:jsprice_20250630.csv}")
   String outputFileName;
 
+  // true: CSV の隣に列指向バイナリ（.jspc）も置く
+  @Value("${app.output.columnar:false}")
+  boolean columnarOutput;
+
+  // true: 前回の出力との差分（jsprice_YYYYMMDD_delta.csv）を deltaDir に置く
+  @Value("${app.output.delta:false}")
+  boolean deltaOutput;
+
+  @Value("${app.output.deltaDir:data/delta}")
+  String deltaDir;
+
+  // ダウンロードした PDF の一時置き場（空なら java.io.tmpdir）
+  @Value("${app.download.tempDir:}")
+  String downloadTempDir;
+
+  // whole: 全ページ一括 / streaming: ページ窓ごとに抽出（大きな PDF 向け） / parallel: ページ範囲を並列抽出
+  @Value("${app.extract.mode:whole}")
+  String extractMode;
+
+  // text: PDFTextStripper で文字列化してから行を拾う / position: グリフ座標から直接列を切り出す
+  @Value("${app.extract.engine:text}")
+  String extractEngine;
+
+  @Value("${app.extract.windowPages:4}")
+  int extractWindowPages;
+
+  // 0 以下なら CPU コア数
+  @Value("${app.extract.parallelism:0}")
+  int extractParallelism;
+
+  // true: 完全に同じ行を 1 行にする
+  @Value("${app.extract.dedup:false}")
+  boolean extractDedup;
+
+  // extracted: 拾った順 / series_maturity: 種別 → 償還日の順
+  @Value("${app.extract.order:extracted}")
+  String extractOrder;
+
   @Override
   public void configure() {
+    PdfToCsvProcessor pdfToCsv = new PdfToCsvProcessor()
+        .mode(PdfToCsvProcessor.Mode.valueOf(extractMode.toUpperCase()))
+        .engine(PdfToCsvProcessor.Engine.valueOf(extractEngine.toUpperCase()))
+        .windowPages(extractWindowPages)
+        .parallelism(extractParallelism > 0
+            ? extractParallelism : Runtime.getRuntime().availableProcessors())
+        .dedup(extractDedup)
+        .order(RowStage.Order.valueOf(extractOrder.toUpperCase()))
+        .toFile(true);
+    DeltaProcessor delta = new DeltaProcessor(Path.of(deltaDir));
 
     // 例外時はエラーファイル退避＆ログ
     // onException(Exception.class)
@@ -51,6 +130,10 @@ public class Routes extends RouteBuilder {
     onException(Exception.class)
       .handled(true)
       .log("Processing failed: ${exception.message}")
+      // 出力先に書いた一時ファイル（CSV・差分）が残らないようにする
+      .process(PdfToCsvProcessor::discardWorkFile)
+      .process(DeltaProcessor::discard)
+      .process(flightRecorderSupport::checkRun)
       .setBody(simple("ERROR: ${exception.message}"))        // ← 先に本文を作る
       .process(e -> {
         e.getIn().setHeader(Exchange.FILE_NAME,
@@ -74,11 +157,16 @@ public class Routes extends RouteBuilder {
     ;
 
 
-    // 実処理本体：手動・定期どちらもここを通る
+    // 入口：手動・定期どちらもここを通る。重なった起動は JobCoordinator が 1 回（+ 次の 1 回）にまとめる
     from("direct:runJob")
+      .routeId("jsprice-runJob-trigger")
+      .process(jobCoordinator);
+
+    // 実処理本体（JobCoordinator からだけ呼ぶ）
+    from(JobCoordinator.RUN_ONCE)
       .routeId("jsprice-runJob")
       .process(exchange -> {
-          String token = serviceTokenProvider.getBearerToken();
+          String token = conversionMetrics.time(ConversionMetrics.STAGE_TOKEN, serviceTokenProvider::getBearerToken);
           exchange.getMessage().setHeader("Authorization", "Bearer " + token);
       })
       .setHeader(org.apache.camel.Exchange.HTTP_METHOD, constant("GET"))
@@ -91,13 +179,66 @@ public class Routes extends RouteBuilder {
             LOG.info("Outgoing Authorization header: {}", head);
         })
       .log("Downloading PDF from: " + sourceUrl)
-      .toD("{{app.sourceUrl}}?throwExceptionOnFailure=true")
-      .process(new PdfToCsvProcessor())
+      // 前回変換した版の ETag / Last-Modified で条件付き GET（304 は失敗扱いにしない）
+      .process(e -> sourceChangeTracker.applyConditionalHeaders(e, sourceUrl))
+      .process(conversionMetrics.start(ConversionMetrics.STAGE_DOWNLOAD))
+      // 応答はストリームのまま受け取り（disableStreamCache）、一時ファイルへ流し込んでから解析する
+      .toD("{{app.sourceUrl}}?throwExceptionOnFailure=true&disableStreamCache=true&okStatusCodeRange=200-299,304")
+      .filter(sourceChangeTracker::isUnchanged)
+        .log("Source PDF not modified (HTTP ${header.CamelHttpResponseCode}); skip conversion.")
+        // scheduler 起動時は「空振り」として backoff させる
+        .setProperty(Exchange.SCHEDULER_POLLED_MESSAGES, constant(false))
+        .stop()
+      .end()
+      .process(new PdfDownloadProcessor(downloadTempDir.isBlank() ? null : Path.of(downloadTempDir)))
+      .process(conversionMetrics::recordDownload)
+      // 同じ PDF（SHA-256）を同じ版の抽出器で変換済みなら、キャッシュの CSV を使う
+      .process(e -> conversionCache.lookup(e, pdfToCsv.cacheVersion()))
+      .choice()
+        .when(exchangeProperty(ConversionCache.PROP_HIT).isEqualTo(true))
+          .log("Conversion cache hit: ${exchangeProperty." + ConversionCache.PROP_KEY + "}")
+        .otherwise()
+          .process(pdfToCsv)
+          .process(conversionMetrics::recordExtract)
+          .process(conversionCache::store)
+      .end()
+      // 前回の出力は次の rename で上書きされるので、差分はここで作っておき、書き出し後に置く
+      .filter(e -> deltaOutput)
+        .process(delta)
+      .end()
       .log("Writing CSV to: ${header.outputDir}/${header.outputFileName}")
+      // body は outputDir 内に書き終えた一時ファイル（CamelFileLocalWorkPath 付き）なので、ここでは rename するだけ
+      .process(conversionMetrics.start(ConversionMetrics.STAGE_FILE_WRITE))
       .toD("file:${header.outputDir}?fileName=${header.outputFileName}")
+      .process(conversionMetrics.stop(ConversionMetrics.STAGE_FILE_WRITE))
+      .filter(e -> deltaOutput)
+        .process(delta::publish)
+      .end()
+      .filter(e -> columnarOutput)
+        .process(new ColumnarExportProcessor())
+      .end()
+      // GET /converter/prices が引くインデックスを新しい結果に差し替える
+      .process(priceIndexService::refresh)
+      // 実行日のスナップショットとして価格履歴に追記する（GET /converter/history）
+      .process(priceHistoryService::record)
+      .process(sourceChangeTracker::commit)
+      // 閾値より遅かった回は JFR の記録を書き出す（app.jfr.enabled=true のとき）
+      .process(flightRecorderSupport::checkRun)
       .log("Done.");
   
   
+    // バックフィル（Backfill）の 1 ファイル分のダウンロード。保存先・変換は Backfill 側で持つ
+    from(Backfill.DOWNLOAD)
+      .routeId("jsprice-backfill-download")
+      .process(exchange -> {
+          String token = conversionMetrics.time(ConversionMetrics.STAGE_TOKEN, serviceTokenProvider::getBearerToken);
+          exchange.getMessage().setHeader("Authorization", "Bearer " + token);
+      })
+      .setHeader(org.apache.camel.Exchange.HTTP_METHOD, constant("GET"))
+      .log("Backfill downloading PDF from: ${exchangeProperty." + Backfill.PROP_URL + "}")
+      .toD("${exchangeProperty." + Backfill.PROP_URL + "}?throwExceptionOnFailure=true&disableStreamCache=true")
+      .process(Backfill::saveBody);
+
     from("quartz://debug/everyMinute?cron=0+*+*+*+*+?")
       .routeId("debugEveryMinute")
       .log("DEBUG quartz fired: every minute (Asia/Tokyo)")
@@ -0,0 +1,34 @@
+package com.example.jsprice.config;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 取得元 PDF の更新を短い間隔で見に行く。
+ * direct:runJob は条件付き GET で変更が無ければすぐ打ち切る（空振り扱い）ので、
+ * 空振りが backoffIdleThreshold 回続いたら backoffMultiplier 回分ポーリングを飛ばして間隔を空ける。
+ * 新しい版を拾った（または失敗した）時点で元の間隔に戻る。
+ * app.poll.enabled=true のときだけ登録される（{@link DebugEveryMinuteRoute} と同じく起動時に見る）。
+ */
+@Component
+public class SourcePollRoute extends RouteBuilder {
+
+  private final boolean enabled;
+
+  public SourcePollRoute(@Value("${app.poll.enabled:false}") boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @Override
+  public void configure() {
+    if (!enabled) return;
+    from("scheduler:sourcePoll"
+        + "?delay={{app.poll.intervalMs:60000}}"
+        + "&initialDelay={{app.poll.initialDelayMs:10000}}"
+        + "&backoffIdleThreshold={{app.poll.backoffIdleThreshold:3}}"
+        + "&backoffMultiplier={{app.poll.backoffMultiplier:5}}")
+      .routeId("sourcePoll")
+      .to("direct:runJob");
+  }
+}
@@ -0,0 +1,204 @@
+package com.example.jsprice.processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * {@link BondColumnarWriter} が書いた .jspc を mmap して読む。
+ * 読み込み時に行う処理はヘッダの検証だけで、値は列ブロックから位置指定で直接取り出す（テキスト解析・行オブジェクトの生成なし）。
+ * 銘柄名は辞書 ID（{@link #brandId}）で比較・集計でき、文字列が要るときだけ {@link #brand} で復号する（辞書の展開は初回だけ、文字列化は ID ごとに 1 回）。
+ * 読み取り専用なので、複数スレッドから同時に読んでよい。
+ */
+public final class BondColumnarReader {
+
+  private final ByteBuffer buf;
+  private final int rows;
+  private final int dictSize;
+  private final int idWidth;
+  private final int dictOffset;
+  private final int dictEncoding;
+  private final int brandOffset;
+  private final int maturityOffset;
+  private final int couponOffset;
+  private final int priceOffset;
+  private final String[] brands;
+  // 辞書の本体（開始位置の表 + blob）。deflate されていれば最初に引いたときに展開する
+  private volatile ByteBuffer dict;
+
+  public static BondColumnarReader open(Path file) throws IOException {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      // マッピングはチャネルを閉じても有効
+      return new BondColumnarReader(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+    }
+  }
+
+  public BondColumnarReader(ByteBuffer buffer) throws IOException {
+    this.buf = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    if (buf.capacity() < BondColumnarWriter.HEADER_BYTES || buf.getInt(0) != BondColumnarWriter.MAGIC) {
+      throw new IOException("Not a JS Price columnar file");
+    }
+    int version = buf.getInt(4);
+    if (version != BondColumnarWriter.VERSION) {
+      throw new IOException("Unsupported columnar version: " + version);
+    }
+    rows = buf.getInt(8);
+    dictSize = buf.getInt(12);
+    idWidth = buf.getInt(16);
+    dictEncoding = buf.getInt(20);
+    dictOffset = offset(24);
+    brandOffset = offset(32);
+    maturityOffset = offset(40);
+    couponOffset = offset(48);
+    priceOffset = offset(56);
+    if (idWidth != 1 && idWidth != 2 && idWidth != 4
+        || dictEncoding != BondColumnarWriter.DICT_RAW && dictEncoding != BondColumnarWriter.DICT_DEFLATE
+        || dictSize < 0 || rows < 0
+        // 各列・辞書がファイルに収まっているか（切り詰められた・壊れたファイルを位置指定の読み取りまで持ち込まない）
+        || !fits(brandOffset, (long) idWidth * rows)
+        || !fits(maturityOffset, 4L * rows)
+        || !fits(couponOffset, 8L * rows)
+        || !fits(priceOffset, 8L * rows)
+        || !fits(dictOffset, 4)
+        || !fits(dictOffset + 4L, Integer.toUnsignedLong(buf.getInt(dictOffset)))
+        || dictEncoding == BondColumnarWriter.DICT_RAW && buf.getInt(dictOffset) < 4L * (dictSize + 1)) {
+      throw new IOException("Corrupt columnar file");
+    }
+    brands = new String[dictSize];
+  }
+
+  private int offset(int at) throws IOException {
+    long v = buf.getLong(at);
+    if (v < BondColumnarWriter.HEADER_BYTES || v > buf.capacity()) throw new IOException("Corrupt columnar file");
+    return (int) v;
+  }
+
+  private boolean fits(long offset, long length) {
+    return offset + length <= buf.capacity();
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  /** 異なる銘柄名の数 */
+  public int dictionarySize() {
+    return dictSize;
+  }
+
+  public int brandId(int row) {
+    check(row);
+    return switch (idWidth) {
+      case 1 -> Byte.toUnsignedInt(buf.get(brandOffset + row));
+      case 2 -> Short.toUnsignedInt(buf.getShort(brandOffset + 2 * row));
+      default -> buf.getInt(brandOffset + 4 * row);
+    };
+  }
+
+  /** 辞書 ID -> 銘柄名 */
+  public String dictionaryEntry(int id) {
+    if (id < 0 || id >= dictSize) throw new IndexOutOfBoundsException("dictionary id " + id + " of " + dictSize);
+    String s = brands[id];
+    if (s == null) {
+      ByteBuffer d = dictionary();
+      int blob = 4 * (dictSize + 1);
+      int start = d.getInt(4 * id);
+      int end = d.getInt(4 * (id + 1));
+      if (start < 0 || end < start || (long) blob + end > d.capacity()) {
+        throw new IllegalStateException("Corrupt columnar dictionary");
+      }
+      byte[] utf8 = new byte[end - start];
+      d.get(blob + start, utf8);
+      // 競合しても同じ値が入るだけ
+      brands[id] = s = new String(utf8, StandardCharsets.UTF_8);
+    }
+    return s;
+  }
+
+  private ByteBuffer dictionary() {
+    ByteBuffer d = dict;
+    if (d == null) {
+      synchronized (this) {
+        d = dict;
+        if (d == null) {
+          int stored = buf.getInt(dictOffset);
+          ByteBuffer body = buf.slice(dictOffset + 4, stored).order(ByteOrder.LITTLE_ENDIAN);
+          d = dictEncoding == BondColumnarWriter.DICT_DEFLATE ? inflate(body) : body;
+          if (d.capacity() < 4L * (dictSize + 1)) throw new IllegalStateException("Corrupt columnar dictionary");
+          dict = d;
+        }
+      }
+    }
+    return d;
+  }
+
+  private ByteBuffer inflate(ByteBuffer deflated) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(deflated);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(deflated.remaining() * 4);
+      byte[] chunk = new byte[8192];
+      while (!inflater.finished()) {
+        int n = inflater.inflate(chunk);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalStateException("Corrupt columnar dictionary");
+        }
+        out.write(chunk, 0, n);
+      }
+      return ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupt columnar dictionary", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  public String brand(int row) {
+    int id = brandId(row);
+    if (id < 0 || id >= dictSize) throw new IllegalStateException("Corrupt columnar file: brand id " + id + " of " + dictSize);
+    return dictionaryEntry(id);
+  }
+
+  /** 償還日（エポック日） */
+  public int maturity(int row) {
+    check(row);
+    return buf.getInt(maturityOffset + 4 * row);
+  }
+
+  public LocalDate maturityDate(int row) {
+    return LocalDate.ofEpochDay(maturity(row));
+  }
+
+  /** 表面利率（{@link BondRow#SCALE} 倍。空欄は {@link BondRow#NO_VALUE}） */
+  public long coupon(int row) {
+    check(row);
+    return buf.getLong(couponOffset + 8 * row);
+  }
+
+  /** 債券標準価格（{@link BondRow#SCALE} 倍） */
+  public long price(int row) {
+    check(row);
+    return buf.getLong(priceOffset + 8 * row);
+  }
+
+  public BondRow row(int row) {
+    return new BondRow(brand(row), maturity(row), coupon(row), price(row));
+  }
+
+  public void forEach(Consumer<BondRow> out) {
+    for (int i = 0; i < rows; i++) out.accept(row(i));
+  }
+
+  private void check(int row) {
+    if (row < 0 || row >= rows) throw new IndexOutOfBoundsException("row " + row + " of " + rows);
+  }
+}
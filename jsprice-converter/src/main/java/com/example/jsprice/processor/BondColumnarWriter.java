@@ -0,0 +1,187 @@
+package com.example.jsprice.processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+
+/**
+ * {@link BondRow} を列指向のバイナリ（.jspc）で書き出す。読むのは {@link BondColumnarReader}。
+ * 下流はテキストを解析せず、ファイルを mmap して列を配列として読める。
+ *
+ * レイアウト（リトルエンディアン、各ブロックは 8 バイト境界）
+ * <pre>
+ *  0  int  magic "JSPC"        4  int  version
+ *  8  int  rows               12  int  dictionary size
+ * 16  int  brand id width（1 / 2 / 4 バイト）  20  int  dictionary encoding（0 = そのまま / 1 = deflate）
+ * 24  long dictionary offset  32  long brand offset
+ * 40  long maturity offset    48  long coupon offset    56  long price offset
+ * dictionary : int 格納バイト数 + 本体。本体は int[size + 1]（各銘柄名の UTF-8 開始位置。blob 先頭から）+ UTF-8 の blob
+ *              JS Price の銘柄名は回号以外がほぼ同じなので、小さくなるときは本体を deflate する
+ *              （展開は読み手が最初に銘柄名を引いたときに 1 回だけ。数値の列は展開なしで mmap のまま読める）
+ * brand      : 辞書 ID（id width バイト × rows）
+ * maturity   : int[rows]（エポック日）
+ * coupon     : long[rows]（{@link BondRow#SCALE} 倍。空欄は {@link BondRow#NO_VALUE}）
+ * price      : long[rows]（同上）
+ * </pre>
+ * 列はブロックごとに書くので、行は close までメモリ上の配列に溜める（1 行あたり 24 バイト + 辞書）。
+ */
+public class BondColumnarWriter implements Closeable, Consumer<BondRow> {
+
+  public static final int MAGIC = 'J' | 'S' << 8 | 'P' << 16 | 'C' << 24;
+  public static final int VERSION = 1;
+  public static final String EXTENSION = ".jspc";
+
+  static final int HEADER_BYTES = 64;
+  static final int DICT_RAW = 0;
+  static final int DICT_DEFLATE = 1;
+
+  private final Path target;
+  private final Map<String, Integer> ids = new HashMap<>();
+  private final List<String> dictionary = new ArrayList<>();
+  private int[] brand = new int[256];
+  private int[] maturity = new int[256];
+  private long[] coupon = new long[256];
+  private long[] price = new long[256];
+  private int rows;
+  private boolean closed;
+
+  public BondColumnarWriter(Path target) {
+    this.target = target;
+  }
+
+  public void write(BondRow row) {
+    if (rows == brand.length) {
+      int n = rows * 2;
+      brand = Arrays.copyOf(brand, n);
+      maturity = Arrays.copyOf(maturity, n);
+      coupon = Arrays.copyOf(coupon, n);
+      price = Arrays.copyOf(price, n);
+    }
+    brand[rows] = ids.computeIfAbsent(row.brand(), b -> {
+      dictionary.add(b);
+      return dictionary.size() - 1;
+    });
+    maturity[rows] = row.maturity();
+    coupon[rows] = row.coupon();
+    price[rows] = row.price();
+    rows++;
+  }
+
+  @Override
+  public void accept(BondRow row) {
+    write(row);
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  /** ファイルに書き出す（1 回だけ） */
+  @Override
+  public void close() throws IOException {
+    if (closed) return;
+    closed = true;
+
+    int dictSize = dictionary.size();
+    byte[] dict = dictionaryBytes();
+    byte[] deflated = deflate(dict);
+    int encoding = deflated.length < dict.length ? DICT_DEFLATE : DICT_RAW;
+    if (encoding == DICT_DEFLATE) dict = deflated;
+    int idWidth = dictSize <= 0x100 ? 1 : dictSize <= 0x10000 ? 2 : 4;
+
+    long dictOffset = HEADER_BYTES;
+    long brandOffset = align(dictOffset + 4 + dict.length);
+    long maturityOffset = align(brandOffset + (long) idWidth * rows);
+    long couponOffset = align(maturityOffset + 4L * rows);
+    long priceOffset = align(couponOffset + 8L * rows);
+    long size = priceOffset + 8L * rows;
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Columnar file too large: " + size + " bytes");
+    }
+
+    ByteBuffer buf = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+    buf.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(dictSize).putInt(idWidth).putInt(encoding)
+        .putLong(dictOffset).putLong(brandOffset).putLong(maturityOffset).putLong(couponOffset).putLong(priceOffset);
+
+    buf.position((int) dictOffset);
+    buf.putInt(dict.length).put(dict);
+
+    buf.position((int) brandOffset);
+    for (int i = 0; i < rows; i++) {
+      switch (idWidth) {
+        case 1 -> buf.put((byte) brand[i]);
+        case 2 -> buf.putShort((short) brand[i]);
+        default -> buf.putInt(brand[i]);
+      }
+    }
+    buf.position((int) maturityOffset);
+    buf.asIntBuffer().put(maturity, 0, rows);
+    buf.position((int) couponOffset);
+    buf.asLongBuffer().put(coupon, 0, rows);
+    buf.position((int) priceOffset);
+    buf.asLongBuffer().put(price, 0, rows);
+
+    buf.rewind();
+    try (FileChannel ch = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buf.hasRemaining()) ch.write(buf);
+    }
+  }
+
+  /** 辞書の本体（開始位置の表 + UTF-8 の blob） */
+  private byte[] dictionaryBytes() {
+    int dictSize = dictionary.size();
+    ByteArrayOutputStream blob = new ByteArrayOutputStream();
+    ByteBuffer starts = ByteBuffer.allocate(4 * (dictSize + 1)).order(ByteOrder.LITTLE_ENDIAN);
+    for (String b : dictionary) {
+      starts.putInt(blob.size());
+      blob.writeBytes(b.getBytes(StandardCharsets.UTF_8));
+    }
+    starts.putInt(blob.size());
+    ByteArrayOutputStream out = new ByteArrayOutputStream(starts.capacity() + blob.size());
+    out.writeBytes(starts.array());
+    out.writeBytes(blob.toByteArray());
+    return out.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] data) {
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try {
+      deflater.setInput(data);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+      byte[] chunk = new byte[8192];
+      while (!deflater.finished()) {
+        out.write(chunk, 0, deflater.deflate(chunk));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static long align(long offset) {
+    return (offset + 7) & ~7L;
+  }
+
+  /** {@link BondCsvWriter} が書いた CSV を .jspc に変換し、行数を返す */
+  public static int fromCsv(Path csv, Path target) throws IOException {
+    try (BondColumnarWriter out = new BondColumnarWriter(target)) {
+      BondCsvReader.read(csv, out);
+      return out.rows();
+    }
+  }
+}
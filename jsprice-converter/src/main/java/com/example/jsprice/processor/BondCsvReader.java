@@ -0,0 +1,75 @@
+package com.example.jsprice.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * {@link BondCsvWriter} が書いた CSV を {@link BondRow} に読み戻す（.jspc の作成・価格インデックスの読み込み用）。
+ * 書き手が決まっている CSV だけを対象にするので、汎用の CSV パーサではない（クォートされうるのは brand だけ、項目内の改行なし）。
+ */
+public final class BondCsvReader {
+
+  private BondCsvReader() {}
+
+  /** csv の行を順に out に渡し、行数を返す */
+  public static int read(Path csv, Consumer<BondRow> out) throws IOException {
+    try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+      String header = in.readLine();
+      if (header == null || !BondCsvWriter.HEADER.equals(header + "\n")) {
+        throw new IOException("Not a JS Price CSV: " + csv);
+      }
+      int rows = 0;
+      for (String line = in.readLine(); line != null; line = in.readLine()) {
+        if (line.isEmpty()) continue;
+        out.accept(parseLine(line));
+        rows++;
+      }
+      return rows;
+    }
+  }
+
+  /** brand,maturity_date,coupon_pct,price_jpy の 1 行（brand だけクォートされうる） */
+  public static BondRow parseLine(String line) {
+    String brand;
+    int i;
+    if (line.startsWith("\"")) {
+      StringBuilder sb = new StringBuilder();
+      i = 1;
+      while (true) {
+        int q = line.indexOf('"', i);
+        if (q < 0) throw new IllegalArgumentException("Unterminated quote: " + line);
+        sb.append(line, i, q);
+        if (q + 1 < line.length() && line.charAt(q + 1) == '"') {
+          sb.append('"');
+          i = q + 2;
+        } else {
+          i = q + 1;
+          break;
+        }
+      }
+      brand = sb.toString();
+    } else {
+      i = line.indexOf(',');
+      if (i < 0) throw new IllegalArgumentException("Malformed CSV row: " + line);
+      brand = line.substring(0, i);
+    }
+    // i は brand 直後の ','
+    int c1 = line.indexOf(',', i + 1);
+    int c2 = c1 < 0 ? -1 : line.indexOf(',', c1 + 1);
+    if (i >= line.length() || line.charAt(i) != ',' || c2 < 0 || c1 - i - 1 != 10) {
+      throw new IllegalArgumentException("Malformed CSV row: " + line);
+    }
+    int d = i + 1;
+    int maturity = BondRow.epochDay(
+        Integer.parseInt(line, d, d + 4, 10),
+        Integer.parseInt(line, d + 5, d + 7, 10),
+        Integer.parseInt(line, d + 8, d + 10, 10));
+    long coupon = c2 == c1 + 1 ? BondRow.NO_VALUE : BondRow.parseScaled(line, c1 + 1, c2);
+    long price = BondRow.parseScaled(line, c2 + 1, line.length());
+    return new BondRow(brand, maturity, coupon, price);
+  }
+}
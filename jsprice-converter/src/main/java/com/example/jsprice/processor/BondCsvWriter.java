@@ -0,0 +1,88 @@
+package com.example.jsprice.processor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * {@link BondRow} を CSV（LF 終端）で書き出す。
+ * クォート規則は従来の opencsv CSVWriter（既定設定・必要時のみクォート）と同じ：
+ * 区切り/引用符/改行を含む項目だけを "..." で囲み、" は "" にする。
+ * 1 行分のバッファを使い回すので、行ごとの割り当ては発生しない。
+ * 抽出側の行シンク（Consumer）としても渡せる（IOException は UncheckedIOException に包む）。
+ */
+public class BondCsvWriter implements Closeable, Consumer<BondRow> {
+
+  public static final String HEADER = "brand,maturity_date,coupon_pct,price_jpy\n";
+
+  private final Writer out;
+  private final StringBuilder buf = new StringBuilder(128);
+  private char[] chars = new char[128];
+
+  public BondCsvWriter(Writer out) {
+    this.out = out;
+  }
+
+  public void writeHeader() throws IOException {
+    out.write(HEADER);
+  }
+
+  public void write(BondRow row) throws IOException {
+    buf.setLength(0);
+    appendField(buf, row.brand());
+    buf.append(',');
+    BondRow.appendDate(buf, row.maturity());
+    buf.append(',');
+    BondRow.appendScaled(buf, row.coupon());
+    buf.append(',');
+    BondRow.appendScaled(buf, row.price());
+    buf.append('\n');
+
+    int n = buf.length();
+    if (chars.length < n) chars = new char[n * 2];
+    buf.getChars(0, n, chars, 0);
+    out.write(chars, 0, n);
+  }
+
+  @Override
+  public void accept(BondRow row) {
+    try {
+      write(row);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  private static void appendField(StringBuilder sb, String s) {
+    if (!needsQuote(s)) {
+      sb.append(s);
+      return;
+    }
+    sb.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"') sb.append('"');
+      sb.append(c);
+    }
+    sb.append('"');
+  }
+
+  private static boolean needsQuote(String s) {
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,147 @@
+package com.example.jsprice.processor;
+
+/**
+ * 抽出した 1 銘柄分の行。
+ * - maturity : 償還日（1970-01-01 からの日数）
+ * - coupon   : 表面利率（{@link #SCALE} 倍した固定小数点。空欄は {@link #NO_VALUE}）
+ * - price    : 債券標準価格（同上）
+ * 文字列化は CSV に出すときだけ行い、出力は従来（BigDecimal#stripTrailingZeros / yyyy-MM-dd）と同じ表記になる。
+ */
+public record BondRow(String brand, int maturity, long coupon, long price) {
+
+  /** 小数点以下 6 桁まで保持（JS Price は 4 桁） */
+  public static final int DECIMALS = 6;
+  public static final long SCALE = 1_000_000L;
+
+  /** 表面利率が空欄 */
+  public static final long NO_VALUE = Long.MIN_VALUE;
+
+  public boolean hasCoupon() {
+    return coupon != NO_VALUE;
+  }
+
+  /* ---------- 償還日 ---------- */
+
+  /** 年月日 -> エポック日（日付の妥当性は {@link #isValidDate} で確認しておくこと） */
+  public static int epochDay(int year, int month, int day) {
+    // Howard Hinnant の days_from_civil
+    int y = month <= 2 ? year - 1 : year;
+    int era = Math.floorDiv(y, 400);
+    int yoe = y - era * 400;
+    int mp = (month + 9) % 12;
+    int doy = (153 * mp + 2) / 5 + day - 1;
+    int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+    return era * 146097 + doe - 719468;
+  }
+
+  public static boolean isValidDate(int year, int month, int day) {
+    return month >= 1 && month <= 12 && day >= 1 && day <= lengthOfMonth(year, month);
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    return switch (month) {
+      case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+      case 4, 6, 9, 11 -> 30;
+      default -> 31;
+    };
+  }
+
+  /** エポック日を yyyy-MM-dd で追記 */
+  public static void appendDate(StringBuilder sb, int epochDay) {
+    // Howard Hinnant の civil_from_days
+    int z = epochDay + 719468;
+    int era = Math.floorDiv(z, 146097);
+    int doe = z - era * 146097;
+    int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+    int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+    int mp = (5 * doy + 2) / 153;
+    int day = doy - (153 * mp + 2) / 5 + 1;
+    int month = mp < 10 ? mp + 3 : mp - 9;
+    int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+    appendPadded(sb, year, 4);
+    sb.append('-');
+    appendPadded(sb, month, 2);
+    sb.append('-');
+    appendPadded(sb, day, 2);
+  }
+
+  private static void appendPadded(StringBuilder sb, int v, int width) {
+    for (int p = width == 4 ? 1000 : 10; p > 1 && v < p; p /= 10) {
+      sb.append('0');
+    }
+    sb.append(v);
+  }
+
+  /* ---------- 数値 ---------- */
+
+  /**
+   * "1,234.5600" のような数値文字列（[0-9.,]、全角数字可）を固定小数点に変換する。
+   * カンマは無視。小数点が 2 つ以上・数字なし・{@link #DECIMALS} 桁を超える端数は NumberFormatException。
+   */
+  public static long parseScaled(CharSequence s, int from, int to) {
+    long intPart = 0;
+    long frac = 0;
+    int fracDigits = 0;
+    boolean dot = false;
+    boolean anyDigit = false;
+    for (int i = from; i < to; i++) {
+      char c = s.charAt(i);
+      if (c == ',') continue;
+      if (c == '.') {
+        if (dot) throw new NumberFormatException("Multiple decimal points: " + s.subSequence(from, to));
+        dot = true;
+        continue;
+      }
+      int d = digit(c);
+      if (d < 0) throw new NumberFormatException("Not a number: " + s.subSequence(from, to));
+      anyDigit = true;
+      if (!dot) {
+        intPart = Math.addExact(Math.multiplyExact(intPart, 10), d);
+      } else if (fracDigits < DECIMALS) {
+        frac = frac * 10 + d;
+        fracDigits++;
+      } else if (d != 0) {
+        throw new NumberFormatException("Too many decimal places: " + s.subSequence(from, to));
+      }
+    }
+    if (!anyDigit) throw new NumberFormatException("Not a number: " + s.subSequence(from, to));
+    for (int i = fracDigits; i < DECIMALS; i++) frac *= 10;
+    return Math.addExact(Math.multiplyExact(intPart, SCALE), frac);
+  }
+
+  /** 固定小数点を末尾ゼロなしで追記（"99.2936" / "2" / "100"）。NO_VALUE は何も書かない */
+  public static void appendScaled(StringBuilder sb, long v) {
+    if (v == NO_VALUE) return;
+    if (v < 0) {
+      sb.append('-');
+      v = -v;
+    }
+    sb.append(v / SCALE);
+    long frac = v % SCALE;
+    if (frac == 0) return;
+
+    int digits = DECIMALS;
+    while (frac % 10 == 0) {
+      frac /= 10;
+      digits--;
+    }
+    sb.append('.');
+    for (long p = pow10(digits - 1); p > frac; p /= 10) {
+      sb.append('0');
+    }
+    sb.append(frac);
+  }
+
+  private static long pow10(int n) {
+    long p = 1;
+    for (int i = 0; i < n; i++) p *= 10;
+    return p;
+  }
+
+  static int digit(char c) {
+    if (c >= '0' && c <= '9') return c - '0';
+    if (c >= '０' && c <= '９') return c - '０';
+    return -1;
+  }
+}
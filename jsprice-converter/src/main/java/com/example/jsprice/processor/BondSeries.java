@@ -0,0 +1,41 @@
+package com.example.jsprice.processor;
+
+/**
+ * 銘柄名から判定する国債の種別。宣言順が並べ替え（{@link RowStage.Order#SERIES_MATURITY}）の順。
+ */
+public enum BondSeries {
+  FIXED_COUPON("利付国債"),
+  INFLATION_INDEXED("物価連動国債"),
+  CLIMATE_TRANSITION("クライメート・トランジション利付国債"),
+  STRIPS("分離利息国債"),
+  OTHER("その他");
+
+  private static final BondSeries[] VALUES = values();
+
+  private final String label;
+
+  BondSeries(String label) {
+    this.label = label;
+  }
+
+  public String label() {
+    return label;
+  }
+
+  public static BondSeries of(String brand) {
+    // クライメート・トランジション利付国債は「利付国債」も含むので先に見る
+    if (brand.contains(CLIMATE_TRANSITION.label)) return CLIMATE_TRANSITION;
+    if (brand.contains(INFLATION_INDEXED.label)) return INFLATION_INDEXED;
+    if (brand.contains(STRIPS.label)) return STRIPS;
+    if (brand.contains(FIXED_COUPON.label)) return FIXED_COUPON;
+    return OTHER;
+  }
+
+  /** 列挙名（FIXED_COUPON）またはラベル（利付国債）から引く。該当なしは null */
+  public static BondSeries parse(String s) {
+    for (BondSeries v : VALUES) {
+      if (v.name().equalsIgnoreCase(s) || v.label.equals(s)) return v;
+    }
+    return null;
+  }
+}
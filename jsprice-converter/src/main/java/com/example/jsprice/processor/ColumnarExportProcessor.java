@@ -0,0 +1,57 @@
+package com.example.jsprice.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 書き出し済みの CSV（ヘッダ {@link Exchange#FILE_NAME_PRODUCED}）の隣に、同じ内容の列指向バイナリ（.jspc）を置く。
+ * 変換結果キャッシュのヒット時も同じように作れるよう、行ではなく出力済みの CSV から作る。
+ * 同じディレクトリの一時ファイルに書いてから rename するので、下流が書きかけを読むことはない。
+ */
+public class ColumnarExportProcessor implements Processor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ColumnarExportProcessor.class);
+
+  /** 書き出した .jspc のパス */
+  public static final String PROP_OUTPUT = "jsprice.columnarOutput";
+
+  @Override
+  public void process(Exchange exchange) throws Exception {
+    String produced = exchange.getMessage().getHeader(Exchange.FILE_NAME_PRODUCED, String.class);
+    if (produced == null) {
+      throw new IllegalStateException("Header '" + Exchange.FILE_NAME_PRODUCED + "' is required to export columnar output.");
+    }
+    Path target = export(Path.of(produced));
+    exchange.setProperty(PROP_OUTPUT, target.toString());
+  }
+
+  /** csv の隣に .jspc を書き、そのパスを返す */
+  public static Path export(Path csv) throws IOException {
+    Path target = columnarPath(csv);
+    Path tmp = Files.createTempFile(target.toAbsolutePath().getParent(), ".jsprice-", ".jspc.tmp");
+    int rows;
+    try {
+      rows = BondColumnarWriter.fromCsv(csv, tmp);
+      Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    LOG.info("Columnar output: {} ({} rows, {} bytes; csv {} bytes)", target, rows, Files.size(target), Files.size(csv));
+    return target;
+  }
+
+  /** jsprice_20250630.csv -> jsprice_20250630.jspc */
+  public static Path columnarPath(Path csv) {
+    String name = csv.getFileName().toString();
+    String base = name.toLowerCase().endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+    return csv.resolveSibling(base + BondColumnarWriter.EXTENSION);
+  }
+}
@@ -0,0 +1,285 @@
+package com.example.jsprice.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 前回の出力との差分 CSV（jsprice_20250630_delta.csv）を差分用のディレクトリ（app.output.deltaDir）に置く。
+ * - 出力ディレクトリは後段（csv-postprocessor）が *.csv を拾って .done/ へ移すので、差分も前回分もそこには置かない
+ * - 前回分は、書き出しのたびに差分用ディレクトリの .previous/ に全件の CSV を写しておいたもの
+ *   （同じ名前があればそれ、なければ .previous/ で一番新しいもの。どちらもなければ全行 added）。
+ *   出力名は日付入りなので、写したら .previous/ のそれ以外の CSV は消す（残すのは最後の 1 件だけ）
+ * - 変換直後（全件の CSV を rename する前）に {@link #process} で差分を一時ファイルに書き、
+ *   書き出し後に {@link #publish} で差分を置いて前回分を今回の CSV に差し替える
+ *   （前回分が読めなければ、その回の差分は作らない）
+ * - 銘柄名 + 償還日で突き合わせ、added / removed / changed（利率か価格が違う）の行だけを change 列付きで書く
+ *   （removed は前回の値。並びは今回の順 → removed は前回の順）
+ * 前回の行だけをプリミティブ配列とオープンアドレス法の表に載せ、今回の CSV は 1 行ずつ流すので、時間・メモリとも行数に線形。
+ */
+public class DeltaProcessor implements Processor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DeltaProcessor.class);
+
+  public static final String HEADER = "change," + BondCsvWriter.HEADER;
+  public static final String SUFFIX = "_delta.csv";
+  /** 差分用ディレクトリの中の、前回分の置き場 */
+  public static final String PREVIOUS_DIR = ".previous";
+
+  /** 置く前の差分の一時ファイル */
+  public static final String PROP_PENDING = "jsprice.deltaPending";
+  /** 置いた差分のパス */
+  public static final String PROP_OUTPUT = "jsprice.deltaOutput";
+
+  public static final String ADDED = "added";
+  public static final String REMOVED = "removed";
+  public static final String CHANGED = "changed";
+
+  /** 件数 */
+  public record Counts(int added, int removed, int changed, int unchanged) {}
+
+  private final Path dir;
+
+  public DeltaProcessor(Path dir) {
+    this.dir = dir;
+  }
+
+  @Override
+  public void process(Exchange exchange) throws Exception {
+    String work = exchange.getIn().getHeader(Exchange.FILE_LOCAL_WORK_PATH, String.class);
+    String fileName = exchange.getIn().getHeader("outputFileName", String.class);
+    if (work == null || fileName == null) {
+      throw new IllegalStateException("Headers '" + Exchange.FILE_LOCAL_WORK_PATH
+          + "' and 'outputFileName' are required to write a delta.");
+    }
+    Files.createDirectories(dir);
+    Path previous = previous(dir.resolve(PREVIOUS_DIR), fileName).orElse(null);
+    Path tmp = Files.createTempFile(dir, ".jsprice-", ".delta.tmp");
+    try {
+      Counts c = diff(previous, Path.of(work), tmp);
+      LOG.info("Delta against {}: {} added, {} removed, {} changed, {} unchanged",
+          previous == null ? "(none)" : previous, c.added(), c.removed(), c.changed(), c.unchanged());
+    } catch (IOException | RuntimeException e) {
+      // 差分が作れなくても変換は失敗にしない。前回の差分が今回のものに見えないよう消しておく
+      LOG.warn("Skipping delta against {}: {}", previous, e.toString());
+      Files.deleteIfExists(tmp);
+      Files.deleteIfExists(deltaPath(dir.resolve(fileName)));
+      return;
+    }
+    exchange.setProperty(PROP_PENDING, tmp.toString());
+  }
+
+  /**
+   * 全件の CSV（ヘッダ {@link Exchange#FILE_NAME_PRODUCED}）を書き出した後に呼ぶ。
+   * 差分を置き、その CSV を次回の前回分として .previous/ に写す（差分を作らなかった回も写す）。古い前回分は消す。
+   */
+  public void publish(Exchange exchange) throws IOException {
+    String produced = exchange.getMessage().getHeader(Exchange.FILE_NAME_PRODUCED, String.class);
+    if (produced == null) return;
+    Path csv = Path.of(produced);
+    String pending = exchange.getProperty(PROP_PENDING, String.class);
+    if (pending != null) {
+      Path target = deltaPath(dir.resolve(csv.getFileName()));
+      Files.move(Path.of(pending), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      exchange.removeProperty(PROP_PENDING);
+      exchange.setProperty(PROP_OUTPUT, target.toString());
+    }
+    Path previousDir = Files.createDirectories(dir.resolve(PREVIOUS_DIR));
+    Path tmp = Files.createTempFile(previousDir, ".jsprice-", ".csv.tmp");
+    try {
+      Files.copy(csv, tmp, StandardCopyOption.REPLACE_EXISTING);
+      Files.move(tmp, previousDir.resolve(csv.getFileName()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      // 次回の差分が全行 added になるだけなので、変換は失敗にしない
+      LOG.warn("Failed to keep {} as the previous output for deltas: {}", csv, e.toString());
+      Files.deleteIfExists(tmp);
+      return;
+    }
+    prune(previousDir, csv.getFileName().toString());
+  }
+
+  /** .previous/ の keep 以外の CSV（前の日付の前回分）を消す。消せなくても次回また消すだけ */
+  private static void prune(Path previousDir, String keep) {
+    try (Stream<Path> files = Files.list(previousDir)) {
+      files.filter(p -> {
+            String n = p.getFileName().toString();
+            return isBaseline(n) && !n.equals(keep);
+          })
+          .forEach(p -> {
+            try {
+              Files.deleteIfExists(p);
+            } catch (IOException e) {
+              LOG.warn("Failed to remove old previous output {}: {}", p, e.toString());
+            }
+          });
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to prune {}: {}", previousDir, e.toString());
+    }
+  }
+
+  /** .previous/ に写した前回分か（一時ファイルは . で始まる） */
+  private static boolean isBaseline(String name) {
+    return name.endsWith(".csv") && !name.startsWith(".");
+  }
+
+  /** 置く前に失敗したときの後始末（onException から呼ぶ） */
+  public static void discard(Exchange exchange) throws IOException {
+    String pending = exchange.getProperty(PROP_PENDING, String.class);
+    if (pending == null) return;
+    Files.deleteIfExists(Path.of(pending));
+    exchange.removeProperty(PROP_PENDING);
+  }
+
+  /** jsprice_20250630.csv -> jsprice_20250630_delta.csv */
+  public static Path deltaPath(Path csv) {
+    String name = csv.getFileName().toString();
+    String base = name.toLowerCase().endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+    return csv.resolveSibling(base + SUFFIX);
+  }
+
+  /** 前回分（同じ名前があればそれ、なければ dir で一番新しい CSV） */
+  static Optional<Path> previous(Path dir, String fileName) throws IOException {
+    Path same = dir.resolve(fileName);
+    if (Files.isRegularFile(same)) return Optional.of(same);
+    if (!Files.isDirectory(dir)) return Optional.empty();
+    try (Stream<Path> files = Files.list(dir)) {
+      return files
+          .filter(p -> isBaseline(p.getFileName().toString()) && Files.isRegularFile(p))
+          .max(Comparator.comparing(DeltaProcessor::modified));
+    }
+  }
+
+  private static FileTime modified(Path p) {
+    try {
+      return Files.getLastModifiedTime(p);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** previous（null なら空）と current の差分を target に書く */
+  public static Counts diff(Path previous, Path current, Path target) throws IOException {
+    Previous prev = new Previous();
+    if (previous != null) BondCsvReader.read(previous, prev::add);
+    prev.buildTable();
+
+    int[] counts = new int[4];
+    try (Writer w = Files.newBufferedWriter(target, StandardCharsets.UTF_8);
+         BondCsvWriter csv = new BondCsvWriter(w)) {
+      w.write(HEADER);
+      BondCsvReader.read(current, row -> {
+        int i = prev.match(row.brand(), row.maturity());
+        if (i < 0) {
+          emit(w, csv, ADDED, row);
+          counts[0]++;
+        } else if (prev.coupon[i] != row.coupon() || prev.price[i] != row.price()) {
+          emit(w, csv, CHANGED, row);
+          counts[2]++;
+        } else {
+          counts[3]++;
+        }
+      });
+      for (int i = 0; i < prev.size; i++) {
+        if (!prev.matched[i]) {
+          emit(w, csv, REMOVED, prev.row(i));
+          counts[1]++;
+        }
+      }
+    }
+    return new Counts(counts[0], counts[1], counts[2], counts[3]);
+  }
+
+  private static void emit(Writer w, BondCsvWriter csv, String change, BondRow row) {
+    try {
+      w.write(change);
+      w.write(',');
+      csv.write(row);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * 前回の行（列ごとの配列）と、銘柄名 + 償還日 → 行のオープンアドレス法（線形探査）の表。
+   * 同じキーが複数あれば、まだ突き合わせていない最初の行を返す。
+   */
+  private static final class Previous {
+    String[] brand = new String[256];
+    int[] maturity = new int[256];
+    long[] coupon = new long[256];
+    long[] price = new long[256];
+    int[] hash = new int[256];
+    boolean[] matched;
+    int size;
+    // 行番号 + 1（0 = 空き）
+    int[] table;
+    int mask;
+
+    void add(BondRow r) {
+      if (size == brand.length) {
+        int n = size * 2;
+        brand = Arrays.copyOf(brand, n);
+        maturity = Arrays.copyOf(maturity, n);
+        coupon = Arrays.copyOf(coupon, n);
+        price = Arrays.copyOf(price, n);
+        hash = Arrays.copyOf(hash, n);
+      }
+      brand[size] = r.brand();
+      maturity[size] = r.maturity();
+      coupon[size] = r.coupon();
+      price[size] = r.price();
+      hash[size] = hash(r.brand(), r.maturity());
+      size++;
+    }
+
+    void buildTable() {
+      // 負荷率 0.5 以下
+      int cap = Integer.highestOneBit(Math.max(4, size * 2 - 1)) << 1;
+      table = new int[cap];
+      mask = cap - 1;
+      matched = new boolean[size];
+      for (int i = 0; i < size; i++) {
+        int s = hash[i] & mask;
+        while (table[s] != 0) s = (s + 1) & mask;
+        table[s] = i + 1;
+      }
+    }
+
+    /** 突き合わせた前回の行番号（なければ -1） */
+    int match(String b, int m) {
+      int h = hash(b, m);
+      for (int s = h & mask; table[s] != 0; s = (s + 1) & mask) {
+        int i = table[s] - 1;
+        if (!matched[i] && hash[i] == h && maturity[i] == m && brand[i].equals(b)) {
+          matched[i] = true;
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    BondRow row(int i) {
+      return new BondRow(brand[i], maturity[i], coupon[i], price[i]);
+    }
+
+    private static int hash(String b, int m) {
+      int h = b.hashCode() * 31 + m;
+      // 下位ビットで引くので上位を混ぜる
+      return h ^ (h >>> 16);
+    }
+  }
+}
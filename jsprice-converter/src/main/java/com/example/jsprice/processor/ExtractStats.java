@@ -0,0 +1,104 @@
+package com.example.jsprice.processor;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 1 回の変換で掛かった段ごとの時間と件数。PdfToCsvProcessor が Exchange のプロパティに入れる。
+ * - extract : PDFBox でのテキスト/グリフ抽出（PDF の読み込みを含む）
+ * - match   : テキスト→行（RowScanner / PositionRowBuilder）
+ * - csv     : 行→CSV の書き出し
+ * 時間はそれぞれ排他（入れ子になっている段の時間は外側から差し引く）。
+ * PARALLEL では各スレッドの時間の合計になるので、実時間より長くなる。
+ */
+public final class ExtractStats {
+
+  private final LongAdder extractNanos = new LongAdder();
+  private final LongAdder matchNanos = new LongAdder();
+  private final LongAdder csvNanos = new LongAdder();
+  private final LongAdder pages = new LongAdder();
+  private final LongAdder rows = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder duplicates = new LongAdder();
+
+  public long extractNanos() {
+    return extractNanos.sum();
+  }
+
+  public long matchNanos() {
+    return matchNanos.sum();
+  }
+
+  public long csvNanos() {
+    return csvNanos.sum();
+  }
+
+  public long pages() {
+    return pages.sum();
+  }
+
+  /** CSV に書いた行数 */
+  public long rows() {
+    return rows.sum();
+  }
+
+  /** 行の形だったが値が不正で捨てた件数 */
+  public long rejected() {
+    return rejected.sum();
+  }
+
+  /** 重複として捨てた行数（{@link RowStage}） */
+  public long duplicates() {
+    return duplicates.sum();
+  }
+
+  void addExtract(long nanos) {
+    extractNanos.add(nanos);
+  }
+
+  void addMatch(long nanos) {
+    matchNanos.add(nanos);
+  }
+
+  void addCsv(long nanos) {
+    csvNanos.add(nanos);
+  }
+
+  void addPages(int n) {
+    pages.add(n);
+  }
+
+  void addRejected(int n) {
+    rejected.add(n);
+  }
+
+  void addDuplicates(long n) {
+    duplicates.add(n);
+  }
+
+  /** 行の書き出しを計測しつつ数える */
+  Consumer<BondRow> csv(Consumer<BondRow> out) {
+    return row -> {
+      long t = System.nanoTime();
+      out.accept(row);
+      csvNanos.add(System.nanoTime() - t);
+      rows.increment();
+    };
+  }
+
+  /**
+   * 座標ベースの行組み立て（グリフ抽出の中から呼ばれる）を match として計測する。
+   * 中で書いた CSV の時間は除く。呼び出しに掛かった全時間は inner に足すので、外側の抽出時間から差し引くこと。
+   */
+  Consumer<List<String>> match(Consumer<List<String>> builder, LongAdder inner) {
+    return tokens -> {
+      long csv0 = csvNanos.sum();
+      long t = System.nanoTime();
+      builder.accept(tokens);
+      long elapsed = System.nanoTime() - t;
+      matchNanos.add(elapsed - (csvNanos.sum() - csv0));
+      inner.add(elapsed);
+    };
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.jsprice.processor;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 変換処理の JFR（Java Flight Recorder）イベント。JMC では「JS Price」カテゴリに出る。
+ * 記録していないときは begin/commit がほぼ何もしない（JIT で消える）ので、常に埋め込んでおいてよい。
+ * スタックトレースは取らない（件数が多い PageExtract でも記録のコストを抑える）。
+ */
+public final class JfrEvents {
+
+  private JfrEvents() {}
+
+  @Name("jsprice.PageExtract")
+  @Label("Page Extract")
+  @Category({"JS Price", "Extract"})
+  @Description("1 ページ分の PDFBox 抽出（フォント読み込み・グリフ処理を含む）")
+  @StackTrace(false)
+  public static class PageExtract extends Event {
+    @Label("Page")
+    public int page;
+    @Label("Glyphs")
+    public int glyphs;
+    @Label("Engine")
+    public String engine;
+  }
+
+  @Name("jsprice.RowMatch")
+  @Label("Row Match")
+  @Category({"JS Price", "Extract"})
+  @Description("抽出テキスト 1 塊分の RowScanner 走査（旧 cleanup + ROW 正規表現）")
+  @StackTrace(false)
+  public static class RowMatch extends Event {
+    @Label("Characters")
+    public int chars;
+    @Label("Rows")
+    public int rows;
+    @Label("Rejected")
+    public int rejected;
+  }
+
+  @Name("jsprice.CsvFlush")
+  @Label("CSV Flush")
+  @Category({"JS Price", "Output"})
+  @Description("CSV 出力のフラッシュ（toFile では一時ファイルへの書き込み）")
+  @StackTrace(false)
+  public static class CsvFlush extends Event {
+    @Label("Rows")
+    public long rows;
+  }
+
+  @Name("jsprice.Conversion")
+  @Label("Conversion")
+  @Category({"JS Price"})
+  @Description("PdfToCsvProcessor 1 回分（PDF → CSV）")
+  @StackTrace(false)
+  public static class Conversion extends Event {
+    @Label("Mode")
+    public String mode;
+    @Label("Engine")
+    public String engine;
+    @Label("Pages")
+    public long pages;
+    @Label("Rows")
+    public long rows;
+    @Label("Rejected")
+    public long rejected;
+    @Label("Duplicates")
+    public long duplicates;
+  }
+
+  @Name("jsprice.RouteStage")
+  @Label("Route Stage")
+  @Category({"JS Price", "Route"})
+  @Description("変換ジョブのルート上の 1 段（トークン取得・ダウンロード・ファイル書き込みなど）")
+  @StackTrace(false)
+  public static class RouteStage extends Event {
+    @Label("Stage")
+    public String stage;
+    @Label("Exchange ID")
+    public String exchangeId;
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+  }
+}
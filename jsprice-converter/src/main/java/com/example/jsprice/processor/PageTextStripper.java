@@ -0,0 +1,47 @@
+package com.example.jsprice.processor;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+
+/**
+ * TEXT エンジン用の PDFTextStripper（位置順）。
+ * ページごとに {@link JfrEvents.PageExtract}（ページ番号・グリフ数・所要時間）を出す。
+ */
+class PageTextStripper extends PDFTextStripper {
+
+  private JfrEvents.PageExtract event;
+  private int glyphs;
+
+  PageTextStripper() throws IOException {
+    setSortByPosition(true);
+  }
+
+  @Override
+  protected void startPage(PDPage page) throws IOException {
+    event = new JfrEvents.PageExtract();
+    event.begin();
+    glyphs = 0;
+    super.startPage(page);
+  }
+
+  @Override
+  protected void processTextPosition(TextPosition text) {
+    glyphs++;
+    super.processTextPosition(text);
+  }
+
+  @Override
+  protected void endPage(PDPage page) throws IOException {
+    super.endPage(page);
+    event.end();
+    if (event.shouldCommit()) {
+      event.page = getCurrentPageNo();
+      event.glyphs = glyphs;
+      event.engine = "TEXT";
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.jsprice.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.support.SynchronizationAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * HTTP 応答の PDF を一時ファイルへ流し込み、body をそのファイル（java.io.File）に差し替える。
+ * - http エンドポイントは disableStreamCache=true で呼ぶこと（応答をストリームのまま受け取る）
+ * - 書き込みは NIO チャネル間の転送（FileChannel#transferFrom）で行い、PDF 全体をヒープに載せない
+ * - 読み切った時点でストリームを閉じるので、接続はすぐにプールへ戻る
+ * - 一時ファイルは Exchange 完了時（成功・失敗とも）に削除する
+ * - 転送しながら SHA-256 を計算し、ヘッダ {@value #HEADER_SHA256} に入れる（変換結果キャッシュのキー）
+ */
+public class PdfDownloadProcessor implements Processor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PdfDownloadProcessor.class);
+
+  /** ダウンロードした PDF の SHA-256（16 進小文字） */
+  public static final String HEADER_SHA256 = "pdfSha256";
+
+  /** 1 回の transferFrom で転送する最大バイト数 */
+  private static final long CHUNK = 1 << 20;
+
+  private final Path tempDir;
+
+  /** tempDir が null の場合は java.io.tmpdir */
+  public PdfDownloadProcessor(Path tempDir) {
+    this.tempDir = tempDir;
+  }
+
+  @Override
+  public void process(Exchange exchange) throws Exception {
+    InputStream in = exchange.getIn().getBody(InputStream.class);
+    if (in == null) {
+      throw new IllegalArgumentException("No PDF content in exchange body.");
+    }
+
+    Path tmp = tempDir == null
+        ? Files.createTempFile("jsprice-", ".pdf")
+        : Files.createTempFile(Files.createDirectories(tempDir), "jsprice-", ".pdf");
+    exchange.getExchangeExtension().addOnCompletion(new SynchronizationAdapter() {
+      @Override
+      public void onDone(Exchange e) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException ex) {
+          LOG.warn("Failed to delete temp PDF: {}", tmp, ex);
+        }
+      }
+    });
+
+    MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+    long size = transfer(new DigestInputStream(in, sha256), tmp);
+    if (size == 0) {
+      throw new IllegalArgumentException("No PDF content in exchange body.");
+    }
+    LOG.info("Downloaded PDF: {} bytes -> {}", size, tmp);
+
+    exchange.getIn().setBody(tmp.toFile());
+    exchange.getIn().setHeader(Exchange.FILE_LENGTH, size);
+    exchange.getIn().setHeader(HEADER_SHA256, HexFormat.of().formatHex(sha256.digest()));
+  }
+
+  private static long transfer(InputStream in, Path target) throws IOException {
+    try (ReadableByteChannel src = Channels.newChannel(in);
+         FileChannel dst = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      long pos = 0;
+      long n;
+      // ブロッキングなチャネルでは 0 が返るのは EOF のときだけ
+      while ((n = dst.transferFrom(src, pos, CHUNK)) > 0) {
+        pos += n;
+      }
+      return pos;
+    }
+  }
+}
@@ -1,179 +1,530 @@
 package com.example.jsprice.processor;
 
-import com.opencsv.CSVWriter;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStream;
 import java.io.StringWriter;
-import java.math.BigDecimal;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * JS Price PDF から「銘柄名, 償還日, 表面利率, 債券標準価格」を抽出してCSV化
  * - ページ見出し（償還日/表面利率/債券標準価格/銘柄名…）は除去
  * - 1行に複数銘柄が連結されたケースを銘柄の“きっかけ語”で分割
  * - 表面利率が空欄の銘柄も許容（空文字で出力）
+ * テキストから行への変換は {@link RowScanner} が 1 パスで行う。
  * 出力列: brand, maturity_date, coupon_pct, price_jpy
+ *
+ * 抽出モード
+ * - WHOLE     : 全ページを 1 つの文字列にしてから行を拾う（従来動作）
+ * - STREAMING : 数ページずつ抽出→行化し、ページ文字列は都度捨てる。
+ *               PDFBox のバッファは一時ファイルに逃がすので、ページ数によらずヒープ使用量が一定
+ * - PARALLEL  : ページ範囲ごとに抽出→行化を fork-join プールで並列実行し、ページ順にマージ。
+ *               範囲境界を跨ぐ銘柄は境界部分だけ連結して拾い直すので、出力は WHOLE と同一
+ *
+ * 抽出エンジン（各モードと組み合わせ可）
+ * - TEXT     : PDFTextStripper（sortByPosition）で文字列化してから {@link RowScanner} で行を拾う（従来動作）
+ * - POSITION : {@link TextPositionRowExtractor} がグリフ座標から直接列を切り出す。
+ *              全グリフのソートと文字列の組み立て・再走査を省く
+ *
+ * 重複除去・並べ替え（{@link RowStage}）
+ * - dedup : 完全に同じ行（複数銘柄の連結行の分割やページの重複で出る）を 1 行にする。行の 64 ビット指紋で引く
+ * - order : EXTRACTED（拾った順）/ SERIES_MATURITY（種別 → 償還日の安定ソート。全行を溜めるので toFile のヒープ一定は崩れる）
+ *
+ * 出力
+ * - 既定       : CSV 全体を String の body にする
+ * - toFile     : 行を拾った順に、ヘッダ {@value #HEADER_OUTPUT_DIR} のディレクトリ内の一時ファイルへ書き、
+ *                body をその File、{@link Exchange#FILE_LOCAL_WORK_PATH} を一時ファイルのパスにする。
+ *                後段の file エンドポイントはコピーせず rename で配置するので、出力の大きさによらずヒープは一定
+ *
+ * 段ごとの時間・ページ数・行数は {@link ExtractStats} としてプロパティ {@value #PROP_STATS} に入れる（メトリクス用）。
+ * あわせて JFR イベント（{@link JfrEvents}: ページ抽出・行走査・CSV フラッシュ・変換全体）を出す。
  */
 public class PdfToCsvProcessor implements Processor {
 
-  /** ページ見出し（各ページ上部の項目名）を除去 */
-  private static final Pattern HEADER_CHUNK = Pattern.compile(
-      "償還日\\s+表面利率\\s+債券標準価格\\s+銘柄名\\s+（年・月・日）\\s+（％）\\s+（円）\\s*"
-  );
+  public enum Mode { WHOLE, STREAMING, PARALLEL }
 
-  /** 銘柄の“きっかけ語”直前に改行を挿入して、1行複数銘柄を分割 */
-  private static final Pattern BRAND_CUE = Pattern.compile(
-      "(?=第[０-９0-9]+回\\s+利付国債（)|" +                 // 第●回 利付国債（…）
-      "(?=分離利息国債（)|" +                                 // 分離利息国債（…）
-      "(?=第[０-９0-9]+回\\s+物価連動国債（)|" +             // 第●回 物価連動国債（…）
-      "(?=第[０-９0-9]+回\\s+クライメート・トランジション利付国債（)" // 第●回 クライメート・トランジション…
-  );
+  public enum Engine { TEXT, POSITION }
 
-  /**
-   * 行パターン
-   * brand  ... 改行を跨がない任意文字（できるだけ短く）
-   * date   ... yyyy/m/d（空白混在OK）
-   * coupon ... 任意（無い場合あり）
-   * price  ... 必須
-   * マルチラインで ^/$ を行頭/行末にする
-   */
-  private static final Pattern ROW = Pattern.compile(
-      "^(?<brand>.+?)\\s+" +
-      "(?<date>\\d{4}\\s*/\\s*\\d{1,2}\\s*/\\s*\\d{1,2})" +
-      "(?:\\s+(?<coupon>[\\d.,]+))?\\s+" +
-      "(?<price>[\\d.,]+)\\s*$",
-      Pattern.MULTILINE
-  );
+  /** ウィンドウ末尾の未確定テキストを次ウィンドウへ持ち越す最大行数（1 行が複数行に割れるケース用） */
+  private static final int CARRY_MAX_LINES = 8;
+
+  /** 抽出ロジック・CSV 表記を変えたら上げる（変換結果キャッシュを無効にするため） */
+  public static final int FORMAT_VERSION = 1;
+
+  /** toFile 時の出力先ディレクトリ（Routes が設定するヘッダ） */
+  public static final String HEADER_OUTPUT_DIR = "outputDir";
+
+  /** 変換 1 回分の {@link ExtractStats} */
+  public static final String PROP_STATS = "jsprice.extractStats";
+
+  private Mode mode = Mode.WHOLE;
+  private Engine engine = Engine.TEXT;
+  private int windowPages = 4;
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private boolean toFile;
+  private boolean dedup;
+  private RowStage.Order order = RowStage.Order.EXTRACTED;
+
+  public PdfToCsvProcessor mode(Mode mode) {
+    this.mode = mode;
+    return this;
+  }
+
+  public PdfToCsvProcessor engine(Engine engine) {
+    this.engine = engine;
+    return this;
+  }
+
+  /** STREAMING 時に 1 回で抽出するページ数 */
+  public PdfToCsvProcessor windowPages(int windowPages) {
+    if (windowPages < 1) {
+      throw new IllegalArgumentException("windowPages must be >= 1: " + windowPages);
+    }
+    this.windowPages = windowPages;
+    return this;
+  }
+
+  /** PARALLEL 時のワーカー数（= ページ範囲の分割数の上限） */
+  public PdfToCsvProcessor parallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be >= 1: " + parallelism);
+    }
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /** 完全に同じ行を 1 行にする */
+  public PdfToCsvProcessor dedup(boolean dedup) {
+    this.dedup = dedup;
+    return this;
+  }
+
+  /** 出力する行の順 */
+  public PdfToCsvProcessor order(RowStage.Order order) {
+    this.order = order;
+    return this;
+  }
+
+  /** 変換結果キャッシュのキーに含める版（FORMAT_VERSION + エンジン + 重複除去・並べ替え。モードは出力に影響しない） */
+  public String cacheVersion() {
+    return "v" + FORMAT_VERSION + "-" + engine.name().toLowerCase()
+        + (dedup ? "-dedup" : "")
+        + (order == RowStage.Order.EXTRACTED ? "" : "-" + order.name().toLowerCase());
+  }
+
+  /** CSV を String ではなく一時ファイルに書き出す */
+  public PdfToCsvProcessor toFile(boolean toFile) {
+    this.toFile = toFile;
+    return this;
+  }
 
   @Override
   public void process(Exchange exchange) throws Exception {
-    byte[] pdf = exchange.getIn().getBody(byte[].class);
-    if (pdf == null || pdf.length == 0) {
-      throw new IllegalArgumentException("No PDF content in exchange body.");
+    ExtractStats stats = new ExtractStats();
+    exchange.setProperty(PROP_STATS, stats);
+    JfrEvents.Conversion event = new JfrEvents.Conversion();
+    event.begin();
+    try {
+      convert(exchange, stats);
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.mode = mode.name();
+        event.engine = engine.name();
+        event.pages = stats.pages();
+        event.rows = stats.rows();
+        event.rejected = stats.rejected();
+        event.duplicates = stats.duplicates();
+        event.commit();
+      }
     }
+  }
 
-    String text = extractText(pdf);
-    text = cleanup(text); // 見出し除去・分割など前処理
+  private void convert(Exchange exchange, ExtractStats stats) throws Exception {
+    if (!toFile) {
+      StringWriter sw = new StringWriter();
+      writeCsv(exchange, sw, stats);
+      exchange.getIn().setBody(sw.toString());
+      exchange.getIn().setHeader(Exchange.CONTENT_TYPE, "text/csv; charset=UTF-8");
+      return;
+    }
 
-    List<String[]> rows = extractRows(text);
-    // rows = uniqueRows(rows);  // 重複除去したい場合はコメントアウト解除
-    String csv = toCsvString(rows);
-    exchange.getIn().setBody(csv);
+    // 出力先と同じディレクトリの隠しファイルに書き、file エンドポイントで rename する（同一 FS なので atomic）
+    String dirName = exchange.getIn().getHeader(HEADER_OUTPUT_DIR, String.class);
+    if (dirName == null || dirName.isBlank()) {
+      throw new IllegalArgumentException("Header '" + HEADER_OUTPUT_DIR + "' is required to write CSV to a file.");
+    }
+    Path dir = Files.createDirectories(Path.of(dirName));
+    Path tmp = Files.createTempFile(dir, ".jsprice-", ".csv.tmp");
+    try {
+      writeCsv(exchange, Files.newBufferedWriter(tmp, StandardCharsets.UTF_8), stats);
+    } catch (Exception e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    exchange.getIn().setBody(tmp.toFile());
+    exchange.getIn().setHeader(Exchange.FILE_LOCAL_WORK_PATH, tmp.toString());
     exchange.getIn().setHeader(Exchange.CONTENT_TYPE, "text/csv; charset=UTF-8");
   }
 
-  /** PDF -> テキスト */
-  private String extractText(byte[] pdf) throws IOException {
-    try (PDDocument doc = PDDocument.load(pdf)) {
-      PDFTextStripper stripper = new PDFTextStripper();
-      stripper.setSortByPosition(true);
-      return stripper.getText(doc);
+  /**
+   * toFile で書いた一時ファイルがまだ残っていれば消す（rename 前・後段の途中で失敗したときに onException から呼ぶ）。
+   * rename 済みなら何もしない。
+   */
+  public static void discardWorkFile(Exchange exchange) throws IOException {
+    String work = exchange.getMessage().getHeader(Exchange.FILE_LOCAL_WORK_PATH, String.class);
+    if (work == null) return;
+    Path tmp = Path.of(work);
+    if (tmp.getFileName().toString().startsWith(".jsprice-")) Files.deleteIfExists(tmp);
+    exchange.getMessage().removeHeader(Exchange.FILE_LOCAL_WORK_PATH);
+  }
+
+  /** 抽出した行を拾った順にそのまま CSV へ書く（並べ替えなしなら行をリストに溜めない） */
+  private void writeCsv(Exchange exchange, Writer w, ExtractStats stats) throws Exception {
+    try (BondCsvWriter csv = new BondCsvWriter(w)) {
+      csv.writeHeader();
+      Consumer<BondRow> sink = stats.csv(csv);
+      if (dedup || order != RowStage.Order.EXTRACTED) {
+        RowStage stage = new RowStage(sink, dedup, order);
+        extract(exchange, stage, stats);
+        stage.finish();
+        stats.addDuplicates(stage.duplicates());
+      } else {
+        extract(exchange, sink, stats);
+      }
+      JfrEvents.CsvFlush event = new JfrEvents.CsvFlush();
+      event.begin();
+      long t = System.nanoTime();
+      csv.flush();
+      stats.addCsv(System.nanoTime() - t);
+      event.end();
+      if (event.shouldCommit()) {
+        event.rows = stats.rows();
+        event.commit();
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
     }
   }
 
-  /** テキスト前処理：見出し除去、空白正規化、銘柄の直前に改行を挿入して分割を安定化 */
-  private String cleanup(String text) {
-    String x = text;
+  private void extract(Exchange exchange, Consumer<BondRow> out, ExtractStats stats) throws Exception {
+    // PdfDownloadProcessor を通った場合、body はダウンロード済みの一時ファイル（ヒープに載せずに読む）
+    Object body = exchange.getIn().getBody();
+    File file = body instanceof File f ? f : body instanceof Path p ? p.toFile() : null;
 
-    // 見出し塊を除去（複数ページ想定）
-    x = HEADER_CHUNK.matcher(x).replaceAll("");
+    if (mode == Mode.STREAMING) {
+      if (file != null) {
+        try (PDDocument doc = PDDocument.load(file, MemoryUsageSetting.setupTempFileOnly())) {
+          extractRowsStreaming(doc, out, stats);
+        }
+        return;
+      }
+      // byte[] 化せず、ストリームのまま PDFBox のスクラッチファイルへ流す
+      InputStream in = exchange.getIn().getBody(InputStream.class);
+      if (in == null) {
+        throw new IllegalArgumentException("No PDF content in exchange body.");
+      }
+      try (PDDocument doc = PDDocument.load(in, MemoryUsageSetting.setupTempFileOnly())) {
+        extractRowsStreaming(doc, out, stats);
+      }
+      return;
+    }
 
-    // 全角スペース/タブ -> 半角、連続空白を1つに
-    x = x.replace('\u3000', ' ').replace('\t', ' ');
-    x = x.replaceAll(" +", " ");
+    PdfSource pdf = file != null ? new PdfSource(file, null) : new PdfSource(null, exchange.getIn().getBody(byte[].class));
+    if (pdf.isEmpty()) {
+      throw new IllegalArgumentException("No PDF content in exchange body.");
+    }
+    if (mode == Mode.PARALLEL) {
+      extractRowsParallel(pdf, out, stats);
+    } else {
+      if (engine == Engine.POSITION) {
+        extractRowsByPosition(pdf, out, stats);
+      } else {
+        String text = extractText(pdf, stats);
+        matchRows(text, 0, out, stats);
+      }
+    }
+  }
 
-    // 銘柄の“きっかけ語”直前に改行を「挿入」（消さない！）
-    x = BRAND_CUE.matcher(x).replaceAll("\n$0");
+  /**
+   * 読み込み元の PDF。ファイルの場合 PDFBox は RandomAccessRead 経由で必要な部分だけ読むので、
+   * PDF 全体がヒープに載ることはない。PARALLEL では範囲ごとに何度でも開き直せる。
+   */
+  private record PdfSource(File file, byte[] bytes) {
 
-    // 連続改行の整理
-    x = x.replaceAll("\\n{2,}", "\n").trim();
+    boolean isEmpty() {
+      return file == null ? bytes == null || bytes.length == 0 : !file.isFile() || file.length() == 0;
+    }
 
-    return x;
+    PDDocument load() throws IOException {
+      return file != null ? PDDocument.load(file) : PDDocument.load(bytes);
+    }
   }
 
-  /** 全文に対して find() で行を拾う（行単位読み出しはしない） */
-  private List<String[]> extractRows(String text) {
-    List<String[]> out = new ArrayList<>();
-    out.add(new String[]{"brand", "maturity_date", "coupon_pct", "price_jpy"});
+  /** PDF -> テキスト */
+  private String extractText(PdfSource pdf, ExtractStats stats) throws IOException {
+    long t = System.nanoTime();
+    try (PDDocument doc = pdf.load()) {
+      stats.addPages(doc.getNumberOfPages());
+      return new PageTextStripper().getText(doc);
+    } finally {
+      stats.addExtract(System.nanoTime() - t);
+    }
+  }
+
+  /** PDF -> 行（座標ベース） */
+  private void extractRowsByPosition(PdfSource pdf, Consumer<BondRow> out, ExtractStats stats) throws IOException {
+    long t = System.nanoTime();
+    LongAdder inner = new LongAdder();
+    PositionRowBuilder builder = new PositionRowBuilder(out);
+    try (PDDocument doc = pdf.load()) {
+      stats.addPages(doc.getNumberOfPages());
+      new TextPositionRowExtractor(stats.match(builder, inner)).writeText(doc, Writer.nullWriter());
+    } finally {
+      stats.addExtract(System.nanoTime() - t - inner.sum());
+      stats.addRejected(builder.rejected());
+    }
+  }
 
-    Matcher m = ROW.matcher(text);
-    while (m.find()) {
-      String brand  = normalizeBrand(m.group("brand"));
-      String date   = normalizeDate(m.group("date"));
-      String coupon = normalizeDecimalOrEmpty(m.group("coupon")); // 空欄許容
-      String price  = normalizeDecimalOrEmpty(m.group("price"));
+  /**
+   * ページ窓ごとに抽出→行化する。メモリ上に残るのは窓 1 つ分のテキストと持ち越し分だけ。
+   * 銘柄がページを跨いだ場合に備え、最後の一致以降の残り（最大 {@link #CARRY_MAX_LINES} 行）を次の窓の先頭に連結する。
+   */
+  private void extractRowsStreaming(PDDocument doc, Consumer<BondRow> out, ExtractStats stats) throws IOException {
+    int pages = doc.getNumberOfPages();
+    stats.addPages(pages);
 
-      // 念のため：万が一見出し残骸がbrand先頭にあれば落とす
-      if (brand.contains("償還日") && brand.contains("表面利率")) {
-        brand = brand.replaceFirst(".*?（円）\\s*", "");
+    if (engine == Engine.POSITION) {
+      // 銘柄名行の持ち越しは PositionRowBuilder が状態として持つので、窓ごとに同じものを渡すだけでよい
+      long t = System.nanoTime();
+      LongAdder inner = new LongAdder();
+      PositionRowBuilder builder = new PositionRowBuilder(out);
+      TextPositionRowExtractor extractor = new TextPositionRowExtractor(stats.match(builder, inner));
+      try {
+        for (int first = 1; first <= pages; first += windowPages) {
+          extractor.setStartPage(first);
+          extractor.setEndPage(Math.min(first + windowPages - 1, pages));
+          extractor.writeText(doc, Writer.nullWriter());
+        }
+      } finally {
+        stats.addExtract(System.nanoTime() - t - inner.sum());
+        stats.addRejected(builder.rejected());
       }
+      return;
+    }
+
+    PDFTextStripper stripper = new PageTextStripper();
+
+    String carry = "";
+    for (int first = 1; first <= pages; first += windowPages) {
+      stripper.setStartPage(first);
+      stripper.setEndPage(Math.min(first + windowPages - 1, pages));
+      long t = System.nanoTime();
+      String window = stripper.getText(doc);
+      stats.addExtract(System.nanoTime() - t);
 
-      out.add(new String[]{brand, date, coupon, price});
+      String text = carry.isEmpty() ? window : carry + "\n" + window;
+      int end = matchRows(text, carry.isEmpty() ? 0 : carry.length() + 1, out, stats);
+      carry = tailLines(text, end, CARRY_MAX_LINES);
     }
-    return out;
   }
 
-  /** CSV 文字列化（LF終端） */
-  private String toCsvString(List<String[]> rows) throws IOException {
-    StringWriter sw = new StringWriter();
-    try (CSVWriter writer = new CSVWriter(
-        sw,
-        CSVWriter.DEFAULT_SEPARATOR,
-        CSVWriter.DEFAULT_QUOTE_CHARACTER,
-        CSVWriter.DEFAULT_ESCAPE_CHARACTER,
-        "\n")) {
-      writer.writeAll(rows, false);
+
+  /** 1 つのページ範囲を単独で抽出した結果（抽出テキストと、その中で拾った行の位置） */
+  private record RangeResult(String text, List<RowMatch> matches) {}
+
+  private record RowMatch(int start, int end, BondRow row) {}
+
+  /**
+   * ページ範囲ごとに抽出→行化を並列実行し、ページ順にマージする。
+   * PDDocument はスレッドセーフではないので、範囲ごとに自前でロードする。
+   */
+  private void extractRowsParallel(PdfSource pdf, Consumer<BondRow> out, ExtractStats stats)
+      throws IOException, InterruptedException {
+    int pages;
+    long t0 = System.nanoTime();
+    try (PDDocument doc = pdf.load()) {
+      pages = doc.getNumberOfPages();
+    }
+    stats.addExtract(System.nanoTime() - t0);
+    stats.addPages(pages);
+    int ranges = Math.max(1, Math.min(parallelism, pages));
+    int perRange = (pages + ranges - 1) / ranges;
+
+    ForkJoinPool pool = new ForkJoinPool(ranges);
+    try {
+      if (engine == Engine.POSITION) {
+        List<ForkJoinTask<List<List<String>>>> tasks = new ArrayList<>();
+        for (int first = 1; first <= pages; first += perRange) {
+          int start = first;
+          int end = Math.min(first + perRange - 1, pages);
+          tasks.add(pool.submit(() -> extractLines(pdf, start, end, stats)));
+        }
+        // 座標→語の切り出しだけを並列に行い、行の組み立ては 1 つの PositionRowBuilder にページ順で流す
+        PositionRowBuilder builder = new PositionRowBuilder(out);
+        Consumer<List<String>> timed = stats.match(builder, new LongAdder());
+        for (ForkJoinTask<List<List<String>>> t : tasks) {
+          t.get().forEach(timed);
+        }
+        stats.addRejected(builder.rejected());
+        return;
+      }
+
+      List<ForkJoinTask<RangeResult>> tasks = new ArrayList<>();
+      for (int first = 1; first <= pages; first += perRange) {
+        int start = first;
+        int end = Math.min(first + perRange - 1, pages);
+        tasks.add(pool.submit(() -> extractRange(pdf, start, end, stats)));
+      }
+      List<RangeResult> results = new ArrayList<>(tasks.size());
+      for (ForkJoinTask<RangeResult> t : tasks) {
+        results.add(t.get());
+      }
+      mergeRanges(results, out, stats);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException io) throw io;
+      throw new IllegalStateException("Parallel extraction failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
     }
-    return sw.toString();
   }
 
-  /* ---------- Normalizers ---------- */
+  private RangeResult extractRange(PdfSource pdf, int firstPage, int lastPage, ExtractStats stats) throws IOException {
+    long t = System.nanoTime();
+    String text;
+    try (PDDocument doc = pdf.load()) {
+      PDFTextStripper stripper = new PageTextStripper();
+      stripper.setStartPage(firstPage);
+      stripper.setEndPage(lastPage);
+      text = stripper.getText(doc);
+    }
+    long t1 = System.nanoTime();
+    stats.addExtract(t1 - t);
 
-  private String normalizeBrand(String s) {
-    if (s == null) return "";
-    String x = s.trim();
-    x = x.replaceAll("\\s+", " ");
-    return x;
+    JfrEvents.RowMatch event = new JfrEvents.RowMatch();
+    event.begin();
+    List<RowMatch> matches = new ArrayList<>();
+    RowScanner scanner = new RowScanner();
+    scanner.scan(text, (start, end, row) -> matches.add(new RowMatch(start, end, row)));
+    stats.addMatch(System.nanoTime() - t1);
+    stats.addRejected(scanner.rejected());
+    commit(event, text.length(), matches.size(), scanner.rejected());
+    return new RangeResult(text, matches);
   }
 
-  private String normalizeDate(String yyyyMd) {
-    String compact = yyyyMd.replaceAll("\\s+", ""); // "2033 / 3 / 20" → "2033/3/20"
-    String[] p = compact.split("/");
-    return String.format("%04d-%02d-%02d",
-        Integer.parseInt(p[0]),
-        Integer.parseInt(p[1]),
-        Integer.parseInt(p[2]));
+  /** 1 つのページ範囲を座標ベースで語の並び（行ごと）にする */
+  private List<List<String>> extractLines(PdfSource pdf, int firstPage, int lastPage, ExtractStats stats)
+      throws IOException {
+    long t = System.nanoTime();
+    List<List<String>> lines = new ArrayList<>();
+    try (PDDocument doc = pdf.load()) {
+      TextPositionRowExtractor extractor = new TextPositionRowExtractor(lines::add);
+      extractor.setStartPage(firstPage);
+      extractor.setEndPage(lastPage);
+      extractor.writeText(doc, Writer.nullWriter());
+    }
+    stats.addExtract(System.nanoTime() - t);
+    return lines;
   }
 
-  /** 数値 or 空文字（null/空はそのまま空） */
-  private String normalizeDecimalOrEmpty(String s) {
-    if (s == null || s.isBlank()) return "";
-    String z = s.replace(",", "");
-    return new BigDecimal(z).stripTrailingZeros().toPlainString();
+  /**
+   * 範囲ごとの結果をページ順に連結する。
+   * 前範囲の残り（持ち越し）がある場合は、それを連結したテキストで境界部分だけ走査し直し、
+   * 単独抽出の行と開始・終了位置が揃った時点で以降は単独抽出の結果をそのまま採用する
+   * （同じ位置から同じテキストを読むので、以降に拾う行は同一になる）。
+   * 境界の走査し直しは match の時間に含める（不正値の件数は範囲ごとの走査で数え済み）。
+   */
+  private void mergeRanges(List<RangeResult> results, Consumer<BondRow> out, ExtractStats stats) {
+    String carry = "";
+    for (RangeResult r : results) {
+      List<RowMatch> own = r.matches();
+      if (carry.isEmpty()) {
+        own.forEach(x -> out.accept(x.row()));
+        int end = own.isEmpty() ? 0 : own.get(own.size() - 1).end();
+        carry = tailLines(r.text(), end, CARRY_MAX_LINES);
+        continue;
+      }
+
+      String text = carry + "\n" + r.text();
+      int offset = carry.length() + 1;
+      int[] end = {0};
+      int[] k = {0};
+      long t = System.nanoTime();
+      long csv0 = stats.csvNanos();
+      new RowScanner().scan(text, (start, rowEnd, row) -> {
+        int s = start - offset;
+        while (k[0] < own.size() && own.get(k[0]).start() < s) k[0]++;
+        if (k[0] < own.size() && own.get(k[0]).start() == s && own.get(k[0]).end() == rowEnd - offset) {
+          for (int i = k[0]; i < own.size(); i++) out.accept(own.get(i).row());
+          end[0] = own.get(own.size() - 1).end() + offset;
+          return false;
+        }
+        out.accept(row);
+        end[0] = rowEnd;
+        return true;
+      });
+      stats.addMatch(System.nanoTime() - t - (stats.csvNanos() - csv0));
+      carry = tailLines(text, end[0], CARRY_MAX_LINES);
+    }
+  }
+
+  /** text[from..] の末尾 maxLines 行を返す（持ち越し用） */
+  private static String tailLines(String text, int from, int maxLines) {
+    int start = text.length();
+    for (int n = 0; n < maxLines && start > from; n++) {
+      int nl = text.lastIndexOf('\n', start - 1);
+      start = Math.max(nl, from);
+    }
+    String tail = text.substring(start, text.length());
+    return tail.isBlank() ? "" : tail;
   }
 
-  // /** 重複除去したい場合はコメントアウト解除 **/
-  // private List<String[]> uniqueRows(List<String[]> rows) {
-  //   if (rows.isEmpty()) return rows;
-  //   List<String[]> out = new ArrayList<>();
-  //   out.add(rows.get(0)); // ヘッダはそのまま
+  /**
+   * 行を out に渡し、最後に拾った行の終端位置（なければ 0）を返す。
+   * text[0, countFrom) は前の窓からの持ち越しで、そこで捨てた行は数え済み。
+   */
+  private int matchRows(String text, int countFrom, Consumer<BondRow> out, ExtractStats stats) {
+    JfrEvents.RowMatch event = new JfrEvents.RowMatch();
+    event.begin();
+    long t = System.nanoTime();
+    long csv0 = stats.csvNanos();
+    int[] rows = {0};
+    RowScanner scanner = new RowScanner();
+    int end = scanner.scan(text, countFrom, (start, rowEnd, row) -> {
+      out.accept(row);
+      rows[0]++;
+      return true;
+    });
+    stats.addMatch(System.nanoTime() - t - (stats.csvNanos() - csv0));
+    stats.addRejected(scanner.rejected());
+    commit(event, text.length(), rows[0], scanner.rejected());
+    return end;
+  }
 
-  //   java.util.HashSet<String> seen = new java.util.HashSet<>();
-  //   for (int i = 1; i < rows.size(); i++) {
-  //     String[] r = rows.get(i);
-  //     // brand, date, coupon, price の完全一致でユニーク化
-  //     String key = String.join("\u0001", r);
-  //     if (seen.add(key)) out.add(r);
-  //   }
-  //   return out;
-  // }
+  private static void commit(JfrEvents.RowMatch event, int chars, int rows, int rejected) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.chars = chars;
+      event.rows = rows;
+      event.rejected = rejected;
+      event.commit();
+    }
+  }
 }
@@ -0,0 +1,122 @@
+package com.example.jsprice.processor;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link TextPositionRowExtractor} が区切った語の並び（1 行分）を列に振り分けて {@link BondRow} にする。
+ * - 償還日（yyyy/m/d）の語を見つけ、その左側を銘柄名、右側の数値 1〜2 語を [表面利率] 価格 とする
+ * - 1 行に複数銘柄が並んでいても、価格の後ろから次の銘柄として続けて読む
+ * - 銘柄名だけの行の直後に償還日から始まる行が来たら連結する（ページを跨いでもよい）
+ * - ページ見出し行（償還日 表面利率 債券標準価格 / 銘柄名 （年・月・日） （％） （円））は読み飛ばす
+ * 行の順に呼ぶこと（状態を持つのでスレッドセーフではない）。
+ */
+public class PositionRowBuilder implements Consumer<List<String>> {
+
+  private static final List<String> HEADER_1 = List.of("償還日", "表面利率", "債券標準価格");
+  private static final List<String> HEADER_2 = List.of("銘柄名", "（年・月・日）", "（％）", "（円）");
+
+  private final Consumer<BondRow> sink;
+
+  /** 銘柄名だけで終わった行の残り */
+  private String pending;
+  private int rejected;
+
+  // tail() の出力
+  private int maturity;
+  private long coupon;
+  private long price;
+
+  public PositionRowBuilder(Consumer<BondRow> sink) {
+    this.sink = sink;
+  }
+
+  /** 行の形をしていたが値が不正で捨てた件数 */
+  public int rejected() {
+    return rejected;
+  }
+
+  @Override
+  public void accept(List<String> tokens) {
+    int n = tokens.size();
+    if (n == 0 || tokens.equals(HEADER_1) || tokens.equals(HEADER_2)) {
+      return; // 空行・見出しは銘柄名行との連結を妨げない
+    }
+
+    int from = 0;
+    if (pending != null) {
+      int end = tail(tokens, 0);
+      if (end > 0) {
+        sink.accept(new BondRow(pending, maturity, coupon, price));
+        from = end;
+      }
+    }
+    for (int d = from + 1; d < n; d++) {
+      int end = tail(tokens, d);
+      if (end > 0) {
+        sink.accept(new BondRow(String.join(" ", tokens.subList(from, d)), maturity, coupon, price));
+        from = end;
+        d = end;
+      }
+    }
+    pending = from < n ? String.join(" ", tokens.subList(from, n)) : null;
+  }
+
+  /** tokens[d..] が 償還日 [表面利率] 価格 なら、その次の位置を返す（不成立は -1） */
+  private int tail(List<String> tokens, int d) {
+    int n = tokens.size();
+    String date = tokens.get(d);
+    if (!isDate(date) || d + 1 >= n || !isNumber(tokens.get(d + 1))) return -1;
+
+    boolean withCoupon = d + 2 < n && isNumber(tokens.get(d + 2));
+    String c = withCoupon ? tokens.get(d + 1) : null;
+    String p = tokens.get(withCoupon ? d + 2 : d + 1);
+
+    int year = intValue(date, 0, 4);
+    int s1 = date.indexOf('/', 5);
+    int month = intValue(date, 5, s1);
+    int day = intValue(date, s1 + 1, date.length());
+    if (!BondRow.isValidDate(year, month, day)) {
+      rejected++;
+      return -1;
+    }
+    try {
+      coupon = c == null ? BondRow.NO_VALUE : BondRow.parseScaled(c, 0, c.length());
+      price = BondRow.parseScaled(p, 0, p.length());
+    } catch (NumberFormatException | ArithmeticException e) {
+      rejected++;
+      return -1;
+    }
+    maturity = BondRow.epochDay(year, month, day);
+    return withCoupon ? d + 3 : d + 2;
+  }
+
+  /** yyyy/m/d（月日は 1〜2 桁、全角数字可） */
+  private static boolean isDate(String s) {
+    int n = s.length();
+    if (n < 8 || n > 10 || s.charAt(4) != '/') return false;
+    for (int i = 0; i < 4; i++) {
+      if (BondRow.digit(s.charAt(i)) < 0) return false;
+    }
+    int s1 = s.indexOf('/', 5);
+    if (s1 < 6 || s1 > 7 || s1 + 1 >= n || n - s1 - 1 > 2) return false;
+    for (int i = 5; i < n; i++) {
+      if (i != s1 && BondRow.digit(s.charAt(i)) < 0) return false;
+    }
+    return true;
+  }
+
+  private static boolean isNumber(String s) {
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (BondRow.digit(c) < 0 && c != '.' && c != ',') return false;
+    }
+    return !s.isEmpty();
+  }
+
+  private static int intValue(String s, int from, int to) {
+    int v = 0;
+    for (int i = from; i < to; i++) v = v * 10 + BondRow.digit(s.charAt(i));
+    return v;
+  }
+}
@@ -0,0 +1,398 @@
+package com.example.jsprice.processor;
+
+import java.util.Arrays;
+
+/**
+ * PDF から抽出したテキストを 1 回だけ走査して行を拾うスキャナ。
+ * 従来の cleanup()（見出し除去・空白正規化・きっかけ語での分割）と ROW 正規表現の処理を 1 パスで行う。
+ * - ページ見出し（償還日 表面利率 債券標準価格 銘柄名 （年・月・日） （％） （円））は読み飛ばす
+ * - 全角スペース/タブは半角に、連続空白は 1 つに畳む。数値欄の全角数字は半角として読む
+ * - 銘柄の“きっかけ語”の直前で行を分割（1 行に複数銘柄が連結されたケース）
+ * - 「銘柄名 償還日 [表面利率] 債券標準価格」を 1 行として拾う。
+ *   銘柄名だけの行の直後に償還日から始まる行が来た場合は 2 行を連結して 1 行とみなす。
+ *   償還日で終わる行（銘柄名だけの行 + 償還日だけの行を含む）の直後に数値だけの行が来た場合も同様に連結する
+ * 償還日・数値は行バッファから直接 {@link BondRow} のプリミティブ値に読み取る。
+ * 形は行でも値が不正（存在しない日付・小数点が 2 つ等）なものは行として扱わず、{@link #rejected()} に数える。
+ * 文書全体のコピーは作らず、1 行分のバッファを使い回す。スレッドセーフではない（呼び出しごとに生成すること）。
+ */
+public final class RowScanner {
+
+  /** 拾った 1 行。start/end は入力テキスト上の位置（end は行末＝次の行の手前）。false を返すと走査を打ち切る */
+  public interface RowSink {
+    boolean accept(int start, int end, BondRow row);
+  }
+
+  /** ページ見出しの語（空白区切りで連続したときだけ見出しとみなす） */
+  private static final String[] HEADER_WORDS = {
+      "償還日", "表面利率", "債券標準価格", "銘柄名", "（年・月・日）", "（％）", "（円）"
+  };
+
+  /** 銘柄の“きっかけ語”：第●回 の後に続く語（分離利息国債は単独） */
+  private static final String[] NUMBERED_CUES = {
+      "利付国債（", "物価連動国債（", "クライメート・トランジション利付国債（"
+  };
+  private static final String STRIPS_CUE = "分離利息国債（";
+
+  // 1 行分のバッファ（正規化後の文字と、その文字の入力上の位置）
+  private final StringBuilder line = new StringBuilder(256);
+  private int[] lineRaw = new int[256];
+
+  // 銘柄名だけの行（次行が償還日から始まれば連結する）
+  private final StringBuilder pending = new StringBuilder(128);
+  private int pendingStart = -1;
+  // 持ち越し中の銘柄名に続いた償還日（入力上の位置。無ければ -1。次行が数値だけなら連結する）
+  private int pendingDate = -1;
+  private boolean pendingDateValid;
+  private int pendingMaturity;
+
+  // 償還日の各欄の位置（date の出力）
+  private int yEnd;
+  private int mFrom;
+  private int mEnd;
+  private int dFrom;
+  private int dEnd;
+  // 数値欄の位置（numbers の出力。表面利率が無ければ cFrom = -1）
+  private int cFrom;
+  private int cEnd;
+  private int pFrom;
+  private int pEnd;
+
+  // 行の解析結果（tryTail の出力）
+  private int maturity;
+  private long coupon;
+  private long price;
+  private boolean stopped;
+  private int rejected;
+  private int countFrom;
+
+  /** text 全体を走査して行を sink に渡し、最後に拾った行の終端位置（なければ 0）を返す */
+  public int scan(CharSequence text, RowSink sink) {
+    return scan(text, 0, sink);
+  }
+
+  /**
+   * {@link #scan(CharSequence, RowSink)} と同じ。ただし text[0, countFrom) で捨てた行は {@link #rejected()} に数えない
+   * （前回の走査で数え済みの持ち越し部分を先頭に連結して走査し直す場合）。
+   */
+  public int scan(CharSequence text, int countFrom, RowSink sink) {
+    pendingStart = -1;
+    pendingDate = -1;
+    pending.setLength(0);
+    stopped = false;
+    rejected = 0;
+    this.countFrom = countFrom;
+    int lastEnd = 0;
+
+    int n = text.length();
+    int i = 0;
+    while (i < n) {
+      // ---- 物理行を 1 本読む（見出し除去・空白正規化しながら） ----
+      line.setLength(0);
+      boolean prevSpace = false;
+      while (i < n) {
+        char c = text.charAt(i);
+        if (c == '\n' || c == '\r') break;
+        if (c == '償') {
+          int skip = headerEnd(text, i);
+          if (skip > i) {
+            i = skip;
+            continue;
+          }
+        }
+        if (isSpace(c)) {
+          if (prevSpace) {
+            i++;
+            continue;
+          }
+          c = ' ';
+          prevSpace = true;
+        } else {
+          prevSpace = false;
+        }
+        append(c, i);
+        i++;
+      }
+      int lineEnd = i;
+
+      // ---- きっかけ語で論理行に分割して解析 ----
+      int from = 0;
+      for (int p = 1; p < line.length(); p++) {
+        if (isCueAt(p)) {
+          lastEnd = Math.max(lastEnd, logicalLine(from, p, lineRaw[p], sink));
+          if (stopped) return lastEnd;
+          from = p;
+        }
+      }
+      lastEnd = Math.max(lastEnd, logicalLine(from, line.length(), lineEnd, sink));
+      if (stopped) return lastEnd;
+
+      if (i < n) {
+        i += (text.charAt(i) == '\r' && i + 1 < n && text.charAt(i + 1) == '\n') ? 2 : 1;
+      }
+    }
+    return lastEnd;
+  }
+
+  /** 直近の scan で、行の形をしていたが値が不正で捨てた件数 */
+  public int rejected() {
+    return rejected;
+  }
+
+  /** line[from, to) を 1 行として解析。行を拾ったら end を、拾えなければ 0 を返す */
+  private int logicalLine(int from, int to, int end, RowSink sink) {
+    // 前後の空白を落とす
+    while (from < to && line.charAt(from) == ' ') from++;
+    while (to > from && line.charAt(to - 1) == ' ') to--;
+    if (from == to) {
+      return 0; // 空行は銘柄名行との連結を妨げない
+    }
+
+    if (pendingStart >= 0) {
+      // 銘柄名だけの行 + 償還日から始まる行
+      if (pendingDate < 0 && tryTail(from, to)) {
+        emit(pendingStart, end, pending.toString(), sink);
+        return end;
+      }
+      // 銘柄名だけの行 + 償還日だけの行（数値は次の行）
+      if (pendingDate < 0 && date(from, to) == to) {
+        holdDate(from);
+        return 0;
+      }
+      // 償還日で終わった行 + 数値だけの行
+      if (pendingDate >= 0 && numbers(from, to)) {
+        if (pendingDateValid && readNumbers()) {
+          maturity = pendingMaturity;
+          emit(pendingStart, end, pending.toString(), sink);
+          return end;
+        }
+        reject(pendingDate);
+      }
+    }
+
+    // 銘柄名は最短：空白の直後から償還日以降（または償還日だけ）が成立する最初の位置を探す
+    for (int p = from + 2; p < to; p++) {
+      if (line.charAt(p - 1) != ' ') continue;
+      if (tryTail(p, to)) {
+        emit(lineRaw[from], end, line.substring(from, p - 1), sink);
+        return end;
+      }
+      if (date(p, to) == to) {
+        hold(from, p - 1);
+        holdDate(p);
+        return 0;
+      }
+    }
+
+    hold(from, to);
+    return 0;
+  }
+
+  /** line[from, to) を銘柄名として持ち越す */
+  private void hold(int from, int to) {
+    pending.setLength(0);
+    pending.append(line, from, to);
+    pendingStart = lineRaw[from];
+    pendingDate = -1;
+  }
+
+  /** 直前の date で読んだ line[p..] の償還日を、持ち越し中の銘柄名に付ける（値の検証は連結したときに数える） */
+  private void holdDate(int p) {
+    pendingDate = lineRaw[p];
+    pendingDateValid = readDate(p);
+    pendingMaturity = maturity;
+  }
+
+  private void emit(int start, int end, String brand, RowSink sink) {
+    pendingStart = -1;
+    pendingDate = -1;
+    pending.setLength(0);
+
+    // 念のため：万が一見出し残骸がbrand先頭にあれば落とす
+    if (brand.contains("償還日") && brand.contains("表面利率")) {
+      int yen = brand.indexOf("（円）");
+      if (yen >= 0) brand = brand.substring(yen + 3).stripLeading();
+    }
+    stopped = !sink.accept(start, end, new BondRow(brand, maturity, coupon, price));
+  }
+
+  /**
+   * line[p, to) が「償還日 [表面利率] 債券標準価格」だけで構成されているか。
+   * 償還日は yyyy/m/d（区切りの前後に空白があってもよい）、数値は [0-9.,]+。
+   * 成立すれば maturity/coupon/price に値を入れて true を返す。
+   */
+  private boolean tryTail(int p, int to) {
+    int e = date(p, to);
+    if (e < 0 || e >= to || line.charAt(e) != ' ' || !numbers(e + 1, to)) return false;
+
+    // ここまでで行の形は成立。値として読めなければ捨てる
+    if (!readDate(p) || !readNumbers()) {
+      reject(lineRaw[p]);
+      return false;
+    }
+    return true;
+  }
+
+  /** line[p..] の償還日（yyyy/m/d、区切りの前後に空白があってもよい）の終端位置。償還日でなければ -1 */
+  private int date(int p, int to) {
+    yEnd = digits(p, to, 4, 4);
+    if (yEnd < 0) return -1;
+    int q = skipSpaces(yEnd, to);
+    if (q >= to || line.charAt(q) != '/') return -1;
+    mFrom = skipSpaces(q + 1, to);
+    mEnd = digits(mFrom, to, 1, 2);
+    if (mEnd < 0) return -1;
+    q = skipSpaces(mEnd, to);
+    if (q >= to || line.charAt(q) != '/') return -1;
+    dFrom = skipSpaces(q + 1, to);
+    dEnd = digits(dFrom, to, 1, 2);
+    return dEnd;
+  }
+
+  /** line[q, to) が「[表面利率] 債券標準価格」（[0-9.,]+ が 1 つか 2 つ）だけで構成されているか */
+  private boolean numbers(int q, int to) {
+    int n1End = number(q, to);
+    if (n1End == q) return false;
+    if (n1End == to) {
+      cFrom = -1;
+      pFrom = q;
+      pEnd = n1End;
+      return true;
+    }
+    if (line.charAt(n1End) != ' ') return false;
+    int n2 = n1End + 1;
+    int n2End = number(n2, to);
+    if (n2End == n2 || n2End != to) return false;
+    cFrom = q;
+    cEnd = n1End;
+    pFrom = n2;
+    pEnd = n2End;
+    return true;
+  }
+
+  /** 直前の date で読んだ償還日を maturity に入れる。存在しない日付なら false */
+  private boolean readDate(int p) {
+    int year = intValue(p, yEnd);
+    int month = intValue(mFrom, mEnd);
+    int day = intValue(dFrom, dEnd);
+    if (!BondRow.isValidDate(year, month, day)) return false;
+    maturity = BondRow.epochDay(year, month, day);
+    return true;
+  }
+
+  /** 直前の numbers で読んだ数値を coupon/price に入れる。数値として読めなければ false */
+  private boolean readNumbers() {
+    try {
+      coupon = cFrom < 0 ? BondRow.NO_VALUE : BondRow.parseScaled(line, cFrom, cEnd);
+      price = BondRow.parseScaled(line, pFrom, pEnd);
+      return true;
+    } catch (NumberFormatException | ArithmeticException e) {
+      return false;
+    }
+  }
+
+  /** raw は捨てた行の償還日の入力上の位置 */
+  private void reject(int raw) {
+    if (raw >= countFrom) rejected++;
+  }
+  private int intValue(int from, int to) {
+    int v = 0;
+    for (int k = from; k < to; k++) {
+      v = v * 10 + BondRow.digit(line.charAt(k));
+    }
+    return v;
+  }
+
+  /** 数字 min..max 桁を読んだ位置（数字が続きすぎる/足りない場合は -1） */
+  private int digits(int q, int to, int min, int max) {
+    int start = q;
+    while (q < to && q - start < max && isDigit(line.charAt(q))) q++;
+    if (q - start < min || (q < to && isDigit(line.charAt(q)))) return -1;
+    return q;
+  }
+
+  private int number(int q, int to) {
+    while (q < to) {
+      char c = line.charAt(q);
+      if (!isDigit(c) && c != '.' && c != ',') break;
+      q++;
+    }
+    return q;
+  }
+
+  private int skipSpaces(int q, int to) {
+    while (q < to && line.charAt(q) == ' ') q++;
+    return q;
+  }
+
+  /** line[p..] が銘柄のきっかけ語で始まるか（第●回 利付国債（ / 分離利息国債（ など） */
+  private boolean isCueAt(int p) {
+    char c = line.charAt(p);
+    if (c == '分') {
+      return startsWith(p, STRIPS_CUE);
+    }
+    if (c != '第') return false;
+    int q = p + 1;
+    int start = q;
+    while (q < line.length() && isDigit(line.charAt(q))) q++;
+    if (q == start || q >= line.length() || line.charAt(q) != '回') return false;
+    q++;
+    if (q >= line.length() || line.charAt(q) != ' ') return false;
+    q++;
+    for (String cue : NUMBERED_CUES) {
+      if (startsWith(q, cue)) return true;
+    }
+    return false;
+  }
+
+  private boolean startsWith(int p, String s) {
+    if (p + s.length() > line.length()) return false;
+    for (int k = 0; k < s.length(); k++) {
+      if (line.charAt(p + k) != s.charAt(k)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * text[i..] がページ見出し（語と語の間は空白・改行）なら、後続の空白まで含めた終端位置を返す。
+   * 見出しでなければ i をそのまま返す。
+   */
+  private static int headerEnd(CharSequence text, int i) {
+    int n = text.length();
+    int q = i;
+    for (int w = 0; w < HEADER_WORDS.length; w++) {
+      String word = HEADER_WORDS[w];
+      if (q + word.length() > n) return i;
+      for (int k = 0; k < word.length(); k++) {
+        if (text.charAt(q + k) != word.charAt(k)) return i;
+      }
+      q += word.length();
+      int ws = q;
+      while (q < n && isRegexSpace(text.charAt(q))) q++;
+      if (w < HEADER_WORDS.length - 1 && q == ws) return i;
+    }
+    return q;
+  }
+
+  private void append(char c, int raw) {
+    int len = line.length();
+    if (len == lineRaw.length) {
+      lineRaw = Arrays.copyOf(lineRaw, len * 2);
+    }
+    lineRaw[len] = raw;
+    line.append(c);
+  }
+
+  /** 行内の空白（全角スペース・タブを含む） */
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '　' || c == '\f' || c == '\u000B';
+  }
+
+  /** 見出し判定用（正規表現の \s 相当） */
+  private static boolean isRegexSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+  }
+
+  private static boolean isDigit(char c) {
+    return BondRow.digit(c) >= 0;
+  }
+}
@@ -0,0 +1,196 @@
+package com.example.jsprice.processor;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 座標ベースの抽出エンジン。
+ * PDFTextStripper の文字列化（setSortByPosition による全グリフのソート・行/単語の組み立て）は使わず、
+ * 各グリフの TextPosition（x/y）を直接読み取って
+ * - y（ベースライン）で行にまとめ、
+ * - 行内を x 順に並べて、空白グリフまたは x の隙間で語（セル）に区切る。
+ * 区切った語の並びは 1 行ずつ lineSink に渡し、列（銘柄名/償還日/表面利率/価格）への振り分けは
+ * {@link PositionRowBuilder} が行う。ページ単位で処理し、ページを跨いで状態は持たない。
+ * ページごとに {@link JfrEvents.PageExtract} を出す（行の組み立てもページの処理時間に含まれる）。
+ */
+public class TextPositionRowExtractor extends PDFTextStripper {
+
+  /** 語の区切りとみなす隙間（空白幅に対する比） */
+  private static final float GAP_RATIO = 0.5f;
+  /** 同じ行とみなす y のずれ（文字高さに対する比） */
+  private static final float LINE_TOLERANCE = 0.3f;
+
+  private final Consumer<List<String>> lineSink;
+
+  // 1 ページ分のグリフ（ページごとに使い回す）
+  private int count;
+  private float[] gx = new float[1024];
+  private float[] gy = new float[1024];
+  private float[] gw = new float[1024];
+  private float[] gh = new float[1024];
+  private float[] gsp = new float[1024];
+  private String[] gu = new String[1024];
+
+  private JfrEvents.PageExtract event;
+  private int pageGlyphs;
+
+  public TextPositionRowExtractor(Consumer<List<String>> lineSink) throws IOException {
+    this.lineSink = lineSink;
+    setSortByPosition(false);
+  }
+
+  @Override
+  protected void startPage(PDPage page) throws IOException {
+    event = new JfrEvents.PageExtract();
+    event.begin();
+    super.startPage(page);
+  }
+
+  @Override
+  protected void endPage(PDPage page) throws IOException {
+    super.endPage(page);
+    event.end();
+    if (event.shouldCommit()) {
+      event.page = getCurrentPageNo();
+      event.glyphs = pageGlyphs;
+      event.engine = "POSITION";
+      event.commit();
+    }
+  }
+
+  /** PDFTextStripper 側の集計（重複除去・記事分割）は行わず、座標だけ控える */
+  @Override
+  protected void processTextPosition(TextPosition text) {
+    String u = text.getUnicode();
+    if (u == null || u.isEmpty()) return;
+    if (count == gx.length) grow();
+    gx[count] = text.getXDirAdj();
+    gy[count] = text.getYDirAdj();
+    gw[count] = text.getWidthDirAdj();
+    gh[count] = text.getHeightDir() > 0 ? text.getHeightDir() : text.getFontSizeInPt();
+    float sp = text.getWidthOfSpace();
+    gsp[count] = (sp > 0 && !Float.isNaN(sp)) ? sp : gw[count];
+    gu[count] = u;
+    count++;
+  }
+
+  @Override
+  protected void writePage() {
+    pageGlyphs = count;
+    try {
+      emitLines();
+    } finally {
+      Arrays.fill(gu, 0, count, null);
+      count = 0;
+    }
+  }
+
+  private void emitLines() {
+    if (count == 0) return;
+
+    // ---- y で行にまとめる（直前の行を優先して探す。グリフは概ね行順に来る） ----
+    int[] lineOf = new int[count];
+    float[] lineY = new float[16];
+    int lines = 0;
+    int last = -1;
+    for (int i = 0; i < count; i++) {
+      float tol = Math.max(1f, gh[i] * LINE_TOLERANCE);
+      int found = -1;
+      if (last >= 0 && Math.abs(lineY[last] - gy[i]) <= tol) {
+        found = last;
+      } else {
+        for (int l = 0; l < lines; l++) {
+          if (Math.abs(lineY[l] - gy[i]) <= tol) {
+            found = l;
+            break;
+          }
+        }
+      }
+      if (found < 0) {
+        if (lines == lineY.length) lineY = Arrays.copyOf(lineY, lines * 2);
+        lineY[lines] = gy[i];
+        found = lines++;
+      }
+      lineOf[i] = found;
+      last = found;
+    }
+
+    // ---- 行ごとのグリフ添字（出現順のまま）----
+    int[] start = new int[lines + 1];
+    for (int i = 0; i < count; i++) start[lineOf[i] + 1]++;
+    for (int l = 0; l < lines; l++) start[l + 1] += start[l];
+    int[] order = new int[count];
+    int[] fill = Arrays.copyOf(start, lines);
+    for (int i = 0; i < count; i++) order[fill[lineOf[i]]++] = i;
+
+    // ---- 行を上から順に ----
+    Integer[] byY = new Integer[lines];
+    for (int l = 0; l < lines; l++) byY[l] = l;
+    final float[] ys = lineY;
+    Arrays.sort(byY, (a, b) -> Float.compare(ys[a], ys[b]));
+
+    StringBuilder token = new StringBuilder(32);
+    for (int l : byY) {
+      int from = start[l];
+      int to = start[l + 1];
+      sortByX(order, from, to);
+
+      List<String> tokens = new ArrayList<>(8);
+      float prevEnd = Float.NaN;
+      for (int k = from; k < to; k++) {
+        int g = order[k];
+        String u = gu[g];
+        if (u.isBlank() || u.charAt(0) == '　') {
+          flush(token, tokens);
+          prevEnd = gx[g] + gw[g];
+          continue;
+        }
+        if (token.length() > 0 && gx[g] - prevEnd > gsp[g] * GAP_RATIO) {
+          flush(token, tokens);
+        }
+        token.append(u);
+        prevEnd = gx[g] + gw[g];
+      }
+      flush(token, tokens);
+      lineSink.accept(tokens);
+    }
+  }
+
+  /** 行内は概ね x 順に並んでいるので挿入ソートで十分 */
+  private void sortByX(int[] order, int from, int to) {
+    for (int i = from + 1; i < to; i++) {
+      int g = order[i];
+      float x = gx[g];
+      int j = i - 1;
+      while (j >= from && gx[order[j]] > x) {
+        order[j + 1] = order[j];
+        j--;
+      }
+      order[j + 1] = g;
+    }
+  }
+
+  private static void flush(StringBuilder token, List<String> tokens) {
+    if (token.length() > 0) {
+      tokens.add(token.toString());
+      token.setLength(0);
+    }
+  }
+
+  private void grow() {
+    int n = gx.length * 2;
+    gx = Arrays.copyOf(gx, n);
+    gy = Arrays.copyOf(gy, n);
+    gw = Arrays.copyOf(gw, n);
+    gh = Arrays.copyOf(gh, n);
+    gsp = Arrays.copyOf(gsp, n);
+    gu = Arrays.copyOf(gu, n);
+  }
+}
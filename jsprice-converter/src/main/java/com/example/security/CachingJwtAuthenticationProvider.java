@@ -0,0 +1,116 @@
+package com.example.security;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 検証済み JWT と変換済みの権限をキャッシュする JwtAuthenticationProvider。
+ * 同じサービストークンで何度も呼ばれるとき、毎回のパース・署名検証・権限の組み立てを省く。
+ * - キーはトークン文字列の SHA-256（トークンそのものはキーに持たない）
+ * - 有効期限は JWT の exp まで。exp の無いトークンはキャッシュしない
+ * - 件数上限付きの LRU。検証に失敗したトークンは覚えない（毎回 delegate で検証して失敗させる）
+ * 失効（鍵のローテーションなど）は exp までは反映されない。トークンの寿命が短い前提。
+ */
+public class CachingJwtAuthenticationProvider implements AuthenticationProvider {
+
+  private record Entry(Jwt jwt, List<GrantedAuthority> authorities, String name, Instant expiresAt) {}
+
+  private final JwtAuthenticationProvider delegate;
+  private final int maxEntries;
+  private final Clock clock;
+
+  // アクセス順（先頭が最も古い）
+  private final LinkedHashMap<String, Entry> entries;
+
+  public CachingJwtAuthenticationProvider(JwtDecoder decoder,
+                                          Converter<Jwt, ? extends AbstractAuthenticationToken> converter,
+                                          int maxEntries) {
+    this(decoder, converter, maxEntries, Clock.systemUTC());
+  }
+
+  CachingJwtAuthenticationProvider(JwtDecoder decoder,
+                                   Converter<Jwt, ? extends AbstractAuthenticationToken> converter,
+                                   int maxEntries, Clock clock) {
+    this.delegate = new JwtAuthenticationProvider(decoder);
+    this.delegate.setJwtAuthenticationConverter(converter);
+    this.maxEntries = maxEntries;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > CachingJwtAuthenticationProvider.this.maxEntries;
+      }
+    };
+  }
+
+  @Override
+  public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+    BearerTokenAuthenticationToken bearer = (BearerTokenAuthenticationToken) authentication;
+    String key = digest(bearer.getToken());
+    Instant now = clock.instant();
+
+    Entry hit;
+    synchronized (entries) {
+      hit = entries.get(key);
+      if (hit != null && !now.isBefore(hit.expiresAt())) {
+        entries.remove(key);
+        hit = null;
+      }
+    }
+    if (hit != null) {
+      // details はリクエストごとに違うので、トークン（認証結果）は毎回作る
+      JwtAuthenticationToken token = new JwtAuthenticationToken(hit.jwt(), hit.authorities(), hit.name());
+      token.setDetails(bearer.getDetails());
+      return token;
+    }
+
+    Authentication result = delegate.authenticate(bearer);
+    if (result instanceof JwtAuthenticationToken jwtAuth && jwtAuth.getToken().getExpiresAt() != null) {
+      Jwt jwt = jwtAuth.getToken();
+      Entry entry = new Entry(jwt, List.copyOf(jwtAuth.getAuthorities()), jwtAuth.getName(), jwt.getExpiresAt());
+      synchronized (entries) {
+        entries.put(key, entry);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean supports(Class<?> authentication) {
+    return BearerTokenAuthenticationToken.class.isAssignableFrom(authentication);
+  }
+
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private static String digest(String token) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.example.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * JWK Set を先読み・先回り更新する JwtDecoder を作る。
+ * Spring Boot 既定の decoder は最初のリクエストで JWK Set を取りに行き、期限切れのたびにリクエスト内で取り直す。
+ * ここでは起動時に 1 回取得しておき（Keycloak が未起動なら警告だけ出して初回リクエスト時に取得）、
+ * 以後は期限の refreshAhead 前にバックグラウンドで取り直す。
+ * issuer / audiences / jws-algorithms の検証は spring.security.oauth2.resourceserver.jwt.* に従う（既定の decoder と同じ）。
+ */
+public final class JwkSetJwtDecoders {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JwkSetJwtDecoders.class);
+
+  private JwkSetJwtDecoders() {}
+
+  public static NimbusJwtDecoder create(OAuth2ResourceServerProperties.Jwt properties,
+                                        Duration cacheTtl, Duration refreshAhead) throws MalformedURLException {
+    URL jwkSetUrl = URI.create(properties.getJwkSetUri()).toURL();
+    JWKSource<SecurityContext> jwkSource = JWKSourceBuilder.<SecurityContext>create(jwkSetUrl)
+        .cache(cacheTtl.toMillis(), JWKSourceBuilder.DEFAULT_CACHE_REFRESH_TIMEOUT)
+        .refreshAheadCache(refreshAhead.toMillis(), true)
+        .build();
+    prefetch(jwkSource, jwkSetUrl);
+
+    Set<JWSAlgorithm> algorithms = properties.getJwsAlgorithms().stream()
+        .map(JWSAlgorithm::parse)
+        .collect(Collectors.toSet());
+    NimbusJwtDecoder decoder = NimbusJwtDecoder.withJwkSetUri(jwkSetUrl.toString())
+        .jwtProcessorCustomizer(p -> p.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, jwkSource)))
+        .build();
+    decoder.setJwtValidator(validator(properties));
+    return decoder;
+  }
+
+  static OAuth2TokenValidator<Jwt> validator(OAuth2ResourceServerProperties.Jwt properties) {
+    List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
+    String issuer = properties.getIssuerUri();
+    validators.add(issuer != null ? JwtValidators.createDefaultWithIssuer(issuer) : JwtValidators.createDefault());
+    List<String> audiences = properties.getAudiences();
+    if (!audiences.isEmpty()) {
+      validators.add(new JwtClaimValidator<List<String>>(JwtClaimNames.AUD,
+          aud -> aud != null && !Collections.disjoint(aud, audiences)));
+    }
+    return new DelegatingOAuth2TokenValidator<>(validators);
+  }
+
+  private static void prefetch(JWKSource<SecurityContext> jwkSource, URL jwkSetUrl) {
+    try {
+      List<JWK> keys = jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null);
+      LOG.info("JWK set prefetched from {} ({} keys)", jwkSetUrl, keys.size());
+    } catch (KeySourceException e) {
+      LOG.warn("JWK set prefetch from {} failed; will fetch on first request: {}", jwkSetUrl, e.toString());
+    }
+  }
+}
@@ -1,17 +1,32 @@
 package com.example.security;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.config.Customizer;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.time.Duration;
+
 @Configuration
 public class SecurityConfig {
 
   @Bean
-  SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+  SecurityFilterChain securityFilterChain(
+      HttpSecurity http,
+      JwtDecoder jwtDecoder,
+      @Value("${app.security.jwtCache.maxEntries:1024}") int jwtCacheMaxEntries) throws Exception {
+    // 検証済みトークンと権限（realm_access.roles → ROLE_*）は exp までキャッシュする
+    JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+    converter.setJwtGrantedAuthoritiesConverter(new KeycloakRealmRoleConverter());
+    ProviderManager jwtAuthenticationManager = new ProviderManager(
+        new CachingJwtAuthenticationProvider(jwtDecoder, converter, jwtCacheMaxEntries));
+
     http
         // API想定なので CSRF は無効化
         .csrf(csrf -> csrf.disable())
@@ -20,6 +35,8 @@ public class SecurityConfig {
         .authorizeHttpRequests(auth -> auth
             // ヘルス/情報は無認証でOK（任意）
             .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+            // メトリクスは社内ネットワークの Prometheus からスクレイプする（Kong では公開しない）
+            .requestMatchers("/actuator/prometheus").permitAll()
 
             // ↓必要ならサービス別の制御をここに追加（例）-----------
             // jsprice-converter: /run は認証必須
@@ -34,8 +51,18 @@ public class SecurityConfig {
         )
 
         // Resource Server (JWT)
-        .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()));
+        .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt.authenticationManager(jwtAuthenticationManager)));
 
     return http.build();
   }
+
+  // JWK Set は起動時に先読みし、期限前にバックグラウンドで取り直す
+  @Bean
+  JwtDecoder jwtDecoder(
+      OAuth2ResourceServerProperties properties,
+      @Value("${app.security.jwk.cacheTtlSec:300}") long cacheTtlSec,
+      @Value("${app.security.jwk.refreshAheadSec:30}") long refreshAheadSec) throws Exception {
+    return JwkSetJwtDecoders.create(properties.getJwt(),
+        Duration.ofSeconds(cacheTtlSec), Duration.ofSeconds(refreshAheadSec));
+  }
 }
@@ -0,0 +1,96 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.PdfToCsvProcessor;
+import com.example.jsprice.processor.RowStage;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackfillTest {
+
+  @TempDir
+  Path dir;
+
+  private Backfill backfill(Backfill.Downloader downloader, int memoryBudgetMb) {
+    return new Backfill(new DefaultCamelContext(), downloader, dir.resolve("out"), dir.resolve("tmp"),
+        PdfToCsvProcessor.Engine.TEXT, 4, true, RowStage.Order.EXTRACTED, 2, memoryBudgetMb, false);
+  }
+
+  private Path pdf(String name, String... rows) throws Exception {
+    Path p = dir.resolve("in").resolve(name);
+    Files.createDirectories(p.getParent());
+    Files.write(p, PdfFixtures.createSimpleAsciiPdf("JS PRICE (TEST)", "As of", rows));
+    return p;
+  }
+
+  @Test
+  void glob_convertsEachFile_reportsFailures_andWritesCombined() throws Exception {
+    pdf("jsprice_01_202506.pdf", "JGB-30Y 2033/3/20 1.1 99.2936");
+    pdf("jsprice_01_202505.pdf", "JGB-30Y 2033/3/20 1.1 98.5123", "JGB-40Y 2057/3/20 0.9 59.8393");
+    Files.writeString(dir.resolve("in/jsprice_01_202507.pdf"), "not a pdf");
+
+    Backfill.Report report = backfill((url, target) -> fail("no remote sources"), 512)
+        .run(List.of(dir.resolve("in") + "/jsprice_01_*.pdf"), "jsprice_history.csv");
+
+    assertEquals(3, report.files().size());
+    assertEquals(1, report.failed());
+    Backfill.FileResult broken = report.files().stream().filter(f -> !f.ok()).findFirst().orElseThrow();
+    assertTrue(broken.source().endsWith("jsprice_01_202507.pdf"));
+    assertNull(broken.output());
+
+    assertEquals(List.of(
+            "brand,maturity_date,coupon_pct,price_jpy",
+            "JGB-30Y,2033-03-20,1.1,99.2936"),
+        Files.readAllLines(dir.resolve("out/jsprice_20250630.csv")));
+    assertEquals(2, report.files().stream()
+        .filter(f -> LocalDate.of(2025, 5, 31).equals(f.asOf())).findFirst().orElseThrow().rows());
+
+    // 基準日順に連結し、as_of 列を付ける（失敗したファイルは含めない）
+    assertEquals(List.of(
+            "as_of,brand,maturity_date,coupon_pct,price_jpy",
+            "2025-05-31,JGB-30Y,2033-03-20,1.1,98.5123",
+            "2025-05-31,JGB-40Y,2057-03-20,0.9,59.8393",
+            "2025-06-30,JGB-30Y,2033-03-20,1.1,99.2936"),
+        Files.readAllLines(Path.of(report.combined()), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void urlsAndDirectories_withTightMemoryBudget() throws Exception {
+    Path local = pdf("jsprice_01_202404.pdf", "JGB-30Y 2033/3/20 1.1 97.0000");
+    byte[] remote = PdfFixtures.createSimpleAsciiPdf("JS PRICE (TEST)", "As of", "JGB-40Y 2057/3/20 0.9 59.8393");
+    Map<String, byte[]> host = Map.of("http://pdf-host:10081/jsprice/jsprice_01_202403.pdf", remote);
+
+    // 予算 1MB: どの PDF も WHOLE の見込みを超えないが、予算内で 1 本ずつしか走らない
+    Backfill.Report report = backfill((url, target) -> Files.write(target, host.get(url)), 1)
+        .run(List.of(dir.resolve("in").toString(), "http://pdf-host:10081/jsprice/jsprice_01_202403.pdf"), "");
+
+    assertEquals(0, report.failed());
+    assertNull(report.combined());
+    assertEquals(local.toString(), report.files().get(0).source());
+    assertEquals(List.of("brand,maturity_date,coupon_pct,price_jpy", "JGB-40Y,2057-03-20,0.9,59.8393"),
+        Files.readAllLines(dir.resolve("out/jsprice_20240331.csv")));
+    assertTrue(Files.isRegularFile(dir.resolve("out/jsprice_20240430.csv")));
+    // ダウンロードした一時ファイルは残さない
+    try (var tmp = Files.list(dir.resolve("tmp"))) {
+      assertEquals(0, tmp.count());
+    }
+  }
+
+  @Test
+  void asOf_fromFileName() {
+    assertEquals(LocalDate.of(2025, 6, 30), Backfill.asOf("jsprice_01_202506"));
+    assertEquals(LocalDate.of(2024, 2, 29), Backfill.asOf("jsprice_01_202402"));
+    assertEquals(LocalDate.of(2025, 6, 27), Backfill.asOf("jsprice_20250627"));
+    assertNull(Backfill.asOf("sample"));
+    assertNull(Backfill.asOf("jsprice_01_202513"));
+  }
+}
@@ -0,0 +1,126 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondColumnarReader;
+import com.example.jsprice.processor.BondColumnarWriter;
+import com.example.jsprice.processor.BondCsvWriter;
+import com.example.jsprice.processor.BondRow;
+import com.example.jsprice.processor.ColumnarExportProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BondColumnarTest {
+
+  @TempDir
+  Path dir;
+
+  private static BondRow row(String brand, LocalDate maturity, String coupon, String price) {
+    return new BondRow(brand, (int) maturity.toEpochDay(),
+        coupon.isEmpty() ? BondRow.NO_VALUE : BondRow.parseScaled(coupon, 0, coupon.length()),
+        BondRow.parseScaled(price, 0, price.length()));
+  }
+
+  private Path writeCsv(List<BondRow> rows) throws IOException {
+    Path csv = dir.resolve("jsprice_20250630.csv");
+    try (BondCsvWriter w = new BondCsvWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+      w.writeHeader();
+      for (BondRow r : rows) w.write(r);
+    }
+    return csv;
+  }
+
+  @Test
+  void exportFromCsv_roundTripsThroughMmapReader() throws Exception {
+    List<BondRow> rows = List.of(
+        row("利付国債(10年)(第370回)", LocalDate.of(2033, 3, 20), "0.5", "99.2936"),
+        row("トヨタ自動車 \"A\", 第1回", LocalDate.of(2030, 6, 20), "", "101.05"),
+        row("利付国債(10年)(第370回)", LocalDate.of(2033, 3, 20), "0.5", "99.2936"));
+    Path csv = writeCsv(rows);
+
+    Path jspc = ColumnarExportProcessor.export(csv);
+    assertEquals(dir.resolve("jsprice_20250630.jspc"), jspc);
+
+    BondColumnarReader r = BondColumnarReader.open(jspc);
+    assertEquals(3, r.rows());
+    assertEquals(2, r.dictionarySize()); // 同じ銘柄名は 1 回だけ持つ
+    assertEquals(r.brandId(0), r.brandId(2));
+    assertEquals("トヨタ自動車 \"A\", 第1回", r.brand(1));
+    assertEquals(LocalDate.of(2030, 6, 20), r.maturityDate(1));
+    assertEquals(BondRow.NO_VALUE, r.coupon(1));
+    assertEquals(101_050_000L, r.price(1));
+
+    List<BondRow> read = new ArrayList<>();
+    r.forEach(read::add);
+    assertEquals(rows, read);
+    assertThrows(IndexOutOfBoundsException.class, () -> r.price(3));
+  }
+
+  @Test
+  void manyBrands_wideIds_andSmallerThanCsv() throws Exception {
+    List<BondRow> rows = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      // 300 銘柄 → 辞書 ID は 2 バイト
+      rows.add(row("利付国債(20年)(第" + (i % 300) + "回)", LocalDate.of(2030, 1, 1).plusDays(i % 365),
+          i % 7 == 0 ? "" : "1.2", "100." + (1000 + i)));
+    }
+    Path csv = writeCsv(rows);
+    Path jspc = ColumnarExportProcessor.export(csv);
+
+    BondColumnarReader r = BondColumnarReader.open(jspc);
+    assertEquals(300, r.dictionarySize());
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.get(i), r.row(i));
+    }
+    assertTrue(Files.size(jspc) * 2 < Files.size(csv), Files.size(jspc) + " vs " + Files.size(csv));
+  }
+
+  @Test
+  void rejectsOtherFiles() throws Exception {
+    Path bogus = Files.write(dir.resolve("x.jspc"), new byte[128]);
+    assertThrows(IOException.class, () -> BondColumnarReader.open(bogus));
+
+    Path empty = dir.resolve("empty.jspc");
+    new BondColumnarWriter(empty).close();
+    assertEquals(0, BondColumnarReader.open(empty).rows());
+  }
+
+  @Test
+  void truncatedOrCorruptFile_failsWithIOException() throws Exception {
+    Path csv = writeCsv(List.of(
+        row("利付国債(10年)(第370回)", LocalDate.of(2033, 3, 20), "0.5", "99.2936"),
+        row("利付国債(20年)(第180回)", LocalDate.of(2042, 3, 20), "1.1", "95.5")));
+    byte[] bytes = Files.readAllBytes(ColumnarExportProcessor.export(csv));
+
+    // どこで切れても IndexOutOfBoundsException ではなく「壊れたファイル」
+    for (int len = 0; len < bytes.length; len++) {
+      ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(bytes, len));
+      assertThrows(IOException.class, () -> new BondColumnarReader(truncated), "length " + len);
+    }
+
+    // 辞書の位置がファイル末尾（長さの欄が読めない）
+    ByteBuffer dictAtEnd = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+    dictAtEnd.putLong(24, bytes.length - 2);
+    assertThrows(IOException.class, () -> new BondColumnarReader(dictAtEnd));
+
+    // 列ブロックの辞書 ID が辞書の範囲外
+    ByteBuffer badId = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+    badId.put((int) badId.getLong(32), (byte) 7);
+    BondColumnarReader r = new BondColumnarReader(badId);
+    assertEquals(7, r.brandId(0));
+    assertThrows(IllegalStateException.class, () -> r.brand(0));
+    assertEquals("利付国債(20年)(第180回)", r.brand(1));
+    assertThrows(IndexOutOfBoundsException.class, () -> r.dictionaryEntry(2));
+  }
+}
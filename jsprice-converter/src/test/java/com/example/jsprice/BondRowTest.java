@@ -0,0 +1,52 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondRow;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BondRowTest {
+
+  @Test
+  void decimals_matchBigDecimalStripTrailingZeros() {
+    String[] inputs = {"99.2936", "2", "2.0", "100.0000", "50.5760", "0.4", "0", "0.000", "1,001.5", "007.50", ".5", "5.", "0.000005"};
+    for (String s : inputs) {
+      String expected = new BigDecimal(s.replace(",", "")).stripTrailingZeros().toPlainString();
+      StringBuilder sb = new StringBuilder();
+      BondRow.appendScaled(sb, BondRow.parseScaled(s, 0, s.length()));
+      assertEquals(expected, sb.toString(), s);
+    }
+  }
+
+  @Test
+  void decimals_rejectMalformed() {
+    for (String s : new String[]{"1.2.3", ",", ".", "1.0000001"}) {
+      assertThrows(NumberFormatException.class, () -> BondRow.parseScaled(s, 0, s.length()), s);
+    }
+  }
+
+  @Test
+  void missingCoupon_isEmpty() {
+    StringBuilder sb = new StringBuilder();
+    BondRow.appendScaled(sb, BondRow.NO_VALUE);
+    assertEquals("", sb.toString());
+  }
+
+  @Test
+  void dates_roundTripLikeLocalDate() {
+    for (LocalDate d : new LocalDate[]{
+        LocalDate.of(2033, 3, 20), LocalDate.of(2000, 2, 29), LocalDate.of(1970, 1, 1),
+        LocalDate.of(1969, 12, 31), LocalDate.of(2065, 12, 20), LocalDate.of(205, 1, 5)}) {
+      int epochDay = BondRow.epochDay(d.getYear(), d.getMonthValue(), d.getDayOfMonth());
+      assertEquals(d.toEpochDay(), epochDay);
+      StringBuilder sb = new StringBuilder();
+      BondRow.appendDate(sb, epochDay);
+      assertEquals(String.format("%04d-%02d-%02d", d.getYear(), d.getMonthValue(), d.getDayOfMonth()), sb.toString());
+    }
+    assertFalse(BondRow.isValidDate(2033, 2, 30));
+    assertFalse(BondRow.isValidDate(2033, 13, 1));
+  }
+}
@@ -0,0 +1,106 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.PdfDownloadProcessor;
+import com.example.jsprice.processor.PdfToCsvProcessor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversionCacheTest {
+
+  private final DefaultCamelContext ctx = new DefaultCamelContext();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void missThenHit_servesCsvWithoutConverting(@TempDir Path dir) throws Exception {
+    ConversionCache cache = new ConversionCache(dir.resolve("cache"), 1 << 20, Duration.ofHours(1), registry);
+    Path out = dir.resolve("out");
+
+    Exchange first = exchange("aaaa", out);
+    cache.lookup(first, "v1-text");
+    assertEquals(false, first.getProperty(ConversionCache.PROP_HIT));
+    first.getIn().setBody("brand,maturity_date,coupon_pct,price_jpy\nA,2030-01-01,1,100\n");
+    cache.store(first);
+
+    Exchange second = exchange("aaaa", out);
+    cache.lookup(second, "v1-text");
+    assertEquals(true, second.getProperty(ConversionCache.PROP_HIT));
+    File tmp = second.getIn().getBody(File.class);
+    assertEquals(out, tmp.toPath().getParent(), "served copy should sit next to the target");
+    assertEquals(tmp.toString(), second.getIn().getHeader(Exchange.FILE_LOCAL_WORK_PATH));
+    assertEquals("brand,maturity_date,coupon_pct,price_jpy\nA,2030-01-01,1,100\n", Files.readString(tmp.toPath()));
+
+    // 抽出器の版が違えば別エントリ
+    Exchange other = exchange("aaaa", out);
+    cache.lookup(other, "v1-position");
+    assertEquals(false, other.getProperty(ConversionCache.PROP_HIT));
+
+    assertEquals(1.0, registry.get("jsprice.cache.requests").tag("result", "hit").counter().count());
+    assertEquals(2.0, registry.get("jsprice.cache.requests").tag("result", "miss").counter().count());
+  }
+
+  @Test
+  void evictsLeastRecentlyUsed_whenOverSize(@TempDir Path dir) throws Exception {
+    ConversionCache cache = new ConversionCache(dir, 250, Duration.ofHours(1), registry);
+    String csv = "x".repeat(100);
+
+    store(cache, "a", csv, dir);
+    store(cache, "b", csv, dir);
+    lookup(cache, "a", dir);          // a を最近使ったことにする
+    store(cache, "c", csv, dir);      // 300 バイト > 250 -> 最も古い b を追い出す
+
+    assertTrue(lookup(cache, "a", dir));
+    assertFalse(lookup(cache, "b", dir));
+    assertTrue(lookup(cache, "c", dir));
+    assertEquals(200, cache.sizeBytes());
+    assertEquals(1.0, registry.get("jsprice.cache.evictions").counter().count());
+    assertFalse(Files.exists(dir.resolve("b-v1.csv")));
+  }
+
+  @Test
+  void expiresByAge_andReloadsIndexOnRestart(@TempDir Path dir) throws Exception {
+    ConversionCache cache = new ConversionCache(dir, 1 << 20, Duration.ofHours(1), registry);
+    store(cache, "a", "abc", dir);
+
+    ConversionCache restarted = new ConversionCache(dir, 1 << 20, Duration.ofHours(1), new SimpleMeterRegistry());
+    assertEquals(1, restarted.entryCount());
+    assertTrue(lookup(restarted, "a", dir));
+
+    ConversionCache shortLived = new ConversionCache(dir, 1 << 20, Duration.ZERO, new SimpleMeterRegistry());
+    Thread.sleep(5);
+    assertFalse(lookup(shortLived, "a", dir));
+    assertEquals(0, shortLived.entryCount());
+  }
+
+  private void store(ConversionCache cache, String sha, String csv, Path out) throws Exception {
+    Exchange ex = exchange(sha, out);
+    cache.lookup(ex, "v1");
+    ex.getIn().setBody(csv);
+    cache.store(ex);
+  }
+
+  private boolean lookup(ConversionCache cache, String sha, Path out) throws Exception {
+    Exchange ex = exchange(sha, out);
+    cache.lookup(ex, "v1");
+    boolean hit = ex.getProperty(ConversionCache.PROP_HIT, Boolean.class);
+    if (hit) Files.delete(ex.getIn().getBody(File.class).toPath());
+    return hit;
+  }
+
+  private Exchange exchange(String sha, Path out) {
+    Exchange ex = new DefaultExchange(ctx);
+    ex.getIn().setHeader(PdfDownloadProcessor.HEADER_SHA256, sha);
+    ex.getIn().setHeader(PdfToCsvProcessor.HEADER_OUTPUT_DIR, out.toString());
+    return ex;
+  }
+}
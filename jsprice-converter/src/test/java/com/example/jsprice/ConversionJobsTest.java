@@ -0,0 +1,119 @@
+package com.example.jsprice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversionJobsTest {
+
+  private final DefaultCamelContext ctx = new DefaultCamelContext();
+  private ConversionJobs jobs;
+
+  private ConversionJobs jobs(Function<Map<String, Object>, Exchange> runner, int workers, int queue) {
+    jobs = new ConversionJobs(runner, new SimpleMeterRegistry(), workers, queue, 10, 15, false);
+    return jobs;
+  }
+
+  @AfterEach
+  void shutdown() throws Exception {
+    if (jobs != null) jobs.destroy();
+  }
+
+  private ConversionJobs.JobStatus await(String id) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (System.nanoTime() < deadline) {
+      ConversionJobs.JobStatus s = jobs.find(id).orElseThrow();
+      if (s.state() != ConversionJobs.State.QUEUED && s.state() != ConversionJobs.State.RUNNING) return s;
+      Thread.sleep(10);
+    }
+    fail("job did not finish: " + id);
+    return null;
+  }
+
+  @Test
+  void submit_returnsImmediately_andStatusShowsOutput() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    jobs(headers -> {
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      Exchange ex = new DefaultExchange(ctx);
+      ex.getIn().setHeaders(headers);
+      ex.getMessage().setHeader(Exchange.FILE_NAME_PRODUCED, "/data/output/jsprice_20250630.csv");
+      return ex;
+    }, 1, 1);
+
+    ConversionJobs.JobStatus submitted = jobs.submit(Map.of(SourceChangeTracker.HEADER_FORCE, true), true);
+    assertEquals(ConversionJobs.State.QUEUED, submitted.state());
+    assertTrue(submitted.force());
+    assertNull(submitted.finishedAt());
+
+    release.countDown();
+    ConversionJobs.JobStatus done = await(submitted.id());
+    assertEquals(ConversionJobs.State.SUCCEEDED, done.state());
+    assertEquals("/data/output/jsprice_20250630.csv", done.output());
+    assertNotNull(done.queuedMs());
+    assertNotNull(done.runMs());
+  }
+
+  @Test
+  void fullQueue_isRejected() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    jobs(headers -> {
+      started.countDown();
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return new DefaultExchange(ctx);
+    }, 1, 1);
+
+    ConversionJobs.JobStatus running = jobs.submit(Map.of(), false);
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    ConversionJobs.JobStatus queued = jobs.submit(Map.of(), false);
+    assertThrows(RejectedExecutionException.class, () -> jobs.submit(Map.of(), false));
+    assertEquals(15, jobs.retryAfterSeconds());
+
+    assertEquals(ConversionJobs.State.RUNNING, jobs.find(running.id()).orElseThrow().state());
+    assertEquals(ConversionJobs.State.QUEUED, jobs.find(queued.id()).orElseThrow().state());
+    release.countDown();
+    assertEquals(ConversionJobs.State.SUCCEEDED, await(queued.id()).state());
+  }
+
+  @Test
+  void handledException_andRouteStop_areReported() throws Exception {
+    jobs(headers -> {
+      Exchange ex = new DefaultExchange(ctx);
+      if (Boolean.TRUE.equals(headers.get(SourceChangeTracker.HEADER_FORCE))) {
+        // onException(handled=true) を通った Exchange
+        ex.setProperty(Exchange.EXCEPTION_CAUGHT, new IllegalStateException("HTTP 401"));
+      } else {
+        ex.setRouteStop(true);
+      }
+      return ex;
+    }, 1, 4);
+
+    ConversionJobs.JobStatus failed = await(jobs.submit(Map.of(SourceChangeTracker.HEADER_FORCE, true), true).id());
+    assertEquals(ConversionJobs.State.FAILED, failed.state());
+    assertEquals("HTTP 401", failed.error());
+
+    ConversionJobs.JobStatus skipped = await(jobs.submit(Map.of(SourceChangeTracker.HEADER_FORCE, false), false).id());
+    assertEquals(ConversionJobs.State.SKIPPED, skipped.state());
+    assertNull(skipped.output());
+  }
+}
@@ -0,0 +1,71 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.ExtractStats;
+import com.example.jsprice.processor.PdfToCsvProcessor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversionMetricsTest {
+
+  private final DefaultCamelContext ctx = new DefaultCamelContext();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final ConversionMetrics metrics = new ConversionMetrics(registry);
+
+  @Test
+  void recordsStagesPagesAndRows_inEveryModeAndEngine() throws Exception {
+    byte[] pdf = PdfFixtures.createMultiPageAsciiPdf(
+        new String[]{"JGB-30Y 2033/3/20 1.1 99.2936", "JGB-20Y"},
+        new String[]{"2031/12/20 1.7 103.8442", "JGB-BAD 2035/2/30 1.4 99.744"},
+        new String[]{"JGB-40Y 2057/3/20 0.9 59.8393"});
+
+    int runs = 0;
+    for (PdfToCsvProcessor.Mode mode : PdfToCsvProcessor.Mode.values()) {
+      for (PdfToCsvProcessor.Engine engine : PdfToCsvProcessor.Engine.values()) {
+        Exchange ex = new DefaultExchange(ctx);
+        ex.getIn().setBody(pdf);
+        new PdfToCsvProcessor().mode(mode).engine(engine).windowPages(1).parallelism(2).process(ex);
+        metrics.recordExtract(ex);
+        runs++;
+
+        ExtractStats stats = ex.getProperty(PdfToCsvProcessor.PROP_STATS, ExtractStats.class);
+        String label = mode + "/" + engine;
+        assertEquals(3, stats.pages(), label);
+        assertEquals(3, stats.rows(), label);
+        assertEquals(1, stats.rejected(), label + ": 2/30 は存在しない日付");
+        assertTrue(stats.extractNanos() > 0 && stats.matchNanos() > 0 && stats.csvNanos() > 0, label);
+      }
+    }
+
+    assertEquals(runs, registry.get("jsprice.stage").tag("stage", "extract").timer().count());
+    assertEquals(runs, registry.get("jsprice.stage").tag("stage", "match").timer().count());
+    assertEquals(runs, registry.get("jsprice.stage").tag("stage", "csv").timer().count());
+    assertEquals(3.0 * runs, registry.get("jsprice.pages").counter().count());
+    assertEquals(3.0 * runs, registry.get("jsprice.rows").tag("result", "emitted").counter().count());
+    assertEquals(1.0 * runs, registry.get("jsprice.rows").tag("result", "rejected").counter().count());
+  }
+
+  @Test
+  void routeSection_recordsOnlyWhenStarted() throws Exception {
+    Exchange ex = new DefaultExchange(ctx);
+    ex.getIn().setHeader(Exchange.FILE_LENGTH, 1234L);
+
+    // 304 で打ち切った回などは開始していない -> 記録しない
+    metrics.stop(ConversionMetrics.STAGE_FILE_WRITE).process(ex);
+    assertEquals(0, registry.get("jsprice.stage").tag("stage", "file_write").timer().count());
+
+    metrics.start(ConversionMetrics.STAGE_DOWNLOAD).process(ex);
+    metrics.recordDownload(ex);
+    metrics.recordDownload(ex);  // 2 回目は区間が閉じているので時間は記録しない
+
+    assertEquals(1, registry.get("jsprice.stage").tag("stage", "download").timer().count());
+    assertEquals(2468.0, registry.get("jsprice.download.bytes").counter().count());
+
+    assertEquals("token", metrics.time(ConversionMetrics.STAGE_TOKEN, () -> "token"));
+    assertEquals(1, registry.get("jsprice.stage").tag("stage", "token").timer().count());
+  }
+}
@@ -0,0 +1,143 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.DeltaProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaProcessorTest {
+
+  @TempDir
+  Path dir;
+
+  private Path csv(String name, String... rows) throws Exception {
+    Path p = dir.resolve(name);
+    Files.writeString(p, "brand,maturity_date,coupon_pct,price_jpy\n" + String.join("\n", rows) + (rows.length > 0 ? "\n" : ""));
+    return p;
+  }
+
+  @Test
+  void diff_joinsOnBrandAndMaturity() throws Exception {
+    Path prev = csv("prev.csv",
+        "JGB-10Y,2033-03-20,0.5,97.1",
+        "JGB-10Y,2033-06-20,1.1,99.2936",    // 同じ銘柄名でも償還日が違えば別の行
+        "JGB-20Y,2044-03-20,1.6,95.0",
+        "STRIPS,2030-06-20,,95.0",
+        "\"A,B\",2030-06-20,0.1,99.0",
+        "DUP,2030-01-01,0.1,100.0",
+        "DUP,2030-01-01,0.1,100.0");
+    Path curr = csv("curr.csv",
+        "JGB-10Y,2033-03-20,0.5,97.1",
+        "JGB-10Y,2033-06-20,1.1,99.3",
+        "STRIPS,2030-06-20,,95.0",
+        "STRIPS,2031-06-20,,94.0",
+        "\"A,B\",2030-06-20,0.2,99.0",
+        "DUP,2030-01-01,0.1,100.0");
+    Path out = dir.resolve("delta.csv");
+
+    DeltaProcessor.Counts c = DeltaProcessor.diff(prev, curr, out);
+
+    assertEquals(new DeltaProcessor.Counts(1, 2, 2, 3), c);
+    assertEquals(List.of(
+            "change,brand,maturity_date,coupon_pct,price_jpy",
+            "changed,JGB-10Y,2033-06-20,1.1,99.3",
+            "added,STRIPS,2031-06-20,,94",
+            "changed,\"A,B\",2030-06-20,0.2,99",
+            "removed,JGB-20Y,2044-03-20,1.6,95",
+            "removed,DUP,2030-01-01,0.1,100"),
+        Files.readAllLines(out));
+  }
+
+  /** ルートの 1 回分（差分を作る → file: で rename → 差分を置く）を再現する */
+  private Exchange run(DeltaProcessor delta, Path out, String body) throws Exception {
+    return run(delta, out, "jsprice_20250630.csv", body);
+  }
+
+  private Exchange run(DeltaProcessor delta, Path out, String fileName, String body) throws Exception {
+    Files.createDirectories(out);
+    Path work = Files.createTempFile(out, ".jsprice-", ".csv.tmp");
+    Files.writeString(work, "brand,maturity_date,coupon_pct,price_jpy\n" + body);
+    Exchange ex = new DefaultExchange(new DefaultCamelContext());
+    ex.getIn().setHeader(Exchange.FILE_LOCAL_WORK_PATH, work.toString());
+    ex.getIn().setHeader("outputFileName", fileName);
+    delta.process(ex);
+    Path target = out.resolve(fileName);
+    Files.move(work, target, StandardCopyOption.REPLACE_EXISTING);
+    ex.getMessage().setHeader(Exchange.FILE_NAME_PRODUCED, target.toString());
+    delta.publish(ex);
+    return ex;
+  }
+
+  @Test
+  void noPreviousOutput_allRowsAdded() throws Exception {
+    Path out = dir.resolve("out");
+    DeltaProcessor delta = new DeltaProcessor(dir.resolve("delta"));
+
+    Exchange ex = run(delta, out, "JGB-10Y,2033-03-20,0.5,97.1\nJGB-20Y,2044-03-20,1.6,95\n");
+
+    Path published = dir.resolve("delta/jsprice_20250630_delta.csv");
+    assertEquals(published.toString(), ex.getProperty(DeltaProcessor.PROP_OUTPUT));
+    assertEquals(List.of("change,brand,maturity_date,coupon_pct,price_jpy",
+            "added,JGB-10Y,2033-03-20,0.5,97.1",
+            "added,JGB-20Y,2044-03-20,1.6,95"),
+        Files.readAllLines(published));
+    // 出力先には全件の CSV だけ（差分・一時ファイルは置かない）
+    try (var files = Files.list(out)) {
+      assertEquals(List.of(out.resolve("jsprice_20250630.csv")), files.toList());
+    }
+  }
+
+  @Test
+  void processAndPublish_againstKeptCopy_evenIfOutputWasMovedAway() throws Exception {
+    Path out = dir.resolve("out");
+    DeltaProcessor delta = new DeltaProcessor(dir.resolve("delta"));
+    run(delta, out, "JGB-10Y,2033-03-20,0.5,97.1\n");
+
+    // 後段（csv-postprocessor）が出力を .done/ へ移した
+    Files.createDirectories(out.resolve(".done"));
+    Files.move(out.resolve("jsprice_20250630.csv"), out.resolve(".done/jsprice_20250630.csv"));
+
+    run(delta, out, "JGB-10Y,2033-03-20,0.5,97.2\n");
+    Path published = dir.resolve("delta/jsprice_20250630_delta.csv");
+    assertEquals(List.of("change,brand,maturity_date,coupon_pct,price_jpy", "changed,JGB-10Y,2033-03-20,0.5,97.2"),
+        Files.readAllLines(published));
+    try (var files = Files.list(dir.resolve("delta"))) {
+      assertEquals(2, files.count());   // 差分と .previous/ だけ（一時ファイルは残らない）
+    }
+
+    // 前回分が読めなければ差分を作らず、古い差分も消す
+    Files.writeString(dir.resolve("delta/.previous/jsprice_20250630.csv"), "not,a,js,price\n");
+    Path work = Files.createTempFile(out, ".jsprice-", ".csv.tmp");
+    Files.writeString(work, "brand,maturity_date,coupon_pct,price_jpy\n");
+    Exchange again = new DefaultExchange(new DefaultCamelContext());
+    again.getIn().setHeader(Exchange.FILE_LOCAL_WORK_PATH, work.toString());
+    again.getIn().setHeader("outputFileName", "jsprice_20250630.csv");
+    delta.process(again);
+    assertNull(again.getProperty(DeltaProcessor.PROP_PENDING));
+    assertFalse(Files.exists(published));
+  }
+
+  @Test
+  void publish_keepsOnlyLatestPreviousOutput() throws Exception {
+    Path out = dir.resolve("out");
+    DeltaProcessor delta = new DeltaProcessor(dir.resolve("delta"));
+    run(delta, out, "jsprice_20250630.csv", "JGB-10Y,2033-03-20,0.5,97.1\n");
+    run(delta, out, "jsprice_20250731.csv", "JGB-10Y,2033-03-20,0.5,97.3\n");
+
+    // 日付が変わっても前回分（一番新しいもの）と突き合わせ、.previous/ には今回分だけが残る
+    assertEquals(List.of("change,brand,maturity_date,coupon_pct,price_jpy", "changed,JGB-10Y,2033-03-20,0.5,97.3"),
+        Files.readAllLines(dir.resolve("delta/jsprice_20250731_delta.csv")));
+    try (var files = Files.list(dir.resolve("delta/.previous"))) {
+      assertEquals(List.of(dir.resolve("delta/.previous/jsprice_20250731.csv")), files.toList());
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.PdfToCsvProcessor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderSupportTest {
+
+  private final DefaultCamelContext ctx = new DefaultCamelContext();
+
+  @Test
+  void slowRun_dumpsRecordingWithPipelineEvents(@TempDir Path dir) throws Exception {
+    Recording recording = FlightRecorderSupport.startRecording("default", Duration.ofMinutes(5), 16 * 1024 * 1024);
+    try {
+      FlightRecorderSupport jfr = new FlightRecorderSupport(recording, -1, dir, Duration.ofMinutes(10));
+      ConversionMetrics metrics = new ConversionMetrics(new SimpleMeterRegistry());
+
+      Exchange ex = new DefaultExchange(ctx);
+      ex.getIn().setBody(PdfFixtures.createMultiPageAsciiPdf(
+          new String[]{"JGB-30Y 2033/3/20 1.1 99.2936"},
+          new String[]{"JGB-20Y 2031/12/20 1.7 103.8442"}));
+      metrics.start(ConversionMetrics.STAGE_FILE_WRITE).process(ex);
+      new PdfToCsvProcessor().process(ex);
+      metrics.stop(ConversionMetrics.STAGE_FILE_WRITE).process(ex);
+
+      Path dump = jfr.checkRun(ex);
+      assertNotNull(dump);
+      assertEquals(dir, dump.getParent());
+      // 続けて遅い回が来ても minDumpInterval の間は書き出さない
+      assertNull(jfr.checkRun(ex));
+
+      List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+          .filter(e -> e.getEventType().getName().startsWith("jsprice."))
+          .toList();
+      Set<String> types = events.stream().map(e -> e.getEventType().getName()).collect(Collectors.toSet());
+      assertEquals(Set.of("jsprice.PageExtract", "jsprice.RowMatch", "jsprice.CsvFlush",
+          "jsprice.Conversion", "jsprice.RouteStage"), types);
+
+      List<Integer> pages = events.stream()
+          .filter(e -> e.getEventType().getName().equals("jsprice.PageExtract"))
+          .filter(e -> e.getInt("glyphs") > 0)
+          .map(e -> e.getInt("page"))
+          .sorted()
+          .toList();
+      assertEquals(List.of(1, 2), pages);
+
+      RecordedEvent conversion = events.stream()
+          .filter(e -> e.getEventType().getName().equals("jsprice.Conversion"))
+          .findFirst().orElseThrow();
+      assertEquals(2, conversion.getLong("rows"));
+      assertEquals("TEXT", conversion.getString("engine"));
+    } finally {
+      recording.close();
+    }
+  }
+
+  @Test
+  void disabled_neverDumps(@TempDir Path dir) {
+    FlightRecorderSupport jfr = new FlightRecorderSupport(null, -1, dir, Duration.ZERO);
+    assertFalse(jfr.isRecording());
+    assertNull(jfr.checkRun(new DefaultExchange(ctx)));
+  }
+}
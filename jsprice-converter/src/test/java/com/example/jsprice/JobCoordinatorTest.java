@@ -0,0 +1,131 @@
+package com.example.jsprice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobCoordinatorTest {
+
+  private static final String SOURCE = "http://pdf-host:10081/jsprice/sample";
+
+  private final DefaultCamelContext ctx = new DefaultCamelContext();
+  private final ExecutorService callers = Executors.newCachedThreadPool();
+
+  private final AtomicInteger runs = new AtomicInteger();
+  private final List<Map<String, Object>> seenHeaders = new CopyOnWriteArrayList<>();
+  private final CountDownLatch firstRunStarted = new CountDownLatch(1);
+  private volatile CountDownLatch release = new CountDownLatch(0);
+  private volatile int failOnRun;
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  /** 何回目の実行かを本文に入れて返す。release されるまで終わらない */
+  private final JobCoordinator coordinator = new JobCoordinator(headers -> {
+    int n = runs.incrementAndGet();
+    seenHeaders.add(headers);
+    firstRunStarted.countDown();
+    try {
+      release.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (n == failOnRun) throw new IllegalStateException("run " + n + " failed");
+    Exchange ex = new DefaultExchange(ctx);
+    ex.getMessage().setBody("run-" + n);
+    ex.setProperty("jsprice.run", n);
+    return ex;
+  }, registry, SOURCE);
+
+  @AfterEach
+  void shutdown() {
+    callers.shutdownNow();
+  }
+
+  /** 実行中の回の後ろに n 件がまとめられるまで待つ */
+  private void awaitCoalesced(int n) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (registry.get("jsprice.trigger").tag("result", "coalesced").counter().count() < n) {
+      if (System.nanoTime() > deadline) fail("triggers were not coalesced");
+      Thread.sleep(5);
+    }
+  }
+
+  private Future<String> trigger(Map<String, Object> headers) {
+    return callers.submit(() -> coordinator.run(SOURCE, headers).getMessage().getBody(String.class));
+  }
+
+  @Test
+  void burstDuringRun_coalescesIntoOneFollowUp() throws Exception {
+    release = new CountDownLatch(1);
+    Future<String> first = trigger(Map.of());
+    assertTrue(firstRunStarted.await(10, TimeUnit.SECONDS));
+
+    List<Future<String>> during = new ArrayList<>();
+    during.add(trigger(Map.of()));
+    during.add(trigger(Map.of(SourceChangeTracker.HEADER_FORCE, true)));
+    for (int i = 0; i < 8; i++) during.add(trigger(Map.of()));
+    awaitCoalesced(9); // 1 件が次の回を受け持ち、残り 9 件がそこにまとめられる
+    release.countDown();
+
+    assertEquals("run-1", first.get(10, TimeUnit.SECONDS));
+    for (Future<String> f : during) {
+      assertEquals("run-2", f.get(10, TimeUnit.SECONDS));
+    }
+    assertEquals(2, runs.get());
+    // まとめた呼び出しのどれかが force なら、次の回は force
+    assertEquals(true, seenHeaders.get(1).get(SourceChangeTracker.HEADER_FORCE));
+  }
+
+  @Test
+  void sequentialTriggers_eachRun() throws Exception {
+    assertEquals("run-1", trigger(Map.of()).get(10, TimeUnit.SECONDS));
+    assertEquals("run-2", trigger(Map.of()).get(10, TimeUnit.SECONDS));
+    assertEquals(2, runs.get());
+  }
+
+  @Test
+  void failure_isGivenToEveryCallerOfThatRun() throws Exception {
+    release = new CountDownLatch(1);
+    failOnRun = 2;
+    Future<String> first = trigger(Map.of());
+    assertTrue(firstRunStarted.await(10, TimeUnit.SECONDS));
+    Future<String> a = trigger(Map.of());
+    Future<String> b = trigger(Map.of());
+    awaitCoalesced(1);
+    release.countDown();
+
+    assertEquals("run-1", first.get(10, TimeUnit.SECONDS));
+    for (Future<String> f : List.of(a, b)) {
+      Exception e = assertThrows(Exception.class, () -> f.get(10, TimeUnit.SECONDS));
+      assertEquals("run 2 failed", e.getCause().getMessage());
+    }
+    // 失敗のあとも次の呼び出しは普通に動く
+    assertEquals("run-3", trigger(Map.of()).get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void process_copiesResultIntoCallerExchange() {
+    Exchange caller = new DefaultExchange(ctx);
+    caller.getIn().setHeader(SourceChangeTracker.HEADER_FORCE, true);
+    coordinator.process(caller);
+
+    assertEquals("run-1", caller.getMessage().getBody(String.class));
+    assertEquals(1, caller.getProperty("jsprice.run"));
+    assertEquals(true, seenHeaders.get(0).get(SourceChangeTracker.HEADER_FORCE));
+  }
+}
@@ -0,0 +1,56 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.PdfDownloadProcessor;
+import com.example.jsprice.processor.PdfToCsvProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.spi.Synchronization;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfDownloadProcessorTest {
+
+  @Test
+  void spoolsResponseToTempFile_parsesFromFile_andDeletesItOnCompletion(@TempDir Path dir) throws Exception {
+    byte[] pdf = PdfFixtures.createMultiPageAsciiPdf(
+        new String[]{"JGB-30Y 2033/3/20 1.1 99.2936", "JGB-20Y"},
+        new String[]{"2031/12/20 1.7 103.8442"}
+    );
+    DefaultCamelContext ctx = new DefaultCamelContext();
+
+    Exchange plain = new DefaultExchange(ctx);
+    plain.getIn().setBody(pdf);
+    new PdfToCsvProcessor().process(plain);
+    String expected = plain.getIn().getBody(String.class);
+
+    // http エンドポイント（disableStreamCache=true）の応答と同じく InputStream で渡す
+    Exchange ex = new DefaultExchange(ctx);
+    ex.getIn().setBody(new ByteArrayInputStream(pdf));
+    new PdfDownloadProcessor(dir).process(ex);
+
+    File spooled = ex.getIn().getBody(File.class);
+    assertEquals(dir, spooled.toPath().getParent());
+    assertArrayEquals(pdf, Files.readAllBytes(spooled.toPath()));
+    assertEquals(pdf.length, ex.getIn().getHeader(Exchange.FILE_LENGTH, Long.class));
+
+    for (PdfToCsvProcessor.Mode mode : PdfToCsvProcessor.Mode.values()) {
+      Exchange run = ex.copy();
+      new PdfToCsvProcessor().mode(mode).parallelism(2).process(run);
+      assertEquals(expected, run.getIn().getBody(String.class), "mode=" + mode);
+    }
+
+    // Exchange 完了で一時ファイルが消えること
+    for (Synchronization s : ex.getExchangeExtension().handoverCompletions()) {
+      s.onComplete(ex);
+    }
+    assertFalse(spooled.exists(), "temp PDF should be deleted when the exchange completes");
+  }
+}
@@ -51,4 +51,30 @@ public final class PdfFixtures {
       return bos.toByteArray();
     }
   }
+
+  /** 1 要素 = 1 ページ。各ページの行を上から順に描画した PDF（ASCII のみ） */
+  public static byte[] createMultiPageAsciiPdf(String[]... pages) throws Exception {
+    try (PDDocument doc = new PDDocument()) {
+      for (String[] lines : pages) {
+        PDPage page = new PDPage(PDRectangle.A4);
+        doc.addPage(page);
+
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+          int y = 780;
+          for (String r : lines) {
+            cs.beginText();
+            cs.setFont(PDType1Font.HELVETICA, 11);
+            cs.newLineAtOffset(50, y);
+            cs.showText(r);
+            cs.endText();
+            y -= 16;
+          }
+        }
+      }
+
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      doc.save(bos);
+      return bos.toByteArray();
+    }
+  }
 }
@@ -1,7 +1,10 @@
 package com.example.jsprice;
 
+import com.example.jsprice.processor.ExtractStats;
 import com.example.jsprice.processor.PdfToCsvProcessor;
+import com.example.jsprice.processor.RowStage;
 import org.apache.camel.Exchange;
+import org.apache.camel.Producer;
 import org.apache.camel.impl.DefaultCamelContext;
 import org.apache.camel.support.DefaultExchange;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -10,8 +13,13 @@ import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -86,8 +94,165 @@ public class PdfToCsvProcessorTest {
     assertEquals("JGB-10Y,2035-03-20,1.4,99.744", lines[2]);
   }
 
+  @Test
+  void streamingMode_matchesWholeDocument_acrossPageBoundary() throws Exception {
+    byte[] pdf = PdfFixtures.createMultiPageAsciiPdf(
+        new String[]{"JGB-30Y 2033/3/20 1.1 99.2936", "JGB-20Y"},   // 銘柄名だけページ末尾に残る
+        new String[]{"2031/12/20 1.7 103.8442", "JGB-10Y 2035/3/20 1.4 99.744"},
+        new String[]{"JGB-40Y 2057/3/20 0.9 59.8393"}
+    );
+
+    String whole = runProcessor(new PdfToCsvProcessor(), pdf);
+    String streaming = runProcessor(new PdfToCsvProcessor()
+        .mode(PdfToCsvProcessor.Mode.STREAMING)
+        .windowPages(1), pdf);
+
+    assertEquals(whole, streaming);
+    String[] lines = streaming.split("\\R");
+    assertEquals(5, lines.length, "CSV should have header + 4 data rows");
+    assertEquals("JGB-20Y,2031-12-20,1.7,103.8442", lines[2]);
+  }
+
+  @Test
+  void parallelMode_isIdenticalToWholeDocument() throws Exception {
+    byte[] pdf = PdfFixtures.createMultiPageAsciiPdf(
+        new String[]{"JGB-30Y 2033/3/20 1.1 99.2936", "JGB-20Y"},
+        new String[]{"2031/12/20 1.7 103.8442", "JGB-10Y 2035/3/20 1.4 99.744"},
+        new String[]{"JGB-5Y"},
+        new String[]{"2029/6/20 0.5 99.1"},
+        new String[]{"JGB-40Y 2057/3/20 0.9 59.8393"}
+    );
+
+    String whole = runProcessor(new PdfToCsvProcessor(), pdf);
+    String parallel = runProcessor(new PdfToCsvProcessor()
+        .mode(PdfToCsvProcessor.Mode.PARALLEL)
+        .parallelism(5), pdf);
+
+    assertEquals(whole, parallel);
+    assertEquals(6, parallel.split("\\R").length, "CSV should have header + 5 data rows");
+  }
+
+  @Test
+  void positionEngine_isIdenticalToTextEngine_inEveryMode() throws Exception {
+    byte[] pdf = PdfFixtures.createMultiPageAsciiPdf(
+        new String[]{"NIKKEI NEEDS JS PRICE", "Page 1", "JGB-30Y 2033/3/20 1.1 99.2936", "JGB-20Y"},
+        new String[]{"2031/12/20 1.7 103.8442", "JGB-10Y 2035/3/20 1.4 99.744"},
+        new String[]{"JGB-STRIP 2030/9/20 95.5", "JGB-40Y 2057/3/20 0.9 59.8393"}   // 利率空欄を含む
+    );
+
+    String text = runProcessor(new PdfToCsvProcessor(), pdf);
+    assertEquals(6, text.split("\\R").length, "CSV should have header + 5 data rows");
+
+    for (PdfToCsvProcessor.Mode mode : PdfToCsvProcessor.Mode.values()) {
+      String position = runProcessor(new PdfToCsvProcessor()
+          .mode(mode)
+          .engine(PdfToCsvProcessor.Engine.POSITION)
+          .windowPages(1)
+          .parallelism(3), pdf);
+      assertEquals(text, position, "engine=POSITION, mode=" + mode);
+    }
+  }
+
+  @Test
+  void dedupAndSeriesOrder() throws Exception {
+    byte[] pdf = createSimpleAsciiPdf(
+        "JS PRICE (TEST)",
+        "As of 2025/06/30",
+        "JGB-40Y 2057/3/20 0.9 59.8393",
+        "JGB-30Y 2033/3/20 1.1 99.2936",
+        "JGB-40Y 2057/3/20 0.9 59.8393",   // ページ内容の重複
+        "JGB-40Y 2057/3/20 0.9 59.8394"    // 価格が違えば別の行
+    );
+
+    Exchange ex = new DefaultExchange(new DefaultCamelContext());
+    ex.getIn().setBody(pdf);
+    new PdfToCsvProcessor().dedup(true).process(ex);
+    assertEquals(String.join("\n",
+            "brand,maturity_date,coupon_pct,price_jpy",
+            "JGB-40Y,2057-03-20,0.9,59.8393",
+            "JGB-30Y,2033-03-20,1.1,99.2936",
+            "JGB-40Y,2057-03-20,0.9,59.8394", ""),
+        ex.getIn().getBody(String.class));
+    ExtractStats stats = ex.getProperty(PdfToCsvProcessor.PROP_STATS, ExtractStats.class);
+    assertEquals(1, stats.duplicates());
+    assertEquals(3, stats.rows());
+
+    Exchange sorted = new DefaultExchange(new DefaultCamelContext());
+    sorted.getIn().setBody(pdf);
+    new PdfToCsvProcessor().dedup(true).order(RowStage.Order.SERIES_MATURITY).process(sorted);
+    assertEquals(String.join("\n",
+            "brand,maturity_date,coupon_pct,price_jpy",
+            "JGB-30Y,2033-03-20,1.1,99.2936",
+            "JGB-40Y,2057-03-20,0.9,59.8393",
+            "JGB-40Y,2057-03-20,0.9,59.8394", ""),
+        sorted.getIn().getBody(String.class));
+
+    // 出力が変わるので変換結果キャッシュの版も変わる
+    assertNotEquals(new PdfToCsvProcessor().cacheVersion(), new PdfToCsvProcessor().dedup(true).cacheVersion());
+  }
+
+  @Test
+  void toFile_writesTempFile_andFileEndpointRenamesIt(@TempDir Path dir) throws Exception {
+    byte[] pdf = createSimpleAsciiPdf(
+        "JS PRICE (TEST)",
+        "As of 2025/06/30",
+        "JGB-30Y 2033/3/20 1.1 99.2936",
+        "JGB-40Y 2057/3/20 0.9 59.8393"
+    );
+    String expected = runProcessor(new PdfToCsvProcessor(), pdf);
+
+    DefaultCamelContext ctx = new DefaultCamelContext();
+    ctx.start();
+    try {
+      Exchange ex = new DefaultExchange(ctx);
+      ex.getIn().setBody(pdf);
+      ex.getIn().setHeader(PdfToCsvProcessor.HEADER_OUTPUT_DIR, dir.toString());
+      new PdfToCsvProcessor().toFile(true).process(ex);
+
+      File tmp = ex.getIn().getBody(File.class);
+      assertEquals(dir, tmp.toPath().getParent(), "temp file should be next to the target");
+      assertEquals(expected, Files.readString(tmp.toPath(), StandardCharsets.UTF_8));
+
+      ex.getIn().setHeader(Exchange.FILE_NAME, "out.csv");
+      Producer file = ctx.getEndpoint("file:" + dir).createProducer();
+      file.start();
+      file.process(ex);
+      file.stop();
+
+      assertEquals(expected, Files.readString(dir.resolve("out.csv"), StandardCharsets.UTF_8));
+      assertFalse(tmp.exists(), "temp file should have been renamed, not copied");
+    } finally {
+      ctx.stop();
+    }
+  }
+
+  @Test
+  void discardWorkFile_removesTempFileLeftByFailedLaterStep(@TempDir Path dir) throws Exception {
+    byte[] pdf = createSimpleAsciiPdf("JS PRICE (TEST)", "As of 2025/06/30", "JGB-30Y 2033/3/20 1.1 99.2936");
+    Exchange ex = new DefaultExchange(new DefaultCamelContext());
+    ex.getIn().setBody(pdf);
+    ex.getIn().setHeader(PdfToCsvProcessor.HEADER_OUTPUT_DIR, dir.toString());
+    new PdfToCsvProcessor().toFile(true).process(ex);
+    File tmp = ex.getIn().getBody(File.class);
+    assertTrue(tmp.exists());
+
+    // rename 前に後段が失敗した想定
+    PdfToCsvProcessor.discardWorkFile(ex);
+    assertFalse(tmp.exists());
+    assertNull(ex.getIn().getHeader(Exchange.FILE_LOCAL_WORK_PATH));
+    // 2 回目・ヘッダなしは何もしない
+    PdfToCsvProcessor.discardWorkFile(ex);
+  }
+
   // --- helper ---
 
+  private String runProcessor(PdfToCsvProcessor p, byte[] pdf) throws Exception {
+    Exchange ex = new DefaultExchange(new DefaultCamelContext());
+    ex.getIn().setBody(pdf);
+    p.process(ex);
+    return ex.getIn().getBody(String.class);
+  }
+
   /**
    * タイトル行・As of 行・データ行（任意件）を、縦方向に並べた単純な PDF を生成。
    * データ行はそのまま 1 行ずつ描画します（ASCII のみ）。
@@ -0,0 +1,64 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondRow;
+import com.example.jsprice.processor.PositionRowBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionRowBuilderTest {
+
+  @Test
+  void multipleBrandsOnOneLine_andMissingCoupon() {
+    List<String> rows = build(
+        List.of("第１回", "利付国債（４０年）", "2048/3/20", "2.4", "98.4085",
+            "分離利息国債（２０２５年９月償還）", "2025/9/20", "99.8825",
+            "第３回", "物価連動国債（１０年）", "２０２７/3/10", "0.1", "103.2"));
+
+    assertEquals(List.of(
+        "第１回 利付国債（４０年）|2048-03-20|2.4|98.4085",
+        "分離利息国債（２０２５年９月償還）|2025-09-20||99.8825",
+        "第３回 物価連動国債（１０年）|2027-03-10|0.1|103.2"), rows);
+  }
+
+  @Test
+  void brandOnlyLine_isJoinedAcrossHeaderLines() {
+    List<String> rows = build(
+        List.of("第６回", "利付国債（２年）"),
+        List.of("償還日", "表面利率", "債券標準価格"),
+        List.of("銘柄名", "（年・月・日）", "（％）", "（円）"),
+        List.of("2027/5/1", "0.4", "99.9"),
+        List.of("ゴミ行", "2027/5/1"));
+
+    assertEquals(List.of("第６回 利付国債（２年）|2027-05-01|0.4|99.9"), rows);
+  }
+
+  @Test
+  void invalidDate_isRejected() {
+    List<String> out = new ArrayList<>();
+    PositionRowBuilder b = new PositionRowBuilder(r -> out.add(r.brand()));
+    b.accept(List.of("JGB-X", "2027/2/30", "0.4", "99.9"));
+
+    assertTrue(out.isEmpty());
+    assertEquals(1, b.rejected());
+  }
+
+  @SafeVarargs
+  private static List<String> build(List<String>... lines) {
+    List<String> out = new ArrayList<>();
+    PositionRowBuilder b = new PositionRowBuilder(row -> {
+      StringBuilder sb = new StringBuilder(row.brand()).append('|');
+      BondRow.appendDate(sb, row.maturity());
+      sb.append('|');
+      BondRow.appendScaled(sb, row.coupon());
+      sb.append('|');
+      BondRow.appendScaled(sb, row.price());
+      out.add(sb.toString());
+    });
+    for (List<String> line : lines) b.accept(line);
+    return out;
+  }
+}
@@ -0,0 +1,131 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceHistoryStoreTest {
+
+  @TempDir
+  Path dir;
+
+  private static final String A = "第370回 利付国債（10年）";
+  private static final String B = "第28回 物価連動国債（10年）";
+  private static final int MATURITY = (int) LocalDate.of(2033, 3, 20).toEpochDay();
+
+  private static List<BondRow> snapshot(long priceA, long priceB) {
+    return List.of(new BondRow(A, MATURITY, 500_000, priceA), new BondRow(B, MATURITY, BondRow.NO_VALUE, priceB));
+  }
+
+  private static int day(LocalDate d) {
+    return (int) d.toEpochDay();
+  }
+
+  private static List<Long> prices(PriceHistoryStore store, String brand, LocalDate from, LocalDate to) {
+    return store.range(brand, day(from), day(to)).stream().map(PriceHistoryStore.Point::price).toList();
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> s = Files.list(dir)) {
+      return s.filter(p -> p.toString().endsWith(".jsph")).sorted().toList();
+    }
+  }
+
+  @Test
+  void rangeScan_supersede_outOfOrder_andRebuildOnReopen() throws Exception {
+    LocalDate w1 = LocalDate.of(2025, 6, 2);
+    LocalDate w2 = w1.plusWeeks(1);
+    LocalDate w3 = w1.plusWeeks(2);
+    try (PriceHistoryStore store = PriceHistoryStore.open(dir, 1 << 20)) {
+      store.append(w1, snapshot(97_000_000, 104_000_000));
+      store.append(w3, snapshot(97_300_000, 104_300_000));
+      store.append(w2, snapshot(97_200_000, 104_200_000));   // 後から来た古い基準日
+      store.append(w3, List.of(new BondRow(A, MATURITY, 500_000, 97_310_000)));   // 同じ日の再実行で置き換え
+
+      assertEquals(List.of(97_000_000L, 97_200_000L, 97_310_000L), prices(store, A, w1, w3));
+      assertEquals(List.of(104_000_000L, 104_200_000L), prices(store, B, w1, w3));
+      assertEquals(List.of(97_200_000L), prices(store, A, w2, w2));
+      assertEquals(List.of(), prices(store, "unknown", w1, w3));
+      assertEquals(5, store.liveRows());
+      assertEquals(2, store.deadRows());
+      PriceHistoryStore.Point p = store.range(B, day(w1), day(w1)).get(0);
+      assertEquals(new PriceHistoryStore.Point(day(w1), MATURITY, BondRow.NO_VALUE, 104_000_000), p);
+    }
+    try (PriceHistoryStore store = PriceHistoryStore.open(dir, 1 << 20)) {
+      assertEquals(List.of(97_000_000L, 97_200_000L, 97_310_000L), prices(store, A, w1, w3));
+      assertEquals(List.of(w1, w2, w3), store.snapshots().stream().map(PriceHistoryStore.Snapshot::asOf).toList());
+      assertEquals(2, store.deadRows());
+      // 再オープン後も通し番号が続き、置き換えが効く
+      store.append(w1, snapshot(96_000_000, 103_000_000));
+      assertEquals(List.of(96_000_000L, 97_200_000L), prices(store, A, w1, w2));
+    }
+  }
+
+  @Test
+  void compaction_dropsDeadRows_packsSegments_andSwitchesGeneration() throws Exception {
+    LocalDate d = LocalDate.of(2025, 1, 6);
+    // 1 ブロック（ヘッダ 32 + 2 行 48、最初だけ銘柄定義付き）で 1 セグメント
+    try (PriceHistoryStore store = PriceHistoryStore.open(dir, 100)) {
+      for (int i = 0; i < 4; i++) store.append(d.plusWeeks(i), snapshot(97_000_000 + i, 104_000_000 + i));
+      for (int i = 0; i < 2; i++) store.append(d.plusWeeks(i), snapshot(98_000_000 + i, 105_000_000 + i));
+      assertEquals(6, segments().size());
+      assertEquals(4, store.deadRows());
+
+      store.compact();
+      assertEquals(0, store.deadRows());
+      assertEquals(8, store.liveRows());
+      assertEquals(4, segments().size());
+      assertTrue(segments().stream().allMatch(p -> p.getFileName().toString().startsWith("history-1-")));
+      assertEquals("1", Files.readString(dir.resolve(PriceHistoryStore.CURRENT)));
+      assertEquals(List.of(98_000_000L, 98_000_001L, 97_000_002L, 97_000_003L), prices(store, A, d, d.plusWeeks(3)));
+      assertEquals(store.snapshot(d.plusWeeks(3)), snapshot(97_000_003, 104_000_003));
+    }
+    // compaction の途中で落ちた残り（CURRENT と違う世代）は開くときに消す
+    Files.write(dir.resolve(PriceHistoryStore.segmentName(2, 0)), new byte[64]);
+    try (PriceHistoryStore store = PriceHistoryStore.open(dir, 100)) {
+      assertEquals(List.of(98_000_000L, 98_000_001L, 97_000_002L, 97_000_003L), prices(store, A, d, d.plusWeeks(3)));
+      assertEquals(4, segments().size());
+    }
+  }
+
+  @Test
+  void tornTail_isTruncated_butCorruptMiddleSegment_refusesToOpen() throws Exception {
+    LocalDate d = LocalDate.of(2025, 1, 6);
+    try (PriceHistoryStore store = PriceHistoryStore.open(dir, 1 << 20)) {
+      store.append(d, snapshot(97_000_000, 104_000_000));
+      store.append(d.plusWeeks(1), snapshot(97_100_000, 104_100_000));
+    }
+    Path seg = segments().get(0);
+    long size = Files.size(seg);
+    try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.WRITE)) {
+      ch.truncate(size - 10);   // 2 つ目のブロックを書きかけにする
+    }
+    try (PriceHistoryStore store = PriceHistoryStore.open(dir, 1 << 20)) {
+      assertEquals(List.of(97_000_000L), prices(store, A, d, d.plusWeeks(1)));
+      store.append(d.plusWeeks(1), snapshot(97_200_000, 104_200_000));
+      assertEquals(List.of(97_000_000L, 97_200_000L), prices(store, A, d, d.plusWeeks(1)));
+    }
+
+    // 末尾でないセグメントの破損は黙って捨てない
+    try (PriceHistoryStore store = PriceHistoryStore.open(dir, 200)) {
+      store.append(d.plusWeeks(2), snapshot(97_300_000, 104_300_000));
+    }
+    assertEquals(2, segments().size());
+    byte[] bytes = Files.readAllBytes(seg);
+    bytes[bytes.length - 1] ^= 1;
+    Files.write(seg, bytes);
+    IOException e = assertThrows(IOException.class, () -> PriceHistoryStore.open(dir, 200));
+    assertTrue(e.getMessage().contains("checksum mismatch"), e.getMessage());
+  }
+}
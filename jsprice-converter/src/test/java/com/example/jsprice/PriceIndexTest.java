@@ -0,0 +1,117 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondCsvWriter;
+import com.example.jsprice.processor.BondRow;
+import com.example.jsprice.processor.BondSeries;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceIndexTest {
+
+  @TempDir
+  Path dir;
+
+  private static final String JGB10_370 = "第370回 利付国債（10年）";
+  private static final String JGB10_371 = "第371回 利付国債（10年）";
+  private static final String LINKER = "第28回 物価連動国債（10年）";
+  private static final String STRIPS = "分離利息国債（2030年6月20日償還）";
+  private static final String CT = "第1回 クライメート・トランジション利付国債（10年）";
+
+  private static BondRow row(String brand, LocalDate maturity, long coupon, long price) {
+    return new BondRow(brand, (int) maturity.toEpochDay(), coupon, price);
+  }
+
+  private static final List<BondRow> ROWS = List.of(
+      row(JGB10_371, LocalDate.of(2033, 6, 20), 1_100_000, 99_293_600),
+      row(STRIPS, LocalDate.of(2030, 6, 20), BondRow.NO_VALUE, 95_000_000),
+      row(JGB10_370, LocalDate.of(2033, 3, 20), 500_000, 97_100_000),
+      row(LINKER, LocalDate.of(2033, 3, 10), 5_000, 104_000_000),
+      row(CT, LocalDate.of(2033, 12, 20), 700_000, 98_000_000),
+      row(JGB10_370, LocalDate.of(2033, 3, 20), 500_000, 97_100_000));
+
+  private static int day(int y, int m, int d) {
+    return (int) LocalDate.of(y, m, d).toEpochDay();
+  }
+
+  @Test
+  void rowsSortedByMaturity_withBrandDictionaryAndSeries() {
+    PriceIndex index = PriceIndex.build(ROWS, "test.csv", null);
+    assertEquals(6, index.size());
+    assertEquals(5, index.brandCount());
+    int[] all = index.find(null, null, Integer.MIN_VALUE, Integer.MAX_VALUE, 100);
+    assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5}, all);
+    for (int i = 1; i < all.length; i++) {
+      assertTrue(index.maturity(i - 1) <= index.maturity(i));
+    }
+    assertEquals(STRIPS, index.brand(0));
+    assertSame(index.brand(2), index.brand(3)); // 同じ銘柄名は 1 インスタンス
+
+    assertEquals(BondSeries.STRIPS, index.series(0));
+    assertEquals(BondSeries.INFLATION_INDEXED, index.series(1));
+    assertEquals(BondSeries.FIXED_COUPON, index.series(2));
+    assertEquals(BondSeries.CLIMATE_TRANSITION, index.series(5));
+  }
+
+  @Test
+  void find_byBrand_range_series_andCombinations() {
+    PriceIndex index = PriceIndex.build(ROWS, "test.csv", null);
+
+    int[] byBrand = index.find(JGB10_370, null, Integer.MIN_VALUE, Integer.MAX_VALUE, 100);
+    assertEquals(2, byBrand.length);
+    assertEquals(97_100_000, index.price(byBrand[0]));
+    assertEquals(0, index.find("unknown", null, Integer.MIN_VALUE, Integer.MAX_VALUE, 100).length);
+
+    int[] range = index.find(null, null, day(2033, 3, 20), day(2033, 6, 20), 100);
+    assertEquals(List.of(JGB10_370, JGB10_370, JGB10_371), List.of(
+        index.brand(range[0]), index.brand(range[1]), index.brand(range[2])));
+
+    int[] fixed = index.find(null, BondSeries.parse("利付国債"), Integer.MIN_VALUE, Integer.MAX_VALUE, 100);
+    assertEquals(3, fixed.length);
+    assertEquals(1, index.find(null, BondSeries.FIXED_COUPON, day(2033, 4, 1), Integer.MAX_VALUE, 100).length);
+    assertEquals(0, index.find(JGB10_370, BondSeries.STRIPS, Integer.MIN_VALUE, Integer.MAX_VALUE, 100).length);
+    assertEquals(1, index.find(null, null, Integer.MIN_VALUE, Integer.MAX_VALUE, 1).length);
+    assertEquals(0, index.find(null, null, day(2040, 1, 1), day(2039, 1, 1), 100).length);
+  }
+
+  @Test
+  void service_loadsOnStartup_andSwapsAfterRun() throws Exception {
+    Path first = writeCsv("jsprice_20250531.csv", ROWS.subList(0, 2));
+    PriceIndexService service = new PriceIndexService(new SimpleMeterRegistry(), first);
+    PriceIndex before = service.current();
+    assertEquals(2, before.size());
+
+    Path second = writeCsv("jsprice_20250630.csv", ROWS);
+    Exchange ex = new DefaultExchange(new DefaultCamelContext());
+    ex.getMessage().setHeader(Exchange.FILE_NAME_PRODUCED, second.toString());
+    service.refresh(ex);
+    assertEquals(6, service.current().size());
+    assertEquals(second.toString(), service.current().source());
+    assertEquals(2, before.size()); // 差し替え前のインデックスは変わらない
+
+    // 読めない出力なら前のものを残す
+    Files.writeString(second, "broken");
+    service.refresh(ex);
+    assertEquals(6, service.current().size());
+  }
+
+  private Path writeCsv(String name, List<BondRow> rows) throws Exception {
+    Path csv = dir.resolve(name);
+    try (BondCsvWriter w = new BondCsvWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+      w.writeHeader();
+      for (BondRow r : rows) w.write(r);
+    }
+    return csv;
+  }
+}
@@ -0,0 +1,177 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondRow;
+import com.example.jsprice.processor.RowScanner;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RowScanner が、置き換え前の正規表現チェーン（cleanup() + ROW）と同じ行を拾うことを確認する。
+ */
+class RowScannerParityTest {
+
+  // ---- 置き換え前の実装（比較用にそのまま残す） ----
+
+  private static final Pattern HEADER_CHUNK = Pattern.compile(
+      "償還日\\s+表面利率\\s+債券標準価格\\s+銘柄名\\s+（年・月・日）\\s+（％）\\s+（円）\\s*"
+  );
+
+  private static final Pattern BRAND_CUE = Pattern.compile(
+      "(?=第[０-９0-9]+回\\s+利付国債（)|" +
+      "(?=分離利息国債（)|" +
+      "(?=第[０-９0-9]+回\\s+物価連動国債（)|" +
+      "(?=第[０-９0-9]+回\\s+クライメート・トランジション利付国債（)"
+  );
+
+  private static final Pattern ROW = Pattern.compile(
+      "^(?<brand>.+?)\\s+" +
+      "(?<date>\\d{4}\\s*/\\s*\\d{1,2}\\s*/\\s*\\d{1,2})" +
+      "(?:\\s+(?<coupon>[\\d.,]+))?\\s+" +
+      "(?<price>[\\d.,]+)\\s*$",
+      Pattern.MULTILINE
+  );
+
+  private static List<String> legacyRows(String text) {
+    String x = HEADER_CHUNK.matcher(text).replaceAll("");
+    x = x.replace('　', ' ').replace('\t', ' ');
+    x = x.replaceAll(" +", " ");
+    x = BRAND_CUE.matcher(x).replaceAll("\n$0");
+    x = x.replaceAll("\\n{2,}", "\n").trim();
+
+    List<String> out = new ArrayList<>();
+    Matcher m = ROW.matcher(x);
+    while (m.find()) {
+      out.add(key(m.group("brand"), m.group("date"), m.group("coupon"), m.group("price")));
+    }
+    return out;
+  }
+
+  private static String key(String brand, String date, String coupon, String price) {
+    String[] p = date.replaceAll("\\s+", "").split("/");
+    return String.join("|",
+        brand.trim().replaceAll("\\s+", " "),
+        String.format("%04d-%02d-%02d",
+            Integer.parseInt(p[0]), Integer.parseInt(p[1]), Integer.parseInt(p[2])),
+        decimalOrEmpty(coupon),
+        decimalOrEmpty(price));
+  }
+
+  private static String decimalOrEmpty(String s) {
+    if (s == null || s.isBlank()) return "";
+    return new BigDecimal(s.replace(",", "")).stripTrailingZeros().toPlainString();
+  }
+
+  private static List<String> scannerRows(String text) {
+    List<String> out = new ArrayList<>();
+    new RowScanner().scan(text, (start, end, row) -> {
+      StringBuilder date = new StringBuilder();
+      StringBuilder coupon = new StringBuilder();
+      StringBuilder price = new StringBuilder();
+      BondRow.appendDate(date, row.maturity());
+      BondRow.appendScaled(coupon, row.coupon());
+      BondRow.appendScaled(price, row.price());
+      return out.add(String.join("|", row.brand(), date, coupon, price));
+    });
+    return out;
+  }
+
+  private static void assertParity(String text, int expectedRows) {
+    List<String> legacy = legacyRows(text);
+    assertEquals(expectedRows, legacy.size(), "legacy row count");
+    assertEquals(legacy, scannerRows(text));
+  }
+
+  // ---- PdfToCsvProcessorTest と同じ入力 ----
+
+  @Test
+  void simpleTable() throws Exception {
+    assertParity(strip(PdfFixtures.createSimpleAsciiPdf(
+        "JS PRICE (TEST)",
+        "As of 2025/06/30",
+        "JGB-30Y 2033/3/20 1.1 99.2936",
+        "JGB-40Y 2057/3/20 0.9 59.8393")), 2);
+  }
+
+  @Test
+  void noiseAndBrandOnPreviousLine() throws Exception {
+    assertParity(strip(PdfFixtures.createSimpleAsciiPdf(
+        "NIKKEI NEEDS JS PRICE",
+        "Page 1",
+        "JGB-20Y",
+        "2031/12/20 1.7 103.8442",
+        "JGB-10Y 2035/3/20 1.4 99.744")), 2);
+  }
+
+  @Test
+  void rowsAcrossPages() throws Exception {
+    assertParity(strip(PdfFixtures.createMultiPageAsciiPdf(
+        new String[]{"JGB-30Y 2033/3/20 1.1 99.2936", "JGB-20Y"},
+        new String[]{"2031/12/20 1.7 103.8442", "JGB-10Y 2035/3/20 1.4 99.744"},
+        new String[]{"JGB-40Y 2057/3/20 0.9 59.8393"})), 4);
+  }
+
+  // ---- JS Price 実データの形 ----
+
+  @Test
+  void pageHeaderAndFullWidthSpaces() {
+    String text = "　 JS Price\n"
+        + "【国債】 データ日付＝２０２５／６／３０\n"
+        + "償還日 表面利率 債券標準価格\n"
+        + "銘柄名 （年・月・日） （％） （円）\n"
+        + "第１回　利付国債（４０年） 2048/3/20 2.4 98.4085\n"
+        + "第４５０回　分離元本国債（２年） 2025/7/1 100.0000\n"
+        + "分離利息国債（２０３５年　６月２０日償還） 2035/6/20 85.0989\n"
+        + "Copyright 2002-2025：日本経済新聞社 [ 国債 1 / 13 ]　\n";
+    assertParity(text, 3);
+  }
+
+  @Test
+  void multipleBrandsOnOneLine() {
+    String text = "第１回　利付国債（４０年） 2048/3/20 2.4 98.4085 第２回　利付国債（４０年） 2049/3/20 2.2 93.9249\n"
+        + "分離利息国債（２０２５年９月償還） 2025/9/20 99.8825 第３回　物価連動国債（１０年） 2027/3/10 0.1 103.2\n";
+    assertParity(text, 4);
+  }
+
+  @Test
+  void missingCouponSpacedDateAndThousands() {
+    String text = "第５回\t利付国債（２年） 2027 / 4 / 1 1,001.5\n"
+        + "\n"
+        + "第６回 利付国債（２年）\n"
+        + "\n"
+        + "2027/5/1 0.4 99.9\n"
+        + "ゴミ行 2027/5/1\n";
+    assertParity(text, 2);
+  }
+
+  @Test
+  void numbersOnFollowingLine() {
+    String text = "第７回 利付国債（５年） 2029/6/20\n"
+        + "0.5 100.12\n"
+        + "第８回 利付国債（５年）\n"
+        + "2029/9/20\n"
+        + "\n"
+        + "0.6 100.3\n"
+        + "分離利息国債（２０３０年３月償還） 2030/3/20\n"
+        + "97.5\n"
+        + "ゴミ行 2027/5/1\n"
+        + "第９回 利付国債（５年） 2030/6/20 0.7 100.5\n";
+    assertParity(text, 4);
+  }
+
+  private static String strip(byte[] pdf) throws Exception {
+    try (PDDocument doc = PDDocument.load(pdf)) {
+      PDFTextStripper stripper = new PDFTextStripper();
+      stripper.setSortByPosition(true);
+      return stripper.getText(doc);
+    }
+  }
+}
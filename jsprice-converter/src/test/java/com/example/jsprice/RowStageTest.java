@@ -0,0 +1,61 @@
+package com.example.jsprice;
+
+import com.example.jsprice.processor.BondRow;
+import com.example.jsprice.processor.RowStage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowStageTest {
+
+  private static final String FIXED = "第370回 利付国債（10年）";
+  private static final String LINKER = "第28回 物価連動国債（10年）";
+  private static final String STRIPS = "分離利息国債（2030年6月20日償還）";
+  private static final String CT = "第1回 クライメート・トランジション利付国債（10年）";
+
+  @Test
+  void dedup_keepsFirstOccurrence_acrossManyRows() {
+    List<BondRow> out = new ArrayList<>();
+    RowStage stage = new RowStage(out::add, true, RowStage.Order.EXTRACTED);
+    // 集合の拡張（初期 1024）を何度も跨ぐ件数で、全行を 2 回ずつ流す
+    int n = 50_000;
+    for (int pass = 0; pass < 2; pass++) {
+      for (int i = 0; i < n; i++) {
+        stage.accept(new BondRow("第" + i + "回 利付国債（10年）", 19000 + i % 3650, 500_000, 99_000_000 + i));
+      }
+    }
+    // 1 項目だけ違うものは別の行
+    stage.accept(new BondRow("第0回 利付国債（10年）", 19000, 500_000, 99_000_001));
+    stage.accept(new BondRow("第0回 利付国債（10年）", 19000, BondRow.NO_VALUE, 99_000_000));
+    stage.accept(new BondRow("第0回 利付国債（10年）", 19001, 500_000, 99_000_000));
+    stage.finish();
+
+    assertEquals(n + 3, out.size());
+    assertEquals(n, stage.duplicates());
+    for (int i = 0; i < n; i++) {
+      assertEquals(99_000_000 + i, out.get(i).price());
+    }
+  }
+
+  @Test
+  void seriesMaturityOrder_isStable() {
+    List<BondRow> out = new ArrayList<>();
+    RowStage stage = new RowStage(out::add, false, RowStage.Order.SERIES_MATURITY);
+    List<BondRow> in = List.of(
+        new BondRow(STRIPS, 22000, BondRow.NO_VALUE, 95_000_000),
+        new BondRow(CT, 23000, 700_000, 98_000_000),
+        new BondRow(FIXED, 23000, 500_000, 97_000_000),
+        new BondRow(LINKER, -1, 5_000, 104_000_000),
+        new BondRow(FIXED, 21000, 500_000, 99_000_000),
+        new BondRow(FIXED, 23000, 500_000, 97_000_001),   // 同じ種別・償還日は出現順
+        new BondRow("その他の債券", 20000, 100_000, 100_000_000));
+    in.forEach(stage);
+    assertTrue(out.isEmpty(), "finish までは流さない");
+    stage.finish();
+
+    assertEquals(List.of(in.get(4), in.get(2), in.get(5), in.get(3), in.get(1), in.get(0), in.get(6)), out);
+  }
+}
@@ -0,0 +1,195 @@
+package com.example.jsprice;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceTokenProviderTest {
+
+  /** トークン発行のスタブ。release() されるまで応答を止めておける */
+  private HttpServer issuer;
+  private final AtomicInteger requests = new AtomicInteger();
+  private volatile CountDownLatch gate = new CountDownLatch(0);
+  private volatile long expiresIn = 300;
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2025-06-01T00:00:00Z"));
+
+  @BeforeEach
+  void startIssuer() throws Exception {
+    issuer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    issuer.setExecutor(Executors.newCachedThreadPool());
+    issuer.createContext("/token", ex -> {
+      int n = requests.incrementAndGet();
+      try {
+        gate.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      byte[] body = ("{\"access_token\":\"tok-" + n + "\",\"expires_in\":" + expiresIn + "}")
+          .getBytes(StandardCharsets.UTF_8);
+      ex.getResponseHeaders().add("Content-Type", "application/json");
+      ex.sendResponseHeaders(200, body.length);
+      ex.getResponseBody().write(body);
+      ex.close();
+    });
+    issuer.start();
+  }
+
+  @AfterEach
+  void stopIssuer() {
+    issuer.stop(0);
+  }
+
+  private ServiceTokenProvider provider() {
+    String url = "http://127.0.0.1:" + issuer.getAddress().getPort() + "/token";
+    return provider(url, Duration.ofSeconds(10));
+  }
+
+  private ServiceTokenProvider provider(String url, Duration timeout) {
+    return new ServiceTokenProvider(url, "jsprice", "secret", 0.75, Duration.ofSeconds(5), timeout, clock);
+  }
+
+  @Test
+  void misconfiguredTokenUrl_failsEveryCallInsteadOfHanging() {
+    ServiceTokenProvider p = provider("http://[keycloak/token", Duration.ofSeconds(1));
+    try {
+      assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+        assertThrows(RuntimeException.class, p::getBearerToken);
+        // 1 回目の失敗で取得中のまま残らない
+        assertThrows(RuntimeException.class, p::getBearerToken);
+      });
+    } finally {
+      p.destroy();
+    }
+  }
+
+  @Test
+  void issuerNotResponding_timesOutAndNextCallRetries() {
+    String url = "http://127.0.0.1:" + issuer.getAddress().getPort() + "/token";
+    ServiceTokenProvider p = provider(url, Duration.ofMillis(500));
+    try {
+      gate = new CountDownLatch(1);
+      assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(RuntimeException.class, p::getBearerToken));
+      gate.countDown();
+      assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertEquals("tok-2", p.getBearerToken()));
+    } finally {
+      p.destroy();
+    }
+  }
+
+  @Test
+  void concurrentCallers_shareOneTokenRequest() throws Exception {
+    ServiceTokenProvider p = provider();
+    gate = new CountDownLatch(1);
+    int callers = 32;
+    ExecutorService pool = Executors.newFixedThreadPool(callers);
+    try {
+      CountDownLatch ready = new CountDownLatch(callers);
+      Set<Future<String>> results = ConcurrentHashMap.newKeySet();
+      for (int i = 0; i < callers; i++) {
+        results.add(pool.submit(() -> {
+          ready.countDown();
+          return p.getBearerToken();
+        }));
+      }
+      ready.await(10, TimeUnit.SECONDS);
+      Thread.sleep(100);
+      gate.countDown();
+
+      for (Future<String> f : results) {
+        assertEquals("tok-1", f.get(10, TimeUnit.SECONDS));
+      }
+      assertEquals(1, requests.get());
+      // キャッシュ済みなら発行側へは行かない
+      assertEquals("tok-1", p.getBearerTokenAsync().get(1, TimeUnit.SECONDS));
+      assertEquals(1, requests.get());
+    } finally {
+      pool.shutdownNow();
+      p.destroy();
+    }
+  }
+
+  @Test
+  void pastRefreshPoint_returnsCurrentTokenAndRefreshesInBackground() throws Exception {
+    ServiceTokenProvider p = provider();
+    try {
+      assertEquals("tok-1", p.getBearerToken());
+
+      // expires_in=300, refreshFraction=0.75 → 225 秒後から取り直し。応答は止めておく
+      gate = new CountDownLatch(1);
+      clock.advance(Duration.ofSeconds(230));
+      for (int i = 0; i < 10; i++) {
+        assertEquals("tok-1", p.getBearerTokenAsync().get(1, TimeUnit.SECONDS));
+      }
+      gate.countDown();
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!"tok-2".equals(p.getBearerToken()) && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals("tok-2", p.getBearerToken());
+      assertEquals(2, requests.get());
+    } finally {
+      p.destroy();
+    }
+  }
+
+  @Test
+  void expiredToken_waitsForNewOne() {
+    ServiceTokenProvider p = provider();
+    try {
+      assertEquals("tok-1", p.getBearerToken());
+      clock.advance(Duration.ofSeconds(296)); // 期限 300 秒 − 余裕 5 秒を過ぎた
+      assertEquals("tok-2", p.getBearerToken());
+      assertEquals(2, requests.get());
+    } finally {
+      p.destroy();
+    }
+  }
+
+  private static final class MutableClock extends Clock {
+    private volatile Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration d) {
+      now = now.plus(d);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
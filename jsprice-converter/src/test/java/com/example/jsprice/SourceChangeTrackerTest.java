@@ -0,0 +1,99 @@
+package com.example.jsprice;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceChangeTrackerTest {
+
+  private static final String URL = "http://pdf-host:10081/jsprice/sample";
+  private static final String LAST_MODIFIED = "Mon, 30 Jun 2025 09:00:00 GMT";
+
+  private final DefaultCamelContext ctx = new DefaultCamelContext();
+
+  @Test
+  void conditionalGet_afterSuccessfulRun_andStopOnNotModified(@TempDir Path dir) {
+    SourceChangeTracker tracker = new SourceChangeTracker(dir.resolve("state.properties").toString());
+
+    // 初回: 条件なしで取得し、変換成功で記録
+    Exchange first = request(tracker);
+    assertNull(first.getIn().getHeader("If-None-Match"));
+    respond(first, 200, "\"v1\"", 1234L);
+    assertFalse(tracker.isUnchanged(first));
+    tracker.commit(first);
+
+    // 2 回目: 条件付き GET、304 なら打ち切り
+    Exchange second = request(tracker);
+    assertEquals("\"v1\"", second.getIn().getHeader("If-None-Match"));
+    assertEquals(LAST_MODIFIED, second.getIn().getHeader("If-Modified-Since"));
+    respond(second, 304, null, -1L);
+    assertTrue(tracker.isUnchanged(second));
+
+    // 条件付きヘッダを無視して 200 を返すサーバでも、同じ ETag なら打ち切り
+    Exchange third = request(tracker);
+    respond(third, 200, "\"v1\"", 1234L);
+    assertTrue(tracker.isUnchanged(third));
+
+    // 新しい版
+    Exchange fourth = request(tracker);
+    respond(fourth, 200, "\"v2\"", 1300L);
+    assertFalse(tracker.isUnchanged(fourth));
+  }
+
+  @Test
+  void failedRun_isNotRecorded_andForceSkipsTheCheck(@TempDir Path dir) {
+    SourceChangeTracker tracker = new SourceChangeTracker(dir.resolve("state.properties").toString());
+
+    Exchange failed = request(tracker);
+    respond(failed, 200, "\"v1\"", 1234L);
+    assertFalse(tracker.isUnchanged(failed));
+    // commit しない（変換失敗）
+
+    Exchange retry = request(tracker);
+    assertNull(retry.getIn().getHeader("If-None-Match"));
+    respond(retry, 200, "\"v1\"", 1234L);
+    assertFalse(tracker.isUnchanged(retry));
+    tracker.commit(retry);
+
+    Exchange forced = new DefaultExchange(ctx);
+    forced.getIn().setHeader(SourceChangeTracker.HEADER_FORCE, true);
+    tracker.applyConditionalHeaders(forced, URL);
+    assertNull(forced.getIn().getHeader("If-None-Match"));
+    respond(forced, 200, "\"v1\"", 1234L);
+    assertFalse(tracker.isUnchanged(forced));
+  }
+
+  @Test
+  void stateSurvivesRestart(@TempDir Path dir) {
+    String state = dir.resolve("state.properties").toString();
+    SourceChangeTracker tracker = new SourceChangeTracker(state);
+    Exchange ex = request(tracker);
+    respond(ex, 200, "\"v1\"", 1234L);
+    tracker.isUnchanged(ex);
+    tracker.commit(ex);
+
+    SourceChangeTracker restarted = new SourceChangeTracker(state);
+    assertEquals(new SourceChangeTracker.SourceMeta("\"v1\"", LAST_MODIFIED, 1234L), restarted.lastKnown(URL));
+  }
+
+  private Exchange request(SourceChangeTracker tracker) {
+    Exchange ex = new DefaultExchange(ctx);
+    tracker.applyConditionalHeaders(ex, URL);
+    return ex;
+  }
+
+  private static void respond(Exchange ex, int code, String etag, long length) {
+    ex.getIn().setHeader(Exchange.HTTP_RESPONSE_CODE, code);
+    if (etag != null) {
+      ex.getIn().setHeader("ETag", etag);
+      ex.getIn().setHeader("Last-Modified", LAST_MODIFIED);
+      ex.getIn().setHeader(Exchange.CONTENT_LENGTH, length);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package com.example.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingJwtAuthenticationProviderTest {
+
+  private static final KeyPair KEYS = rsaKeyPair();
+  private static final String KEY_ID = "test-key";
+
+  private final AtomicInteger decodes = new AtomicInteger();
+  private final JwtDecoder verifying = NimbusJwtDecoder.withPublicKey((RSAPublicKey) KEYS.getPublic()).build();
+  private final JwtDecoder counting = token -> {
+    decodes.incrementAndGet();
+    return verifying.decode(token);
+  };
+
+  private CachingJwtAuthenticationProvider provider(int maxEntries, Clock clock) {
+    JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+    converter.setJwtGrantedAuthoritiesConverter(new KeycloakRealmRoleConverter());
+    return new CachingJwtAuthenticationProvider(counting, converter, maxEntries, clock);
+  }
+
+  @Test
+  void sameToken_isVerifiedOnce_andDetailsArePerRequest() {
+    CachingJwtAuthenticationProvider p = provider(16, Clock.systemUTC());
+    String token = sign("service-cli", Duration.ofMinutes(5));
+
+    Authentication first = p.authenticate(bearer(token, "req-1"));
+    Authentication second = p.authenticate(bearer(token, "req-2"));
+
+    assertEquals(1, decodes.get());
+    assertEquals("service-cli", second.getName());
+    assertEquals(Set.of("ROLE_svc"), names(second.getAuthorities()));
+    assertEquals(names(first.getAuthorities()), names(second.getAuthorities()));
+    assertEquals("req-1", first.getDetails());
+    assertEquals("req-2", second.getDetails());
+  }
+
+  @Test
+  void expiredEntry_isVerifiedAgain() {
+    Instant start = Instant.now();
+    MutableClock clock = new MutableClock(start);
+    CachingJwtAuthenticationProvider p = provider(16, clock);
+    String token = sign("service-cli", Duration.ofMinutes(5));
+
+    p.authenticate(bearer(token, null));
+    clock.now = start.plus(Duration.ofMinutes(6)); // exp を過ぎた
+    p.authenticate(bearer(token, null));
+
+    assertEquals(2, decodes.get());
+  }
+
+  @Test
+  void invalidToken_isNotCached() {
+    CachingJwtAuthenticationProvider p = provider(16, Clock.systemUTC());
+    String token = sign("service-cli", Duration.ofMinutes(5));
+    String tampered = token.substring(0, token.length() - 4) + "AAAA";
+
+    assertThrows(InvalidBearerTokenException.class, () -> p.authenticate(bearer(tampered, null)));
+    assertThrows(InvalidBearerTokenException.class, () -> p.authenticate(bearer(tampered, null)));
+    assertEquals(2, decodes.get());
+    assertEquals(0, p.size());
+  }
+
+  @Test
+  void cacheIsBounded() {
+    CachingJwtAuthenticationProvider p = provider(2, Clock.systemUTC());
+    for (int i = 0; i < 5; i++) {
+      p.authenticate(bearer(sign("client-" + i, Duration.ofMinutes(5)), null));
+    }
+    assertEquals(2, p.size());
+  }
+
+  private static BearerTokenAuthenticationToken bearer(String token, Object details) {
+    BearerTokenAuthenticationToken bearer = new BearerTokenAuthenticationToken(token);
+    bearer.setDetails(details);
+    return bearer;
+  }
+
+  private static Set<String> names(Collection<? extends GrantedAuthority> authorities) {
+    return authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+  }
+
+  static String sign(String subject, Duration ttl) {
+    try {
+      JWTClaimsSet claims = new JWTClaimsSet.Builder()
+          .subject(subject)
+          .issueTime(new Date())
+          .expirationTime(Date.from(Instant.now().plus(ttl)))
+          .claim("realm_access", Map.of("roles", List.of("svc")))
+          .build();
+      SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(KEY_ID).build(), claims);
+      jwt.sign(new RSASSASigner(KEYS.getPrivate()));
+      return jwt.serialize();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** KEYS の公開鍵だけを載せた JWK Set（Keycloak の certs エンドポイント相当） */
+  static JWKSet jwkSet() {
+    return new JWKSet(new RSAKey.Builder((RSAPublicKey) KEYS.getPublic()).keyID(KEY_ID).build());
+  }
+
+  private static KeyPair rsaKeyPair() {
+    try {
+      KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+      gen.initialize(2048);
+      return gen.generateKeyPair();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class MutableClock extends Clock {
+    private volatile Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.example.security;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwkSetJwtDecodersTest {
+
+  private HttpServer jwks;
+  private final AtomicInteger fetches = new AtomicInteger();
+
+  @BeforeEach
+  void startJwks() throws Exception {
+    jwks = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    jwks.createContext("/certs", ex -> {
+      fetches.incrementAndGet();
+      byte[] body = CachingJwtAuthenticationProviderTest.jwkSet().toString().getBytes(StandardCharsets.UTF_8);
+      ex.getResponseHeaders().add("Content-Type", "application/json");
+      ex.sendResponseHeaders(200, body.length);
+      ex.getResponseBody().write(body);
+      ex.close();
+    });
+    jwks.start();
+  }
+
+  @AfterEach
+  void stopJwks() {
+    jwks.stop(0);
+  }
+
+  @Test
+  void jwkSet_isPrefetched_andRequestsDoNotFetch() throws Exception {
+    OAuth2ResourceServerProperties.Jwt props = new OAuth2ResourceServerProperties.Jwt();
+    props.setJwkSetUri("http://127.0.0.1:" + jwks.getAddress().getPort() + "/certs");
+
+    NimbusJwtDecoder decoder = JwkSetJwtDecoders.create(props, Duration.ofMinutes(5), Duration.ofSeconds(30));
+    assertEquals(1, fetches.get());
+
+    Jwt jwt = decoder.decode(CachingJwtAuthenticationProviderTest.sign("service-cli", Duration.ofMinutes(5)));
+    assertEquals("service-cli", jwt.getSubject());
+    assertEquals(1, fetches.get());
+  }
+
+  @Test
+  void issuerMismatch_isRejected() throws Exception {
+    OAuth2ResourceServerProperties.Jwt props = new OAuth2ResourceServerProperties.Jwt();
+    props.setJwkSetUri("http://127.0.0.1:" + jwks.getAddress().getPort() + "/certs");
+    props.setIssuerUri("http://localhost:8080/realms/needs-realm");
+
+    NimbusJwtDecoder decoder = JwkSetJwtDecoders.create(props, Duration.ofMinutes(5), Duration.ofSeconds(30));
+    String token = CachingJwtAuthenticationProviderTest.sign("service-cli", Duration.ofMinutes(5));
+    assertThrows(JwtValidationException.class, () -> decoder.decode(token));
+  }
+}
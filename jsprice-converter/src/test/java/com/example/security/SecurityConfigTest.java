@@ -0,0 +1,77 @@
+package com.example.security;
+
+import com.example.jsprice.JspriceApplication;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManagerResolver;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * アプリのコンテキストで SecurityConfig のチェーンが使われていること（Boot 既定のチェーンではないこと）を確認する。
+ * 外には繋がない（トークン・JWK の URL は閉じたポート。JWK の先読みは警告だけで続く）。
+ */
+@SpringBootTest(classes = JspriceApplication.class, properties = {
+    "app.keycloak.tokenUrl=http://localhost:9/token",
+    "app.keycloak.clientId=test",
+    "app.keycloak.clientSecret=test",
+    "spring.security.oauth2.resourceserver.jwt.jwk-set-uri=http://localhost:9/certs",
+    "app.history.enabled=false",
+    "app.cache.dir="
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability  // テストでは既定で無効な Prometheus のエンドポイントを有効にする
+class SecurityConfigTest {
+
+  @Autowired FilterChainProxy filterChainProxy;
+  @Autowired MockMvc mvc;
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void bearerTokens_areAuthenticatedByCachingProvider() {
+    List<SecurityFilterChain> chains = filterChainProxy.getFilterChains();
+    assertEquals(1, chains.size());
+    List<Filter> filters = chains.get(0).getFilters();
+    BearerTokenAuthenticationFilter bearer = filters.stream()
+        .filter(BearerTokenAuthenticationFilter.class::isInstance)
+        .map(BearerTokenAuthenticationFilter.class::cast)
+        .findFirst()
+        .orElseThrow();
+
+    AuthenticationManagerResolver<HttpServletRequest> resolver = (AuthenticationManagerResolver<HttpServletRequest>)
+        ReflectionTestUtils.getField(bearer, "authenticationManagerResolver");
+    ProviderManager manager = assertInstanceOf(ProviderManager.class, resolver.resolve(new MockHttpServletRequest()));
+    assertEquals(1, manager.getProviders().size());
+    assertInstanceOf(CachingJwtAuthenticationProvider.class, manager.getProviders().get(0));
+  }
+
+  @Test
+  void apiWithoutToken_isUnauthorized() throws Exception {
+    mvc.perform(get("/converter/prices")).andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void prometheusWithoutToken_isScrapable() throws Exception {
+    mvc.perform(get("/actuator/prometheus"))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("jvm_memory_used_bytes")));
+  }
+}
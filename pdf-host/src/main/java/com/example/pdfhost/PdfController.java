@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -15,7 +16,7 @@ import java.nio.charset.StandardCharsets;
 public class PdfController {
 
   @GetMapping("/jsprice/sample")
-  public ResponseEntity<byte[]> serveSample() throws IOException {
+  public ResponseEntity<byte[]> serveSample(WebRequest request) throws IOException {
     var res = new ClassPathResource("sample/jsprice_01_202506.pdf");
     if (!res.exists()) {
       // 置き忘れ対策のメッセージ返却（本来は404でもOK）
@@ -24,10 +25,17 @@ public class PdfController {
           .header(HttpHeaders.CONTENT_TYPE, "text/plain; charset=UTF-8")
           .body(msg.getBytes(StandardCharsets.UTF_8));
     }
+    // 変更検知用: 本文を読まずに作れる ETag（長さ + 更新時刻）。一致すれば 304 で本文を返さない
+    long lastModified = res.lastModified();
+    String etag = "W/\"" + Long.toHexString(res.contentLength()) + "-" + Long.toHexString(lastModified) + "\"";
+    if (request.checkNotModified(etag, lastModified)) {
+      return null;
+    }
     byte[] bytes = StreamUtils.copyToByteArray(res.getInputStream());
     return ResponseEntity.ok()
         .header(HttpHeaders.CONTENT_TYPE, "application/pdf")
-        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+        // 保存してよいが毎回検証させる（条件付き GET 前提）
+        .header(HttpHeaders.CACHE_CONTROL, "no-cache")
         .body(bytes);
   }
 }
@@ -1,9 +1,13 @@
 package com.example.pdfhost;
 
+import com.example.security.SecurityConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
+// com.example.security はコンポーネントスキャンの外なので明示的に読み込む
 @SpringBootApplication
+@Import(SecurityConfig.class)
 public class PdfHostApplication {
   public static void main(String[] args) {
     SpringApplication.run(PdfHostApplication.class, args);
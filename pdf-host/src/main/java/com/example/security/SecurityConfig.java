@@ -1,41 +1,51 @@
 package com.example.security;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.HttpMethod;
-import org.springframework.security.config.Customizer;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.time.Duration;
+
 @Configuration
 public class SecurityConfig {
 
   @Bean
-  SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+  SecurityFilterChain securityFilterChain(
+      HttpSecurity http,
+      JwtDecoder jwtDecoder,
+      @Value("${app.security.jwtCache.maxEntries:1024}") int jwtCacheMaxEntries) throws Exception {
+    // 検証済みトークンと権限（realm_access.roles → ROLE_*）は exp までキャッシュする
+    JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+    converter.setJwtGrantedAuthoritiesConverter(new KeycloakRealmRoleConverter());
+    ProviderManager jwtAuthenticationManager = new ProviderManager(
+        new CachingJwtAuthenticationProvider(jwtDecoder, converter, jwtCacheMaxEntries));
+
     http
         .csrf(csrf -> csrf.disable())
         .authorizeHttpRequests(auth -> auth
             .requestMatchers("/actuator/health", "/actuator/info").permitAll()
 
-            // ★ 内部呼び出し（jsprice-converter → pdf-host）用: /jsprice/**
-            .requestMatchers(HttpMethod.GET, "/jsprice/**").permitAll()
-
-            // ★ 外向け（Kong 経由）で現在使っているパス: /pdf/jsprice/**
-            .requestMatchers(HttpMethod.GET, "/pdf/jsprice/**").permitAll()
-
-            // それ以外はトークン必須
+            // /jsprice/**（jsprice-converter → pdf-host）・/pdf/jsprice/**（Kong 経由）もトークン必須
             .anyRequest().authenticated()
         )
-        .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()));
+        .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt.authenticationManager(jwtAuthenticationManager)));
 
     return http.build();
   }
 
-  //（恒久対応でなくてよければこれでOK。すぐ 200 になります。但し、認証しません。）
+  // JWK Set は起動時に先読みし、期限前にバックグラウンドで取り直す
   @Bean
-  WebSecurityCustomizer webSecurityCustomizer() {
-    return web -> web.ignoring()
-        .requestMatchers(HttpMethod.GET, "/jsprice/**", "/pdf/jsprice/**", "/actuator/**");
+  JwtDecoder jwtDecoder(
+      OAuth2ResourceServerProperties properties,
+      @Value("${app.security.jwk.cacheTtlSec:300}") long cacheTtlSec,
+      @Value("${app.security.jwk.refreshAheadSec:30}") long refreshAheadSec) throws Exception {
+    return JwkSetJwtDecoders.create(properties.getJwt(),
+        Duration.ofSeconds(cacheTtlSec), Duration.ofSeconds(refreshAheadSec));
   }
 }